@@ -0,0 +1,61 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.VerticleApplication;
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.runtime.VTohru;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.Deployment;
+import io.vertx.core.impl.VertxInternal;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the framework once per trial with {@link BenchVerticle} deployed, and exposes the deployed verticle's context
+ * to the benchmarks that resolve their handlers from a running application.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+    public static final int PORT = 17777;
+    private static final long STARTUP_TIMEOUT = 30000;
+
+    VerticleApplicationContext context;
+    Vertx vertx;
+    Context verticleContext;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = new VTohru().build();
+        context.registerSingleton(context, false);
+        context.start();
+        VerticleApplication application = context.getBean(VerticleApplication.class);
+        application.start();
+        vertx = context.getVertx();
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while (vertx.deploymentIDs().isEmpty()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("BenchVerticle did not deploy within " + STARTUP_TIMEOUT + "ms");
+            }
+            Thread.sleep(10);
+        }
+        Set<String> deploymentIDs = vertx.deploymentIDs();
+        Deployment deployment = ((VertxInternal) vertx).getDeployment(deploymentIDs.iterator().next());
+        verticleContext = deployment.getContexts().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.getBean(VerticleApplication.class).stop();
+    }
+
+    static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,41 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.web.annotation.Controller;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import javax.ws.rs.BeanParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+@Controller
+@Path("/bench")
+public class BenchController {
+
+    @GET
+    @Path("/plain")
+    public Future<String> plain() {
+        return Future.succeededFuture("ok");
+    }
+
+    @GET
+    @Path("/query")
+    public Future<String> query(@QueryParam("name") String name, @QueryParam("age") Integer age, @QueryParam("score") Long score) {
+        return Future.succeededFuture(name + age + score);
+    }
+
+    @GET
+    @Path("/users/{id}")
+    public Future<BenchModel> user(@PathParam("id") Long id) {
+        return Future.succeededFuture(BenchModel.sample(id));
+    }
+
+    @POST
+    @Path("/echo")
+    public Future<JsonObject> echo(@BeanParam JsonObject body) {
+        return Future.succeededFuture(body);
+    }
+}
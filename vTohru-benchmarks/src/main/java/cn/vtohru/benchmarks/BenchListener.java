@@ -0,0 +1,18 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.message.annotation.MessageAddress;
+import cn.vtohru.message.annotation.MessageListener;
+import cn.vtohru.message.annotation.MessageType;
+import io.vertx.core.Future;
+
+import javax.ws.rs.QueryParam;
+
+@MessageListener
+public class BenchListener {
+    public static final String ECHO = "bench.echo";
+
+    @MessageAddress(value = ECHO, type = MessageType.Type.REQUEST)
+    public Future<String> echo(@QueryParam("name") String name, @QueryParam("count") Integer count) {
+        return Future.succeededFuture(name + count);
+    }
+}
@@ -0,0 +1,82 @@
+package cn.vtohru.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BenchModel {
+    private Long id;
+    private String name;
+    private String email;
+    private int age;
+    private double balance;
+    private boolean active;
+    private List<String> tags;
+
+    public static BenchModel sample(Long id) {
+        BenchModel model = new BenchModel();
+        model.setId(id);
+        model.setName("user-" + id);
+        model.setEmail("user-" + id + "@vtohru.cn");
+        model.setAge(31);
+        model.setBalance(1024.5);
+        model.setActive(true);
+        model.setTags(Arrays.asList("alpha", "beta", "gamma"));
+        return model;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
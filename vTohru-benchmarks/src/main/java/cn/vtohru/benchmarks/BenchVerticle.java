@@ -0,0 +1,13 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.annotation.VerticleContaner;
+import cn.vtohru.message.annotation.MessageAutoConfigure;
+import cn.vtohru.web.annotation.WebAutoConfigure;
+import io.vertx.core.AbstractVerticle;
+
+@VerticleContaner(usePackage = "cn.vtohru.benchmarks")
+@WebAutoConfigure(port = ApplicationState.PORT)
+@MessageAutoConfigure
+public class BenchVerticle extends AbstractVerticle {
+
+}
@@ -0,0 +1,47 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.orm.entity.EntityManager;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EntityManager#convertEntity} on a row shaped like the ones the MySQL and Mongo sessions hand over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityConvertBenchmark {
+    private final EntityManager entityManager = new EntityManager();
+    private JsonObject row;
+    private JsonObject sparseRow;
+
+    @Setup
+    public void setup() {
+        row = new JsonObject()
+                .put("id", 42L)
+                .put("name", "vtohru")
+                .put("email", "bench@vtohru.cn")
+                .put("age", 31)
+                .put("balance", 1024.5)
+                .put("active", true)
+                .put("created_at", "2021-10-06T16:30:00")
+                .put("remark", "benchmark row");
+        sparseRow = new JsonObject().put("id", 42).put("name", "vtohru");
+        entityManager.getEntity(BenchEntity.class);
+    }
+
+    @Benchmark
+    public BenchEntity fullRow() {
+        return entityManager.convertEntity(row, BenchEntity.class);
+    }
+
+    @Benchmark
+    public BenchEntity sparseRow() {
+        return entityManager.convertEntity(sparseRow, BenchEntity.class);
+    }
+}
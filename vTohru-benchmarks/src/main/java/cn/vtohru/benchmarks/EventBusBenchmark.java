@@ -0,0 +1,100 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.message.EventBusMessageHandler;
+import cn.vtohru.message.MessageInterceptorChain;
+import cn.vtohru.message.annotation.MessageType;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code EventBusMessageHandler.handle} called directly with an in-memory message: interceptors, argument extraction,
+ * the {@link BenchListener} invocation and the reply. The event bus transport and codecs are left out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBusBenchmark {
+    private static final String ADDRESS = BenchListener.ECHO + ".direct";
+
+    private EventBusMessageHandler<BenchListener> handler;
+    private BenchMessage message;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup(ApplicationState state) throws Exception {
+        Promise<Void> registered = Promise.promise();
+        state.verticleContext.runOnContext(v -> {
+            BeanDefinition<BenchListener> definition = state.context.getBeanDefinition(BenchListener.class);
+            ExecutableMethod<BenchListener, Object> echo = (ExecutableMethod<BenchListener, Object>) definition.getExecutableMethods().stream()
+                    .filter(m -> m.getMethodName().equals("echo")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("no listener method echo"));
+            handler = new EventBusMessageHandler<>(state.context, definition, echo, MessageType.Type.REQUEST);
+            handler.register(state.vertx.eventBus(), ADDRESS, MessageInterceptorChain.create(state.context)).completionHandler(registered);
+        });
+        ApplicationState.await(registered.future());
+        message = new BenchMessage(new JsonObject().put("name", "vtohru").put("count", 3));
+    }
+
+    @Benchmark
+    public Object request() {
+        handler.handle(message);
+        return message.reply;
+    }
+
+    private static final class BenchMessage implements Message<JsonObject> {
+        private final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+        private final JsonObject body;
+        private Object reply;
+
+        BenchMessage(JsonObject body) {
+            this.body = body;
+        }
+
+        @Override
+        public String address() {
+            return ADDRESS;
+        }
+
+        @Override
+        public MultiMap headers() {
+            return headers;
+        }
+
+        @Override
+        public JsonObject body() {
+            return body;
+        }
+
+        @Override
+        public String replyAddress() {
+            return null;
+        }
+
+        @Override
+        public boolean isSend() {
+            return true;
+        }
+
+        @Override
+        public void reply(Object message, DeliveryOptions options) {
+            reply = message;
+        }
+
+        @Override
+        public <R> Future<Message<R>> replyAndRequest(Object message, DeliveryOptions options) {
+            return Future.failedFuture("not supported");
+        }
+    }
+}
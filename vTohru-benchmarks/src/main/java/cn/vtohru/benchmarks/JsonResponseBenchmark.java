@@ -0,0 +1,76 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.web.JsonResponseHandler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonResponseHandler#successHandler} in isolation: the envelope and the Jackson encoding of the result. The
+ * routing context is a proxy whose response keeps the last written buffer, so no socket is involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResponseBenchmark {
+    private final JsonResponseHandler handler = new JsonResponseHandler();
+    private Buffer written;
+    private RoutingContext routingContext;
+    private BenchModel model;
+    private List<BenchModel> page;
+    private JsonObject json;
+
+    @Setup
+    public void setup() {
+        HttpServerResponse response = (HttpServerResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{HttpServerResponse.class}, (proxy, method, args) -> {
+            if ("end".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof Buffer) {
+                written = (Buffer) args[0];
+                return null;
+            }
+            return method.getReturnType().isInstance(proxy) ? proxy : null;
+        });
+        routingContext = (RoutingContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{RoutingContext.class},
+                (proxy, method, args) -> "response".equals(method.getName()) ? response : null);
+        model = BenchModel.sample(42L);
+        page = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            page.add(BenchModel.sample(i));
+        }
+        json = JsonObject.mapFrom(model).put("children", new JsonArray().add(JsonObject.mapFrom(model)));
+    }
+
+    @Benchmark
+    public Buffer string() {
+        handler.successHandler(routingContext, "ok");
+        return written;
+    }
+
+    @Benchmark
+    public Buffer pojo() {
+        handler.successHandler(routingContext, model);
+        return written;
+    }
+
+    @Benchmark
+    public Buffer pojoList() {
+        handler.successHandler(routingContext, page);
+        return written;
+    }
+
+    @Benchmark
+    public Buffer jsonObject() {
+        handler.successHandler(routingContext, json);
+        return written;
+    }
+}
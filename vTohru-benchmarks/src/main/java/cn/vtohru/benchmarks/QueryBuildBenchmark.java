@@ -0,0 +1,52 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.mongo.impl.MongoQuery;
+import cn.vtohru.mysql.impl.MysqlQuery;
+import cn.vtohru.orm.Query;
+import cn.vtohru.orm.entity.EntityManager;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the same query against both stores and renders it: {@link MysqlQuery#getSql} and {@link MongoQuery#getMatch}.
+ * No data proxy is attached, nothing is executed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuildBenchmark {
+    private static final String[] COLUMNS = {"id", "name", "email", "age", "balance", "active", "created_at", "remark"};
+    private final EntityManager entityManager = new EntityManager();
+
+    @Setup
+    public void setup() {
+        entityManager.getEntity(BenchEntity.class);
+    }
+
+    @Benchmark
+    public String mysqlSql() {
+        MysqlQuery<BenchEntity> query = new MysqlQuery<>(null, entityManager);
+        conditions(query.from(BenchEntity.class).select(COLUMNS));
+        return query.getSql();
+    }
+
+    @Benchmark
+    public JsonObject mongoMatch() {
+        MongoQuery<BenchEntity> query = new MongoQuery<>(null, entityManager);
+        conditions(query.from(BenchEntity.class));
+        return query.getMatch();
+    }
+
+    private static void conditions(Query<BenchEntity> query) {
+        query.eq("name", "vtohru")
+                .ge("age", 18)
+                .lt("balance", 5000.0)
+                .ne("active", false)
+                .like("email", "%@vtohru.cn");
+    }
+}
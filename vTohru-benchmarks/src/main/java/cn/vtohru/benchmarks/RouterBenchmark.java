@@ -0,0 +1,146 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.web.VerticleRouterHandler;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The route handler {@code VerticleRouterHandler} builds for each {@link BenchController} method, called directly:
+ * interceptors, {@code @QueryParam}/{@code @PathParam}/{@code @BeanParam} binding, the invocation and the JSON
+ * envelope. Route matching and the socket are left out; the routing context is a proxy whose response keeps the last
+ * written buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark {
+    private static final String ECHO_BODY = new JsonObject().put("name", "vtohru").put("count", 3).encode();
+
+    private Buffer written;
+    private Handler<RoutingContext> plain;
+    private Handler<RoutingContext> query;
+    private Handler<RoutingContext> user;
+    private Handler<RoutingContext> echo;
+    private RoutingContext plainContext;
+    private RoutingContext queryContext;
+    private RoutingContext userContext;
+    private RoutingContext echoContext;
+
+    @Setup
+    public void setup(ApplicationState state) throws Exception {
+        Promise<Void> resolved = Promise.promise();
+        state.verticleContext.runOnContext(v -> {
+            try {
+                VerticleRouterHandler routerHandler = state.context.getBean(VerticleRouterHandler.class);
+                BeanDefinition<BenchController> definition = state.context.getBeanDefinition(BenchController.class);
+                BenchController controller = state.context.getBean(BenchController.class);
+                plain = handler(routerHandler, controller, definition, "plain", "GET", "/bench/plain");
+                query = handler(routerHandler, controller, definition, "query", "GET", "/bench/query");
+                user = handler(routerHandler, controller, definition, "user", "GET", "/bench/users/:id");
+                echo = handler(routerHandler, controller, definition, "echo", "POST", "/bench/echo");
+                resolved.complete();
+            } catch (Exception e) {
+                resolved.fail(e);
+            }
+        });
+        ApplicationState.await(resolved.future());
+        plainContext = routingContext(MultiMap.caseInsensitiveMultiMap(), null);
+        queryContext = routingContext(MultiMap.caseInsensitiveMultiMap().add("name", "vtohru").add("age", "31").add("score", "1024"), null);
+        userContext = routingContext(MultiMap.caseInsensitiveMultiMap().add("id", "42"), null);
+        echoContext = routingContext(MultiMap.caseInsensitiveMultiMap(), ECHO_BODY);
+    }
+
+    @Benchmark
+    public Buffer plain() {
+        plain.handle(plainContext);
+        return written;
+    }
+
+    @Benchmark
+    public Buffer queryParams() {
+        query.handle(queryContext);
+        return written;
+    }
+
+    @Benchmark
+    public Buffer pathParam() {
+        user.handle(userContext);
+        return written;
+    }
+
+    @Benchmark
+    public Buffer jsonBody() {
+        echo.handle(echoContext);
+        return written;
+    }
+
+    /**
+     * The handler {@code buildRouter} mounts for the method, obtained the same way but without a router around it.
+     */
+    @SuppressWarnings("unchecked")
+    private static Handler<RoutingContext> handler(VerticleRouterHandler routerHandler, BenchController controller, BeanDefinition<BenchController> definition,
+                                                   String methodName, String httpMethod, String path) throws Exception {
+        ExecutableMethod<BenchController, ?> executable = definition.getExecutableMethods().stream()
+                .filter(m -> m.getMethodName().equals(methodName)).findFirst()
+                .orElseThrow(() -> new IllegalStateException("no route method " + methodName));
+        Method invokeInterceptor = VerticleRouterHandler.class.getDeclaredMethod("invokeInterceptor",
+                Object.class, BeanDefinition.class, ExecutableMethod.class, MediaType.class, String.class, String.class);
+        invokeInterceptor.setAccessible(true);
+        return (Handler<RoutingContext>) invokeInterceptor.invoke(routerHandler, controller, definition, executable, MediaType.APPLICATION_JSON_TYPE, httpMethod, path);
+    }
+
+    private RoutingContext routingContext(MultiMap params, String body) {
+        MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+        HttpServerRequest request = (HttpServerRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{HttpServerRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getParam":
+                    return params.get((String) args[0]);
+                case "headers":
+                    return headers;
+                case "params":
+                    return params;
+                default:
+                    return method.getReturnType().isInstance(proxy) ? proxy : null;
+            }
+        });
+        HttpServerResponse response = (HttpServerResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{HttpServerResponse.class}, (proxy, method, args) -> {
+            if ("end".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof Buffer) {
+                written = (Buffer) args[0];
+                return null;
+            }
+            if ("ended".equals(method.getName())) {
+                return false;
+            }
+            return method.getReturnType().isInstance(proxy) ? proxy : null;
+        });
+        return (RoutingContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{RoutingContext.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "request":
+                    return request;
+                case "response":
+                    return response;
+                case "getBodyAsString":
+                    return body;
+                default:
+                    return null;
+            }
+        });
+    }
+}
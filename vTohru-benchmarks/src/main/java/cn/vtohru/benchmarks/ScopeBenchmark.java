@@ -0,0 +1,34 @@
+package cn.vtohru.benchmarks;
+
+import io.vertx.core.Promise;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a {@code @Verticle} scoped bean through {@code VerticleCustomScope.getOrCreate} on the event loop that owns
+ * the verticle, which is the path every injection inside a verticle takes. Lookups are batched per hop onto the event
+ * loop so the hop itself does not dominate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScopeBenchmark {
+    private static final int BATCH = 1000;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void getScopedBean(ApplicationState state, Blackhole blackhole) throws Exception {
+        Promise<Void> done = Promise.promise();
+        state.verticleContext.runOnContext(v -> {
+            for (int i = 0; i < BATCH; i++) {
+                blackhole.consume(state.context.getBean(ScopedCounter.class));
+            }
+            done.complete();
+        });
+        ApplicationState.await(done.future());
+    }
+}
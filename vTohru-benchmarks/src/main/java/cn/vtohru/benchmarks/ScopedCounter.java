@@ -0,0 +1,12 @@
+package cn.vtohru.benchmarks;
+
+import cn.vtohru.annotation.Verticle;
+
+@Verticle
+public class ScopedCounter {
+    private long count;
+
+    public long increment() {
+        return ++count;
+    }
+}
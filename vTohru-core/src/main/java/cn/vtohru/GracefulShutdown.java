@@ -0,0 +1,146 @@
+package cn.vtohru;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import io.micronaut.context.ApplicationContext;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coordinates the drain phase of a shutdown: the {@link #onDrain(Supplier) drain hooks} stop new work from arriving
+ * (discovery records, event-bus consumers), new HTTP requests and task runs are refused, and the shutdown waits for
+ * the work already in flight, up to {@code vtohru.shutdown.drain-timeout}, before verticles are undeployed.
+ */
+@Singleton
+public class GracefulShutdown {
+    private static final Logger logger = LoggerFactory.getLogger(GracefulShutdown.class);
+    public static final String DRAIN_TIMEOUT = VerticleApplicationContext.VTOHRU + ".shutdown.drain-timeout";
+    public static final String HTTP = "http";
+    public static final String EVENT_BUS = "eventbus";
+    public static final String TASK = "task";
+    private static final long POLL_MILLIS = 50;
+
+    private final VerticleApplicationContext applicationContext;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final List<Supplier<Future<?>>> drainHooks = new CopyOnWriteArrayList<>();
+    private volatile boolean draining;
+
+    public GracefulShutdown(ApplicationContext applicationContext) {
+        this.applicationContext = (VerticleApplicationContext) applicationContext;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public void begin(String kind) {
+        AtomicInteger counter = inFlight.get(kind);
+        if (counter == null) {
+            counter = inFlight.computeIfAbsent(kind, k -> new AtomicInteger());
+        }
+        counter.incrementAndGet();
+    }
+
+    public void end(String kind) {
+        AtomicInteger counter = inFlight.get(kind);
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    public int inFlight() {
+        int total = 0;
+        for (AtomicInteger counter : inFlight.values()) {
+            total += Math.max(0, counter.get());
+        }
+        return total;
+    }
+
+    /**
+     * Registers an action that stops new work from reaching this instance, run when the drain starts.
+     *
+     * @return the registration, to cancel once the work source is gone before any drain, e.g. on undeploy
+     */
+    public Registration onDrain(Supplier<Future<?>> hook) {
+        drainHooks.add(hook);
+        return () -> drainHooks.remove(hook);
+    }
+
+    /**
+     * Runs the drain hooks and blocks until nothing is in flight or the drain timeout elapsed.
+     *
+     * @return whether all in-flight work completed
+     */
+    public boolean drain() {
+        if (draining) {
+            return inFlight() == 0;
+        }
+        draining = true;
+        long timeout = applicationContext.getProperty(DRAIN_TIMEOUT, Long.class).orElse(30000L);
+        if (Context.isOnEventLoopThread()) {
+            logger.warn("shutdown requested from an event loop, skipping the drain wait");
+            runHooks();
+            return inFlight() == 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long start = System.nanoTime();
+        try {
+            runHooks().toCompletionStage().toCompletableFuture().get(timeout, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("drain hooks did not complete: " + e.getMessage());
+        }
+        try {
+            while (inFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (inFlight() > 0) {
+            logger.warn("drain timed out after " + millis + "ms with work still in flight: " + snapshot());
+            return false;
+        }
+        logger.info("drained in " + millis + "ms");
+        return true;
+    }
+
+    private Future<?> runHooks() {
+        List<Future> futures = new ArrayList<>();
+        for (Supplier<Future<?>> hook : drainHooks) {
+            try {
+                futures.add(hook.get());
+            } catch (Exception e) {
+                logger.warn("drain hook failed", e);
+            }
+        }
+        return CompositeFuture.join(futures);
+    }
+
+    int drainHooks() {
+        return drainHooks.size();
+    }
+
+    private Map<String, Integer> snapshot() {
+        Map<String, Integer> snapshot = new LinkedHashMap<>();
+        inFlight.forEach((kind, counter) -> snapshot.put(kind, counter.get()));
+        return snapshot;
+    }
+
+    public interface Registration {
+        void cancel();
+    }
+}
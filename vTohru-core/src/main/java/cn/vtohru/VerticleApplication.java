@@ -1,28 +1,43 @@
 package cn.vtohru;
 
+import cn.vtohru.annotation.VerticleContaner;
+import cn.vtohru.context.ConfigWatcher;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.context.VerticleDescriptor;
+import cn.vtohru.metrics.MetricsRegistry;
 import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.util.StringUtils;
 import io.micronaut.inject.BeanDefinition;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.runtime.EmbeddedApplication;
-import io.micronaut.runtime.exceptions.ApplicationStartupException;
 import io.vertx.core.*;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
-import io.vertx.core.spi.cluster.ClusterManager;
-import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
 
 import javax.inject.Singleton;
 import java.util.Collection;
-import java.util.concurrent.ExecutionException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Singleton
 public class VerticleApplication implements EmbeddedApplication<VerticleApplication> {
     private static final Logger logger = LoggerFactory.getLogger(VerticleApplication.class);
+    public static final String INSTANCES = "instances";
+    public static final String WORKER = "worker";
+    public static final String WORKER_POOL_NAME = "worker-pool-name";
+    public static final String WORKER_POOL_SIZE = "worker-pool-size";
+    public static final String VIRTUAL_THREADS = "virtual-threads";
 
     private final VerticleApplicationContext applicationContext;
     private final ApplicationConfiguration configuration;
+    private VerticleDeployer deployer;
 
     public VerticleApplication(ApplicationContext applicationContext, ApplicationConfiguration configuration) {
         this.applicationContext = (VerticleApplicationContext) applicationContext;
@@ -44,6 +59,10 @@ public class VerticleApplication implements EmbeddedApplication<VerticleApplicat
         return applicationContext.isRunning();
     }
 
+    public Map<String, Long> getStartupTimings() {
+        return deployer == null ? Collections.emptyMap() : deployer.timings();
+    }
+
     @Override
     public boolean isServer() {
         return true;
@@ -51,61 +70,107 @@ public class VerticleApplication implements EmbeddedApplication<VerticleApplicat
 
     @Override
     public VerticleApplication start() {
-        Boolean clustered = applicationContext.get(VerticleApplicationContext.VTOHRU + ".clustered", Boolean.class).orElse(false);
-        Vertx vertx;
-        if (!clustered) {
-            vertx = Vertx.vertx();
-        } else {
-            try {
-                ClusterManager mgr = new HazelcastClusterManager();
-                VertxOptions options = new VertxOptions();
-                options.setClusterManager(mgr);
-                vertx =  Vertx.clusteredVertx(options).toCompletionStage().toCompletableFuture().get();
-            } catch (InterruptedException | ExecutionException e) {
-                logger.error(e);
-                throw new ApplicationStartupException("init vertx fail:" + e.getMessage(), e);
-            }
-        }
+        Vertx vertx = new VertxBootstrap(applicationContext).create();
         applicationContext.setVertx(vertx);
         applicationContext.registerSingleton(Vertx.class, vertx);
         Collection<AbstractVerticle> abstractVerticles = applicationContext.getBeansOfType(AbstractVerticle.class);
-        Future<String> publishFuture = null;
+        VerticleDeployer deployer = new VerticleDeployer();
         for (AbstractVerticle abstractVerticle : abstractVerticles) {
             BeanDefinition<? extends AbstractVerticle> beanDefinition = applicationContext.getBeanDefinition(abstractVerticle.getClass());
+            applicationContext.getDescriptor(beanDefinition);
             JsonObject map = applicationContext.getVConfig(beanDefinition);
-            DeploymentOptions deploymentOptions = new DeploymentOptions();
-            deploymentOptions.setConfig(map);
-            if (publishFuture == null) {
-                publishFuture = applicationContext.getVertx().deployVerticle(abstractVerticle, deploymentOptions);
-            } else {
-                publishFuture = publishFuture.compose(x->{
-                    return applicationContext.getVertx().deployVerticle(abstractVerticle, deploymentOptions);
-                },e->{
-                    return applicationContext.getVertx().deployVerticle(abstractVerticle, deploymentOptions);
-                });
+            String verticleName = applicationContext.getVerticleName(beanDefinition);
+            DeploymentOptions deploymentOptions = deploymentOptions(verticleName, beanDefinition, map);
+            String[] dependsOn = beanDefinition.stringValues(VerticleContaner.class, "dependsOn");
+            deployer.add(verticleName, dependsOn, () -> deploy(abstractVerticle, beanDefinition, deploymentOptions));
+        }
+        this.deployer = deployer;
+        long start = System.nanoTime();
+        deployer.deploy().onComplete(ar -> {
+            MetricsRegistry metricsRegistry = applicationContext.getBean(MetricsRegistry.class);
+            deployer.timings().forEach((name, millis) -> metricsRegistry.gauge("verticle.startup", () -> millis, "verticle", name));
+        }).onFailure(e -> {
+            logger.error("verticle deployment aborted", e);
+        }).onSuccess(x -> {
+            logger.info("all verticle publish success in " + (System.nanoTime() - start) / 1000000 + "ms " + deployer.timings());
+            long hits = 0;
+            long saved = 0;
+            for (VerticleDescriptor descriptor : applicationContext.getDescriptors()) {
+                hits += descriptor.hits();
+                saved += descriptor.savedNanos();
+            }
+            logger.info("verticle index served " + hits + " cached lookups, saving about " + saved / 1000 + "us");
+            applicationContext.getBean(ConfigWatcher.class).start(vertx);
+        });
+        return this;
+    }
+
+    DeploymentOptions deploymentOptions(String verticleName, BeanDefinition<?> beanDefinition, JsonObject config) {
+        AnnotationValue<VerticleContaner> annotation = beanDefinition.getAnnotation(VerticleContaner.class);
+        DeploymentOptions deploymentOptions = new DeploymentOptions();
+        deploymentOptions.setConfig(config);
+        if (annotation == null) {
+            return deploymentOptions;
+        }
+        deploymentOptions.setInstances(config.getInteger(INSTANCES, annotation.intValue("instances").orElse(1)));
+        boolean worker = config.getBoolean(WORKER, annotation.isTrue("worker"));
+        if (config.getBoolean(VIRTUAL_THREADS, annotation.isTrue("virtualThreads"))) {
+            logger.warn(verticleName + " requests virtual threads, which this Vert.x version does not support, deploying as worker");
+            worker = true;
+        }
+        deploymentOptions.setWorker(worker);
+        String workerPoolName = config.getString(WORKER_POOL_NAME, annotation.stringValue("workerPoolName").orElse(""));
+        if (StringUtils.isNotEmpty(workerPoolName)) {
+            deploymentOptions.setWorkerPoolName(workerPoolName);
+        }
+        int workerPoolSize = config.getInteger(WORKER_POOL_SIZE, annotation.intValue("workerPoolSize").orElse(0));
+        if (workerPoolSize > 0) {
+            if (StringUtils.isEmpty(workerPoolName)) {
+                deploymentOptions.setWorkerPoolName(verticleName + "-worker");
             }
+            deploymentOptions.setWorkerPoolSize(workerPoolSize);
         }
-        if (publishFuture != null) {
-            publishFuture.onFailure(e -> {
-                e.printStackTrace();
-                logger.error(e);
-            }).onSuccess(x -> {
-                logger.info("all verticle publish success");
-            });
+        return deploymentOptions;
+    }
+
+    private Future<String> deploy(AbstractVerticle verticle, BeanDefinition<? extends AbstractVerticle> beanDefinition, DeploymentOptions deploymentOptions) {
+        if (deploymentOptions.getInstances() <= 1) {
+            return applicationContext.getVertx().deployVerticle(verticle, deploymentOptions);
         }
-        return this;
+        AtomicBoolean first = new AtomicBoolean(true);
+        Supplier<Verticle> supplier = () -> first.compareAndSet(true, false) ? verticle : applicationContext.createBean(beanDefinition.getBeanType());
+        return applicationContext.getVertx().deployVerticle(supplier, deploymentOptions);
     }
 
+    /**
+     * Drains in-flight work first, then undeploys every verticle and waits for them, so pools close only once nothing
+     * uses them any more.
+     */
     @Override
     public VerticleApplication stop() {
         VerticleApplicationContext applicationContext = getApplicationContext();
         if (applicationContext != null && applicationContext.isRunning()) {
-            for (String deploymentID : applicationContext.getVertx().deploymentIDs()) {
+            applicationContext.getBean(ConfigWatcher.class).stop();
+            GracefulShutdown gracefulShutdown = applicationContext.getBean(GracefulShutdown.class);
+            gracefulShutdown.drain();
+            Set<String> deploymentIDs = applicationContext.getVertx().deploymentIDs();
+            CountDownLatch undeployed = new CountDownLatch(deploymentIDs.size());
+            for (String deploymentID : deploymentIDs) {
                 applicationContext.getVertx().undeploy(deploymentID).onSuccess(x -> {
                     logger.info("undeploy Verticle : " + deploymentID + " success");
                 }).onFailure(e -> {
                     logger.error("undeploy Verticle : " + deploymentID + " fail", e);
-                });
+                }).onComplete(x -> undeployed.countDown());
+            }
+            if (!Context.isOnEventLoopThread()) {
+                try {
+                    long timeout = applicationContext.getProperty(GracefulShutdown.DRAIN_TIMEOUT, Long.class).orElse(30000L);
+                    if (!undeployed.await(timeout, TimeUnit.MILLISECONDS)) {
+                        logger.warn(undeployed.getCount() + " verticles still undeploying, stopping anyway");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
             }
             applicationContext.stop();
         }
@@ -0,0 +1,176 @@
+package cn.vtohru;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Deploys verticles along their {@code dependsOn} graph: a verticle starts as soon as everything it depends on
+ * is deployed, independent verticles are deployed in parallel and the first failure stops further deployments.
+ */
+public class VerticleDeployer {
+    private static final Logger logger = LoggerFactory.getLogger(VerticleDeployer.class);
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+    private final Promise<Void> promise = Promise.promise();
+    private int remaining;
+    private boolean failed;
+
+    public void add(String name, String[] dependsOn, Supplier<Future<String>> deployment) {
+        if (nodes.containsKey(name.toLowerCase())) {
+            throw new IllegalStateException("duplicate verticle name: " + name);
+        }
+        nodes.put(name.toLowerCase(), new Node(name, dependsOn, deployment));
+    }
+
+    public synchronized Map<String, Long> timings() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(timings));
+    }
+
+    public Future<Void> deploy() {
+        List<Node> roots = new ArrayList<>();
+        synchronized (this) {
+            for (Node node : nodes.values()) {
+                for (String dependency : node.dependsOn) {
+                    Node parent = nodes.get(dependency.toLowerCase());
+                    if (parent == null) {
+                        throw new IllegalStateException("verticle " + node.name + " depends on unknown verticle " + dependency);
+                    }
+                    parent.dependents.add(node);
+                    node.pending++;
+                }
+            }
+            checkCycles();
+            remaining = nodes.size();
+            if (remaining == 0) {
+                promise.complete();
+            }
+            for (Node node : nodes.values()) {
+                if (node.pending == 0) {
+                    roots.add(node);
+                }
+            }
+        }
+        for (Node root : roots) {
+            start(root);
+        }
+        return promise.future();
+    }
+
+    private void checkCycles() {
+        Map<Node, Integer> pending = new LinkedHashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            pending.put(node, node.pending);
+            if (node.pending == 0) {
+                ready.add(node);
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            visited++;
+            for (Node dependent : node.dependents) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited != nodes.size()) {
+            List<String> cycle = new ArrayList<>();
+            pending.forEach((node, count) -> {
+                if (count > 0) {
+                    cycle.add(node.name);
+                }
+            });
+            throw new IllegalStateException("verticle dependency cycle between " + cycle);
+        }
+    }
+
+    private void start(Node node) {
+        long start = System.nanoTime();
+        Future<String> future;
+        try {
+            future = node.deployment.get();
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onComplete(ar -> {
+            long millis = (System.nanoTime() - start) / 1000000;
+            if (ar.succeeded()) {
+                deployed(node, millis);
+            } else {
+                failed(node, millis, ar.cause());
+            }
+        });
+    }
+
+    private void deployed(Node node, long millis) {
+        List<Node> next = new ArrayList<>();
+        synchronized (this) {
+            timings.put(node.name, millis);
+            node.deployed = true;
+            logger.info("deploy verticle " + node.name + " success in " + millis + "ms");
+            if (failed) {
+                return;
+            }
+            for (Node dependent : node.dependents) {
+                if (--dependent.pending == 0) {
+                    next.add(dependent);
+                }
+            }
+            if (--remaining == 0) {
+                promise.complete();
+            }
+        }
+        for (Node dependent : next) {
+            start(dependent);
+        }
+    }
+
+    private synchronized void failed(Node node, long millis, Throwable cause) {
+        timings.put(node.name, millis);
+        logger.error("deploy verticle " + node.name + " fail in " + millis + "ms", cause);
+        if (failed) {
+            return;
+        }
+        failed = true;
+        List<String> deployed = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (Node other : nodes.values()) {
+            if (other.deployed) {
+                deployed.add(other.name);
+            } else if (other != node && other.pending > 0) {
+                skipped.add(other.name);
+            }
+        }
+        promise.fail(new IllegalStateException("deploy verticle " + node.name + " fail: " + cause.getMessage()
+                + ", deployed " + deployed + ", skipped " + skipped, cause));
+    }
+
+    private static final class Node {
+        private final String name;
+        private final String[] dependsOn;
+        private final Supplier<Future<String>> deployment;
+        private final List<Node> dependents = new ArrayList<>();
+        private int pending;
+        private boolean deployed;
+
+        Node(String name, String[] dependsOn, Supplier<Future<String>> deployment) {
+            this.name = name;
+            this.dependsOn = dependsOn == null ? new String[0] : dependsOn;
+            this.deployment = deployment;
+        }
+    }
+}
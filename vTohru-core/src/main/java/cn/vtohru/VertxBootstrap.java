@@ -0,0 +1,145 @@
+package cn.vtohru;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.FileSystemXmlConfig;
+import com.hazelcast.config.FileSystemYamlConfig;
+import com.hazelcast.config.JoinConfig;
+import io.micronaut.runtime.exceptions.ApplicationStartupException;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.spi.cluster.hazelcast.ConfigUtil;
+import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
+
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Creates the Vertx instance from {@code vtohru.vertx.*}. Keys are the {@link VertxOptions} json names, kebab-case or
+ * camelCase, e.g. {@code event-loop-pool-size}, {@code prefer-native-transport}, {@code blocked-thread-check-interval},
+ * {@code file-system-options.file-caching-enabled} or {@code metrics-options}. {@code vtohru.vertx.hazelcast} tunes
+ * the cluster manager.
+ */
+public class VertxBootstrap {
+    private static final Logger logger = LoggerFactory.getLogger(VertxBootstrap.class);
+    public static final String VERTX_CONFIG = VerticleApplicationContext.VTOHRU + ".vertx";
+    public static final String CLUSTERED = VerticleApplicationContext.VTOHRU + ".clustered";
+    private static final String HAZELCAST = "hazelcast";
+    private static final String TRANSPORT = "transport";
+
+    private final VerticleApplicationContext applicationContext;
+
+    public VertxBootstrap(VerticleApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public Vertx create() {
+        JsonObject config = camelCase(applicationContext.getProperty(VERTX_CONFIG, JsonObject.class).orElse(new JsonObject()));
+        JsonObject hazelcast = (JsonObject) config.remove(HAZELCAST);
+        String transport = (String) config.remove(TRANSPORT);
+        VertxOptions options = new VertxOptions(config);
+        if (transport != null) {
+            if ("io_uring".equalsIgnoreCase(transport) || "io-uring".equalsIgnoreCase(transport)) {
+                logger.warn("io_uring transport is not supported by this Vert.x version, falling back to the native transport");
+            }
+            options.setPreferNativeTransport(!"nio".equalsIgnoreCase(transport));
+        }
+        boolean clustered = applicationContext.get(CLUSTERED, Boolean.class).orElse(false);
+        Vertx vertx;
+        if (!clustered) {
+            vertx = Vertx.vertx(options);
+        } else {
+            options.setClusterManager(new HazelcastClusterManager(hazelcastConfig(hazelcast)));
+            try {
+                vertx = Vertx.clusteredVertx(options).toCompletionStage().toCompletableFuture().get();
+            } catch (InterruptedException | ExecutionException e) {
+                logger.error(e);
+                throw new ApplicationStartupException("init vertx fail:" + e.getMessage(), e);
+            }
+        }
+        if (options.getPreferNativeTransport() && !vertx.isNativeTransportEnabled()) {
+            logger.warn("native transport requested but not available, add netty-transport-native-epoll (or kqueue) to the classpath");
+        }
+        logger.info("vertx started with " + options.getEventLoopPoolSize() + " event loops, " + options.getWorkerPoolSize()
+                + " workers, native transport " + vertx.isNativeTransportEnabled());
+        return vertx;
+    }
+
+    private Config hazelcastConfig(JsonObject hazelcast) {
+        if (hazelcast == null) {
+            return ConfigUtil.loadConfig();
+        }
+        Config config;
+        String configFile = hazelcast.getString("configFile");
+        if (configFile == null) {
+            config = ConfigUtil.loadConfig();
+        } else {
+            try {
+                config = configFile.endsWith(".yaml") || configFile.endsWith(".yml") ? new FileSystemYamlConfig(configFile) : new FileSystemXmlConfig(configFile);
+            } catch (FileNotFoundException e) {
+                throw new ApplicationStartupException("hazelcast config not found: " + configFile, e);
+            }
+        }
+        String clusterName = hazelcast.getString("clusterName");
+        if (clusterName != null) {
+            config.setClusterName(clusterName);
+        }
+        Integer port = hazelcast.getInteger("port");
+        if (port != null) {
+            config.getNetworkConfig().setPort(port).setPortAutoIncrement(hazelcast.getBoolean("portAutoIncrement", true));
+        }
+        JsonArray members = hazelcast.getJsonArray("members");
+        if (members != null && !members.isEmpty()) {
+            JoinConfig join = config.getNetworkConfig().getJoin();
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true);
+            for (Object member : members) {
+                join.getTcpIpConfig().addMember(String.valueOf(member));
+            }
+        }
+        JsonObject properties = hazelcast.getJsonObject("properties");
+        if (properties != null) {
+            for (Map.Entry<String, Object> property : properties) {
+                config.setProperty(property.getKey(), String.valueOf(property.getValue()));
+            }
+        }
+        return config;
+    }
+
+    static JsonObject camelCase(JsonObject json) {
+        JsonObject result = new JsonObject();
+        for (Map.Entry<String, Object> entry : json) {
+            Object value = entry.getValue();
+            if (value instanceof JsonObject) {
+                value = camelCase((JsonObject) value);
+            } else if (value instanceof Map) {
+                value = camelCase(new JsonObject((Map<String, Object>) value));
+            }
+            result.put(camelCase(entry.getKey()), value);
+        }
+        return result;
+    }
+
+    private static String camelCase(String key) {
+        if (key.indexOf('-') < 0) {
+            return key;
+        }
+        StringBuilder builder = new StringBuilder(key.length());
+        boolean upper = false;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '-') {
+                upper = true;
+            } else {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -21,4 +21,22 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface VerticleContaner {
     String value() default "";
     String[] usePackage() default {};
+
+    /**
+     * Names of the verticles that must be deployed before this one.
+     */
+    String[] dependsOn() default {};
+
+    int instances() default 1;
+
+    boolean worker() default false;
+
+    String workerPoolName() default "";
+
+    int workerPoolSize() default 0;
+
+    /**
+     * Runs the verticle on virtual threads where the Vert.x runtime supports it, as a worker otherwise.
+     */
+    boolean virtualThreads() default false;
 }
@@ -3,23 +3,31 @@ package cn.vtohru.aop;
 import cn.vtohru.VerticleEvent;
 import cn.vtohru.annotation.VerticleContaner;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.context.VerticleDescriptor;
 import io.micronaut.aop.InterceptorBean;
 import io.micronaut.aop.MethodInterceptor;
 import io.micronaut.aop.MethodInvocationContext;
 import io.micronaut.context.ApplicationContext;
 import io.micronaut.inject.BeanDefinition;
+import io.micronaut.core.type.MutableArgumentValue;
 import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 
 import javax.inject.Singleton;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @Singleton
 @InterceptorBean(VerticleContaner.class)
 public class VerticleContainerInterceptor implements MethodInterceptor<Object, Object> {
     private static final Logger logger = LoggerFactory.getLogger(VerticleContainerInterceptor.class);
+    private static final String EVENTS_INDEX = "verticle.events";
     private VerticleApplicationContext applicationContext;
     public VerticleContainerInterceptor(ApplicationContext context) {
         this.applicationContext = (VerticleApplicationContext) context;
@@ -33,22 +41,58 @@ public class VerticleContainerInterceptor implements MethodInterceptor<Object, O
         if (verticle == null) {
             return null;
         }
-        Object result = context.proceed();
         BeanDefinition<?> beanDefinition = applicationContext.getBeanDefinition(verticle.getClass());
+        if ("start".equalsIgnoreCase(targetMethod.getName()) && targetMethod.getParameterCount() == 1) {
+            return start(context, beanDefinition);
+        }
+        Object result = context.proceed();
         if ("init".equalsIgnoreCase(targetMethod.getName())) {
             applicationContext.saveVerticleInfo(beanDefinition);
-        } else if ("start".equalsIgnoreCase(targetMethod.getName()) && targetMethod.getParameterCount() == 1) {
-            Collection<VerticleEvent> verticleEvents = applicationContext.getBeansOfType(VerticleEvent.class);
-            for (VerticleEvent verticleEvent : verticleEvents) {
-                verticleEvent.start(beanDefinition);
-            }
+            applicationContext.getDescriptor(beanDefinition).attach();
         } else if ("stop".equalsIgnoreCase(targetMethod.getName()) && targetMethod.getParameterCount() == 1) {
-            Collection<VerticleEvent> verticleEvents = applicationContext.getBeansOfType(VerticleEvent.class);
-            for (VerticleEvent verticleEvent : verticleEvents) {
+            for (VerticleEvent verticleEvent : verticleEvents()) {
                 verticleEvent.stop(beanDefinition);
             }
+            applicationContext.getDescriptor(beanDefinition).detach();
         }
         return result;
     }
 
+    private Collection<VerticleEvent> verticleEvents() {
+        VerticleDescriptor descriptor = applicationContext.getDescriptor();
+        if (descriptor == null) {
+            return applicationContext.getBeansOfType(VerticleEvent.class);
+        }
+        return descriptor.index(EVENTS_INDEX, () -> new ArrayList<>(applicationContext.getBeansOfType(VerticleEvent.class)));
+    }
+
+    /**
+     * Completes the deployment only once the verticle and every {@link VerticleEvent} have started,
+     * so dependent verticles see a ready container.
+     */
+    @SuppressWarnings("unchecked")
+    private Object start(MethodInvocationContext<Object, Object> context, BeanDefinition<?> beanDefinition) {
+        MutableArgumentValue<Object> argument = (MutableArgumentValue<Object>) context.getParameters().values().iterator().next();
+        Promise<Void> startPromise = (Promise<Void>) argument.getValue();
+        Promise<Void> verticleStarted = Promise.promise();
+        argument.setValue(verticleStarted);
+        Object result;
+        try {
+            result = context.proceed();
+        } catch (RuntimeException e) {
+            startPromise.tryFail(e);
+            throw e;
+        }
+        verticleStarted.future().compose(v -> {
+            List<Future> futures = new ArrayList<>();
+            for (VerticleEvent verticleEvent : verticleEvents()) {
+                Future<Void> future = verticleEvent.start(beanDefinition);
+                if (future != null) {
+                    futures.add(future);
+                }
+            }
+            return CompositeFuture.all(futures).<Void>mapEmpty();
+        }).onComplete(startPromise);
+        return result;
+    }
 }
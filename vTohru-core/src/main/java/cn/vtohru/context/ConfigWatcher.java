@@ -0,0 +1,163 @@
+package cn.vtohru.context;
+
+import cn.vtohru.context.env.VDefaultEnvironment;
+import cn.vtohru.event.ConfigRefreshEvent;
+import cn.vtohru.metrics.MetricsRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Polls the {@code file:} config locations and, when a file changed, refreshes the environment and publishes a
+ * {@link ConfigRefreshEvent}: once to the bean context and once per {@link #onRefresh(Handler) registration}, on the
+ * registering context and scoped to its verticle.
+ */
+@Singleton
+public class ConfigWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+    public static final String ENABLED = VerticleApplicationContext.VTOHRU + ".config.watch.enabled";
+    public static final String INTERVAL = VerticleApplicationContext.VTOHRU + ".config.watch.interval";
+    private static final String FILE_PREFIX = "file:";
+
+    private final VerticleApplicationContext applicationContext;
+    private final MetricsRegistry metricsRegistry;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private List<File> locations = Collections.emptyList();
+    private volatile String fingerprint;
+    private Vertx vertx;
+    private long timerId = -1;
+
+    public ConfigWatcher(ApplicationContext applicationContext, MetricsRegistry metricsRegistry) {
+        this.applicationContext = (VerticleApplicationContext) applicationContext;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    public synchronized void start(Vertx vertx) {
+        if (timerId != -1 || !applicationContext.getProperty(ENABLED, Boolean.class).orElse(true)) {
+            return;
+        }
+        Environment environment = applicationContext.getEnvironment();
+        if (!(environment instanceof VDefaultEnvironment)) {
+            return;
+        }
+        List<File> locations = new ArrayList<>();
+        for (String location : ((VDefaultEnvironment) environment).getConfigLocations()) {
+            if (location.startsWith(FILE_PREFIX)) {
+                locations.add(new File(location.substring(FILE_PREFIX.length())));
+            }
+        }
+        if (locations.isEmpty()) {
+            return;
+        }
+        this.vertx = vertx;
+        this.locations = locations;
+        this.fingerprint = fingerprint();
+        long interval = applicationContext.getProperty(INTERVAL, Long.class).orElse(5000L);
+        timerId = vertx.setPeriodic(interval, id -> check());
+        logger.info("watching config locations " + locations + " every " + interval + "ms");
+    }
+
+    public synchronized void stop() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * Calls the handler on the current context whenever the configuration changed, until the registration is cancelled.
+     */
+    public Registration onRefresh(Handler<ConfigRefreshEvent> handler) {
+        Registration registration = new Registration(applicationContext.getVertx().getOrCreateContext(), applicationContext.getScopeName(), handler);
+        registrations.add(registration);
+        return registration;
+    }
+
+    /**
+     * Refreshes the environment now, whether or not a file changed, and completes with the changed keys.
+     */
+    public Future<Map<String, Object>> refresh() {
+        return applicationContext.getVertx().<Map<String, Object>>executeBlocking(promise -> {
+            fingerprint = fingerprint();
+            promise.complete(applicationContext.getEnvironment().refreshAndDiff());
+        }, false).onSuccess(this::publish);
+    }
+
+    private void check() {
+        vertx.<Map<String, Object>>executeBlocking(promise -> {
+            String current = fingerprint();
+            if (current.equals(fingerprint)) {
+                promise.complete(Collections.emptyMap());
+            } else {
+                fingerprint = current;
+                promise.complete(applicationContext.getEnvironment().refreshAndDiff());
+            }
+        }, false).onSuccess(this::publish).onFailure(e -> logger.error("config refresh failed", e));
+    }
+
+    private void publish(Map<String, Object> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        logger.info("config changed: " + changes.keySet());
+        metricsRegistry.counter("config.refresh").increment();
+        applicationContext.publishEvent(new ConfigRefreshEvent(changes, null));
+        for (Registration registration : registrations) {
+            ConfigRefreshEvent event = new ConfigRefreshEvent(changes, registration.verticle);
+            registration.context.runOnContext(v -> {
+                try {
+                    registration.handler.handle(event);
+                } catch (Exception e) {
+                    logger.error("config refresh handler failed", e);
+                }
+            });
+        }
+    }
+
+    private String fingerprint() {
+        StringBuilder builder = new StringBuilder();
+        for (File location : locations) {
+            File[] files = location.isDirectory() ? location.listFiles(File::isFile) : new File[]{location};
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.exists()) {
+                    builder.append(file.getPath()).append(':').append(file.lastModified()).append(':').append(file.length()).append(';');
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    public final class Registration {
+        private final Context context;
+        private final String verticle;
+        private final Handler<ConfigRefreshEvent> handler;
+
+        private Registration(Context context, String verticle, Handler<ConfigRefreshEvent> handler) {
+            this.context = context;
+            this.verticle = verticle;
+            this.handler = handler;
+        }
+
+        public void cancel() {
+            registrations.remove(this);
+        }
+    }
+}
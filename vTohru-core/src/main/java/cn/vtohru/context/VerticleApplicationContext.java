@@ -1,6 +1,5 @@
 package cn.vtohru.context;
 
-import cn.vtohru.annotation.GlobalScope;
 import cn.vtohru.annotation.VerticleContaner;
 import cn.vtohru.context.env.VBootstrapApplicationContext;
 import cn.vtohru.context.env.VBootstrapEnvironment;
@@ -16,6 +15,7 @@ import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.convert.*;
+import io.micronaut.core.reflect.ClassUtils;
 import io.micronaut.core.type.Argument;
 import io.micronaut.core.util.StringUtils;
 import io.micronaut.inject.BeanDefinition;
@@ -27,15 +27,20 @@ import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class VerticleApplicationContext extends DefaultApplicationContext {
     private Environment environment;
     private static final Logger logger = LoggerFactory.getLogger(VerticleApplicationContext.class);
     public static final String SCOPE_PACKAGE = "VTOHRU_VERTICLE_SCOPE_PACKAGE";
     public static final String SCOPE_VERTICLE_NAME = "VTOHRU_SCOPE_VERTICLE_NAME";
+    public static final String SCOPE_DESCRIPTOR = "VTOHRU_SCOPE_VERTICLE_DESCRIPTOR";
     public static final String VTOHRU = "vtohru";
     public static final String VERTICLE_PREFIX = "vtc-";
+    private static final Object NO_VALUE = new Object();
     private Vertx vertx;
+    private final Map<String, VerticleDescriptor> descriptors = new ConcurrentHashMap<>();
     public VerticleApplicationContext(ApplicationContextConfiguration configuration) {
         super(configuration);
     }
@@ -140,18 +145,46 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
 
 
     public boolean isScoped(BeanDefinition<?> beanDefinition) {
-        if (beanDefinition.hasAnnotation(GlobalScope.class)) {
-            return true;
+        VerticleDescriptor descriptor = getDescriptor();
+        return descriptor == null || descriptor.isScoped(beanDefinition);
+    }
+
+    public VerticleDescriptor getDescriptor() {
+        if (vertx == null) {
+            return null;
         }
-        Context context = vertx.getOrCreateContext();
-        String[] packages = context.get(SCOPE_PACKAGE);
-        if (packages == null || packages.length == 0) {
-            return true;
+        return vertx.getOrCreateContext().get(SCOPE_DESCRIPTOR);
+    }
+
+    public VerticleDescriptor getDescriptor(BeanDefinition<?> verticleDefinition) {
+        String verticleName = getVerticleName(verticleDefinition);
+        VerticleDescriptor descriptor = descriptors.get(verticleName);
+        if (descriptor == null) {
+            descriptor = descriptors.computeIfAbsent(verticleName, k -> VerticleDescriptor.of(k, verticleDefinition));
         }
-        String packageName = beanDefinition.getBeanType().getPackage().getName();
-        return Arrays.stream(packages).anyMatch(packageName::startsWith);
+        return descriptor;
     }
 
+    /**
+     * The candidates in scope of the current verticle, served from its {@link VerticleDescriptor} after the first call.
+     */
+    public <T> List<T> scoped(String key, Collection<T> candidates, Function<T, BeanDefinition<?>> definition) {
+        VerticleDescriptor descriptor = getDescriptor();
+        if (descriptor != null) {
+            return descriptor.scoped(key, candidates, definition);
+        }
+        List<T> scoped = new ArrayList<>();
+        for (T candidate : candidates) {
+            if (isScoped(definition.apply(candidate))) {
+                scoped.add(candidate);
+            }
+        }
+        return scoped;
+    }
+
+    public Collection<VerticleDescriptor> getDescriptors() {
+        return descriptors.values();
+    }
 
     private void savePackage(String[] packages) {
         if (vertx == null) {
@@ -175,11 +208,10 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
     }
 
     public void saveVerticleInfo(BeanDefinition<?> beanDefinition) {
-        AnnotationValue<VerticleContaner> annotation = beanDefinition.getAnnotation(VerticleContaner.class);
-        String[] packages = annotation.get("usePackage", String[].class).orElse(new String[]{});
-        savePackage(packages);
-        String verticleName = getVerticleName(beanDefinition);
-        setVerticleName(verticleName);
+        VerticleDescriptor descriptor = getDescriptor(beanDefinition);
+        savePackage(descriptor.getPackages());
+        setVerticleName(descriptor.getName());
+        vertx.getOrCreateContext().put(SCOPE_DESCRIPTOR, descriptor);
     }
     public String getVerticleName(BeanDefinition<?> beanDefinition) {
         AnnotationValue<VerticleContaner> annotation = beanDefinition.getAnnotation(VerticleContaner.class);
@@ -194,6 +226,10 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
         return verticleName;
     }
 
+    private static String scopeKey(String scopeName, String name) {
+        return name.replace(VTOHRU, VTOHRU + "." + VERTICLE_PREFIX + scopeName.toLowerCase());
+    }
+
     private String getRawClassName(String className) {
         return className.replace("Definition$Intercepted", "").replace("$", "");
     }
@@ -222,6 +258,7 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
         private BootstrapPropertySourceLocator bootstrapPropertySourceLocator;
         private VBootstrapEnvironment bootstrapEnvironment;
         private final boolean bootstrapEnabled;
+        private final Map<String, ScopedProperties> scopedProperties = new ConcurrentHashMap<>();
 
         public VRuntimeConfiguredEnvironment(ApplicationContextConfiguration configuration, boolean bootstrapEnabled) {
             super(configuration);
@@ -307,6 +344,15 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
             }
         }
 
+        @Override
+        protected void resetCaches() {
+            super.resetCaches();
+            if (scopedProperties != null) {
+                scopedProperties.clear();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
         public <T> Optional<T> getProperty(String name, ArgumentConversionContext<T> conversionContext) {
             if (!name.startsWith(VTOHRU)) {
                 return super.getProperty(name, conversionContext);
@@ -315,12 +361,20 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
             if (StringUtils.isEmpty(scopeName)) {
                 return super.getProperty(name, conversionContext);
             }
-
-            String scopeKey = name.replace(VTOHRU, VTOHRU + "." + VERTICLE_PREFIX + scopeName.toLowerCase());
-            if (this.containsProperties(scopeKey)) {
-                return super.getProperty(scopeKey, conversionContext);
+            ScopedProperties scoped = scopedProperties(scopeName);
+            Class<T> type = conversionContext.getArgument().getType();
+            boolean cacheable = ClassUtils.isJavaLangType(type) || type.isEnum();
+            if (cacheable) {
+                Object cached = scoped.value(name, type);
+                if (cached != null) {
+                    return cached == NO_VALUE ? Optional.empty() : Optional.of((T) cached);
+                }
             }
-            return super.getProperty(name, conversionContext);
+            Optional<T> value = super.getProperty(scoped.key(name), conversionContext);
+            if (cacheable) {
+                scoped.values.computeIfAbsent(name, k -> new ConcurrentHashMap<>(4)).put(type, value.isPresent() ? value.get() : NO_VALUE);
+            }
+            return value;
         }
 
         public boolean containsProperty(@Nullable String name) {
@@ -334,14 +388,12 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
             if (StringUtils.isEmpty(scopeName)) {
                 return super.containsProperty(name);
             }
-
-            String scopeKey = name.replace(VTOHRU, VTOHRU + "." + VERTICLE_PREFIX + scopeName.toLowerCase());
-            boolean ret = super.containsProperty(scopeKey);
-            if (ret) {
-                return true;
-            }
-            return super.containsProperty(name);
+            return scopedProperties(scopeName).contains.computeIfAbsent(name, k -> {
+                String scopeKey = scopeKey(scopeName, name);
+                return super.containsProperty(scopeKey) || super.containsProperty(name);
+            });
         }
+
         public boolean containsProperties(@Nullable String name) {
             if (StringUtils.isEmpty(name)) {
                 return false;
@@ -353,13 +405,45 @@ public class VerticleApplicationContext extends DefaultApplicationContext {
             if (StringUtils.isEmpty(scopeName)) {
                 return super.containsProperties(name);
             }
+            return !scopedProperties(scopeName).key(name).equals(name) || super.containsProperties(name);
+        }
 
-            String scopeKey = name.replace(VTOHRU, VTOHRU + "." + VERTICLE_PREFIX + scopeName.toLowerCase());
-            boolean ret = super.containsProperties(scopeKey);
-            if (ret) {
-                return true;
+        private ScopedProperties scopedProperties(String scopeName) {
+            ScopedProperties scoped = scopedProperties.get(scopeName);
+            if (scoped == null) {
+                scoped = scopedProperties.computeIfAbsent(scopeName, ScopedProperties::new);
+            }
+            return scoped;
+        }
+
+        /**
+         * Resolved {@code vtohru.*} lookups of one verticle scope: the key each name maps to and the converted
+         * values of immutable types, kept until the property sources change.
+         */
+        private final class ScopedProperties {
+            private final String scopeName;
+            private final Map<String, String> keys = new ConcurrentHashMap<>();
+            private final Map<String, Boolean> contains = new ConcurrentHashMap<>();
+            private final Map<String, Map<Class<?>, Object>> values = new ConcurrentHashMap<>();
+
+            ScopedProperties(String scopeName) {
+                this.scopeName = scopeName;
+            }
+
+            String key(String name) {
+                String key = keys.get(name);
+                if (key == null) {
+                    String scopeKey = scopeKey(scopeName, name);
+                    key = VRuntimeConfiguredEnvironment.super.containsProperties(scopeKey) ? scopeKey : name;
+                    keys.put(name, key);
+                }
+                return key;
+            }
+
+            Object value(String name, Class<?> type) {
+                Map<Class<?>, Object> byType = values.get(name);
+                return byType == null ? null : byType.get(type);
             }
-            return super.containsProperties(name);
         }
     }
 }
@@ -0,0 +1,158 @@
+package cn.vtohru.context;
+
+import cn.vtohru.annotation.GlobalScope;
+import cn.vtohru.annotation.VerticleContaner;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.inject.BeanDefinition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Everything a verticle resolves from the bean context while it starts: its name, its {@code usePackage}
+ * roots and, per builder, the bean definitions that are in its scope. Built once per verticle and shared
+ * by all of its instances and redeployments.
+ */
+public class VerticleDescriptor {
+    private final String name;
+    private final String[] packages;
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final Map<BeanDefinition<?>, Boolean> membership = new ConcurrentHashMap<>();
+    private final AtomicInteger instances = new AtomicInteger();
+
+    public VerticleDescriptor(String name, String[] packages) {
+        this.name = name;
+        this.packages = packages;
+    }
+
+    public static VerticleDescriptor of(String name, BeanDefinition<?> verticleDefinition) {
+        AnnotationValue<VerticleContaner> annotation = verticleDefinition.getAnnotation(VerticleContaner.class);
+        String[] packages = annotation == null ? new String[0] : annotation.get("usePackage", String[].class).orElse(new String[0]);
+        return new VerticleDescriptor(name, packages);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getPackages() {
+        return packages;
+    }
+
+    /**
+     * Scope membership is resolved once per bean definition.
+     */
+    public boolean isScoped(BeanDefinition<?> beanDefinition) {
+        Boolean scoped = membership.get(beanDefinition);
+        if (scoped == null) {
+            scoped = resolve(beanDefinition);
+            membership.putIfAbsent(beanDefinition, scoped);
+        }
+        return scoped;
+    }
+
+    private boolean resolve(BeanDefinition<?> beanDefinition) {
+        if (beanDefinition.hasAnnotation(GlobalScope.class) || packages.length == 0) {
+            return true;
+        }
+        String packageName = beanDefinition.getBeanType().getPackage().getName();
+        for (String scopePackage : packages) {
+            if (packageName.startsWith(scopePackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The candidates in scope of this verticle, filtered on first use only.
+     */
+    public <T> List<T> scoped(String key, Collection<T> candidates, Function<T, BeanDefinition<?>> definition) {
+        return index(key, () -> {
+            List<T> scoped = new ArrayList<>();
+            for (T candidate : candidates) {
+                if (isScoped(definition.apply(candidate))) {
+                    scoped.add(candidate);
+                }
+            }
+            return scoped;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> index(String key, Supplier<List<T>> builder) {
+        Entry entry = index.get(key);
+        if (entry != null) {
+            entry.hits.incrementAndGet();
+            return (List<T>) entry.values;
+        }
+        return (List<T>) index.computeIfAbsent(key, k -> {
+            long start = System.nanoTime();
+            List<T> values = Collections.unmodifiableList(builder.get());
+            return new Entry(values, System.nanoTime() - start);
+        }).values;
+    }
+
+    public long hits() {
+        long hits = 0;
+        for (Entry entry : index.values()) {
+            hits += entry.hits.get();
+        }
+        return hits;
+    }
+
+    /**
+     * Estimated time the cached lookups saved: each hit would have repeated the original build.
+     */
+    public long savedNanos() {
+        long saved = 0;
+        for (Entry entry : index.values()) {
+            saved += entry.hits.get() * entry.buildNanos;
+        }
+        return saved;
+    }
+
+    /**
+     * Counts an instance of the verticle in.
+     */
+    public void attach() {
+        instances.incrementAndGet();
+    }
+
+    /**
+     * Counts an instance of the verticle out and clears the caches once no instance is left running.
+     *
+     * @return whether it was the last instance
+     */
+    public boolean detach() {
+        if (instances.decrementAndGet() > 0) {
+            return false;
+        }
+        clear();
+        return true;
+    }
+
+    public void clear() {
+        index.clear();
+        membership.clear();
+    }
+
+    private static final class Entry {
+        private final List<?> values;
+        private final long buildNanos;
+        private final AtomicLong hits = new AtomicLong();
+
+        Entry(List<?> values, long buildNanos) {
+            this.values = values;
+            this.buildNanos = buildNanos;
+        }
+    }
+}
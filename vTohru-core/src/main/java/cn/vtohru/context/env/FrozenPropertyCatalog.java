@@ -0,0 +1,295 @@
+package cn.vtohru.context.env;
+
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.core.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the scalar properties of a started environment, with every value converted ahead of time to
+ * {@code String}, {@code Integer}, {@code Long}, {@code Boolean} and {@code Double}. Keys are laid out with a
+ * hash-and-displace perfect hash: a lookup reads one displacement and one slot, takes no lock and allocates nothing.
+ * The snapshot can be written to disk and reused by the next boot while the properties are unchanged.
+ */
+public final class FrozenPropertyCatalog {
+    private static final int FORMAT = 0x56504301;
+    private static final Logger LOG = LoggerFactory.getLogger(FrozenPropertyCatalog.class);
+    private static final Class<?>[] TYPES = {String.class, Integer.class, Long.class, Boolean.class, Double.class};
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final long digest;
+    private final int[] displacements;
+    private final String[] keys;
+    private final Object[][] values;
+
+    private FrozenPropertyCatalog(long digest, int[] displacements, String[] keys, Object[][] values) {
+        this.digest = digest;
+        this.displacements = displacements;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param properties scalar values with placeholders already resolved
+     */
+    public static FrozenPropertyCatalog build(Map<String, Object> properties, ConversionService<?> conversionService) {
+        int capacity = Integer.highestOneBit(Math.max(2, properties.size() + properties.size() / 4) - 1) << 1;
+        int mask = capacity - 1;
+        List<List<String>> buckets = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (String name : properties.keySet()) {
+            buckets.get(hash(name, 0) & mask).add(name);
+        }
+        Integer[] order = new Integer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+        int[] displacements = new int[capacity];
+        String[] keys = new String[capacity];
+        Object[][] values = new Object[capacity][];
+        int free = 0;
+        for (int bucket : order) {
+            List<String> names = buckets.get(bucket);
+            if (names.isEmpty()) {
+                break;
+            }
+            if (names.size() == 1) {
+                while (keys[free] != null) {
+                    free++;
+                }
+                place(keys, values, free, names.get(0), properties, conversionService);
+                displacements[bucket] = -free - 1;
+                continue;
+            }
+            int displacement = 1;
+            int[] slots = new int[names.size()];
+            while (!fits(names, displacement, mask, keys, slots)) {
+                if (++displacement == MAX_DISPLACEMENT) {
+                    throw new IllegalStateException("no perfect hash for " + names);
+                }
+            }
+            for (int i = 0; i < slots.length; i++) {
+                place(keys, values, slots[i], names.get(i), properties, conversionService);
+            }
+            displacements[bucket] = displacement;
+        }
+        return new FrozenPropertyCatalog(digest(properties), displacements, keys, values);
+    }
+
+    private static boolean fits(List<String> names, int displacement, int mask, String[] keys, int[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            int slot = hash(names.get(i), displacement) & mask;
+            if (keys[slot] != null) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    private static void place(String[] keys, Object[][] values, int slot, String name, Map<String, Object> properties, ConversionService<?> conversionService) {
+        keys[slot] = name;
+        values[slot] = convert(properties.get(name), conversionService);
+    }
+
+    private static Object[] convert(Object value, ConversionService<?> conversionService) {
+        Object[] converted = new Object[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].isInstance(value)) {
+                converted[i] = value;
+            } else {
+                try {
+                    converted[i] = conversionService.convert(value, TYPES[i]).orElse(null);
+                } catch (RuntimeException e) {
+                    // left to the regular conversion path
+                }
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Order independent digest of the properties, used to tell whether a stored catalog is still current.
+     */
+    public static long digest(Map<String, Object> properties) {
+        long digest = properties.size();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            long h = entry.getKey().hashCode() * 0x9E3779B97F4A7C15L + String.valueOf(entry.getValue()).hashCode();
+            h ^= h >>> 31;
+            digest += h * 0xBF58476D1CE4E5B9L;
+        }
+        return digest;
+    }
+
+    private static int hash(String name, int displacement) {
+        int h = name.hashCode() ^ displacement * 0x9E3779B9;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ h >>> 16;
+    }
+
+    private int indexOf(String name) {
+        int mask = keys.length - 1;
+        int displacement = displacements[hash(name, 0) & mask];
+        int slot = displacement < 0 ? -displacement - 1 : hash(name, displacement) & mask;
+        return name.equals(keys[slot]) ? slot : -1;
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * The value converted to the given type, {@code null} when the key is unknown, the type is not pre-converted or
+     * the value does not convert.
+     */
+    @Nullable
+    public Object get(String name, Class<?> type) {
+        int typeIndex = typeIndex(type);
+        if (typeIndex < 0) {
+            return null;
+        }
+        int slot = indexOf(name);
+        return slot < 0 ? null : values[slot][typeIndex];
+    }
+
+    private static int typeIndex(Class<?> type) {
+        if (type == String.class) {
+            return 0;
+        } else if (type == Integer.class || type == int.class) {
+            return 1;
+        } else if (type == Long.class || type == long.class) {
+            return 2;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return 3;
+        } else if (type == Double.class || type == double.class) {
+            return 4;
+        }
+        return -1;
+    }
+
+    public long getDigest() {
+        return digest;
+    }
+
+    public int size() {
+        int size = 0;
+        for (String key : keys) {
+            if (key != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the catalog in a compact binary form: a format marker, the digest, the displacements and, per slot, the
+     * key and a presence mask followed by the pre-converted values.
+     */
+    public void write(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT);
+            out.writeLong(digest);
+            out.writeInt(keys.length);
+            for (int displacement : displacements) {
+                out.writeInt(displacement);
+            }
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == null) {
+                    out.writeBoolean(false);
+                    continue;
+                }
+                out.writeBoolean(true);
+                out.writeUTF(keys[slot]);
+                Object[] converted = values[slot];
+                int mask = 0;
+                for (int i = 0; i < converted.length; i++) {
+                    if (converted[i] != null) {
+                        mask |= 1 << i;
+                    }
+                }
+                out.writeByte(mask);
+                if (converted[0] != null) {
+                    out.writeUTF((String) converted[0]);
+                }
+                if (converted[1] != null) {
+                    out.writeInt((Integer) converted[1]);
+                }
+                if (converted[2] != null) {
+                    out.writeLong((Long) converted[2]);
+                }
+                if (converted[3] != null) {
+                    out.writeBoolean((Boolean) converted[3]);
+                }
+                if (converted[4] != null) {
+                    out.writeDouble((Double) converted[4]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to write the property catalog to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Nullable
+    public static FrozenPropertyCatalog read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT) {
+                return null;
+            }
+            long digest = in.readLong();
+            int capacity = in.readInt();
+            int[] displacements = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                displacements[i] = in.readInt();
+            }
+            String[] keys = new String[capacity];
+            Object[][] values = new Object[capacity][];
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!in.readBoolean()) {
+                    continue;
+                }
+                keys[slot] = in.readUTF();
+                int mask = in.readByte();
+                Object[] converted = new Object[TYPES.length];
+                if ((mask & 1) != 0) {
+                    converted[0] = in.readUTF();
+                }
+                if ((mask & 2) != 0) {
+                    converted[1] = in.readInt();
+                }
+                if ((mask & 4) != 0) {
+                    converted[2] = in.readLong();
+                }
+                if ((mask & 8) != 0) {
+                    converted[3] = in.readBoolean();
+                }
+                if ((mask & 16) != 0) {
+                    converted[4] = in.readDouble();
+                }
+                values[slot] = converted;
+            }
+            return new FrozenPropertyCatalog(digest, displacements, keys, values);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable property catalog {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+}
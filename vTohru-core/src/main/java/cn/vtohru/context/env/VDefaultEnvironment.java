@@ -31,8 +31,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -67,6 +69,14 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
     private static final String DO_SYS_VENDOR_FILE = "/sys/devices/virtual/dmi/id/sys_vendor";
     private static final Boolean DEDUCE_ENVIRONMENT_DEFAULT = true;
     private static final List<String> DEFAULT_CONFIG_LOCATIONS = Arrays.asList("classpath:/", "file:config/");
+    public static final String CLOUD_DEDUCTION_PROPERTY = "vtohru.environment.cloud-deduction";
+    public static final String CLOUD_DEDUCTION_ENV = "VTOHRU_ENVIRONMENT_CLOUD_DEDUCTION";
+    public static final String CLOUD_CACHE_PROPERTY = "vtohru.environment.cloud-cache";
+    public static final String CLOUD_CACHE_ENV = "VTOHRU_ENVIRONMENT_CLOUD_CACHE";
+    private static final String CLOUD_CACHE_FILE = ".vtohru" + File.separator + "compute-platform";
+    private static final long CLOUD_CACHE_TTL = TimeUnit.DAYS.toMillis(1);
+    public static final String FROZEN_CATALOG_PROPERTY = "vtohru.environment.frozen-catalog";
+    public static final String FROZEN_CATALOG_FILE_PROPERTY = "vtohru.environment.frozen-catalog.file";
     protected final ClassPathResourceLoader resourceLoader;
     protected final List<PropertySource> refreshablePropertySources = new ArrayList<>(10);
 
@@ -86,6 +96,7 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
     private final Boolean deduceEnvironments;
     private final ApplicationContextConfiguration configuration;
     private final Collection<String> configLocations;
+    private final Map<String, Long> startupPhases = Collections.synchronizedMap(new LinkedHashMap<>());
 
     /**
      * Construct a new environment for the given configuration.
@@ -108,7 +119,10 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
                 .collect(Collectors.toList()));
 
         this.deduceEnvironments = configuration.getDeduceEnvironments().orElse(null);
+        long deductionStart = System.nanoTime();
         VDefaultEnvironment.EnvironmentsAndPackage environmentsAndPackage = getEnvironmentsAndPackage(specifiedNames);
+        startupPhases.put("deduction", (System.nanoTime() - deductionStart) / 1000000);
+        startupPhases.put("cloud-probe", environmentsAndPackage.cloudProbeMillis);
         if (environmentsAndPackage.enviroments.isEmpty() && specifiedNames.isEmpty()) {
             specifiedNames = configuration.getDefaultEnvironments();
         }
@@ -212,6 +226,13 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
         return this;
     }
 
+    /**
+     * The configured locations, in the order they are searched.
+     */
+    public Collection<String> getConfigLocations() {
+        return Collections.unmodifiableCollection(configLocations);
+    }
+
     @Override
     public Collection<String> getPackages() {
         return Collections.unmodifiableCollection(packages);
@@ -234,14 +255,49 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
                 LOG.debug("Starting environment {} for active names {}", this, getActiveNames());
             }
             if (reading.compareAndSet(false, true)) {
-
+                long readStart = System.nanoTime();
                 readPropertySources(getPropertySourceRootName());
+                startupPhases.put("property-sources", (System.nanoTime() - readStart) / 1000000);
+                if (Boolean.getBoolean(FROZEN_CATALOG_PROPERTY)) {
+                    long freezeStart = System.nanoTime();
+                    freezeCatalog();
+                    startupPhases.put("frozen-catalog", (System.nanoTime() - freezeStart) / 1000000);
+                }
                 reading.set(false);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("Environment started, phases in ms: {}", startupPhases);
+                }
             }
         }
         return this;
     }
 
+    /**
+     * Freezes the catalog, reusing and refreshing the copy in {@value #FROZEN_CATALOG_FILE_PROPERTY} when one is set.
+     * The file holds resolved property values, so it is only written where explicitly configured.
+     */
+    private void freezeCatalog() {
+        String path = System.getProperty(FROZEN_CATALOG_FILE_PROPERTY);
+        File file = StringUtils.isEmpty(path) ? null : new File(path);
+        FrozenPropertyCatalog stored = file == null ? null : FrozenPropertyCatalog.read(file);
+        FrozenPropertyCatalog frozen = freezeCatalog(stored);
+        if (file != null && frozen != stored) {
+            frozen.write(file);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Froze {} properties{}", frozen.size(), frozen == stored ? " from " + file : "");
+        }
+    }
+
+    /**
+     * Time spent in each startup phase, in milliseconds.
+     */
+    public Map<String, Long> getStartupPhases() {
+        synchronized (startupPhases) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(startupPhases));
+        }
+    }
+
     @Override
     public boolean isRunning() {
         return running.get();
@@ -252,20 +308,35 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
         running.set(false);
         reading.set(false);
         this.propertySources.values().removeAll(refreshablePropertySources);
-        synchronized (catalog) {
-            for (int i = 0; i < catalog.length; i++) {
-                catalog[i] = null;
-            }
-            resetCaches();
-        }
+        clearCatalog();
         return this;
     }
 
+    /**
+     * Reloads the refreshable property sources without stopping the environment: the new catalog is built aside and
+     * swapped in, so concurrent reads see the previous values until the new ones are complete.
+     */
     @Override
     public Map<String, Object> refreshAndDiff() {
-        Map<String, Object>[] copiedCatalog = copyCatalog();
-        refresh();
-        return diffCatalog(copiedCatalog, catalog);
+        if (!isRunning()) {
+            start();
+            return Collections.emptyMap();
+        }
+        synchronized (catalogLock) {
+            Map<String, Object>[] previous = generatedCatalog();
+            this.propertySources.values().removeAll(refreshablePropertySources);
+            refreshablePropertySources.clear();
+            List<PropertySource> loaded = loadPropertySources(getPropertySourceRootName());
+            refreshablePropertySources.addAll(loaded);
+            List<PropertySource> propertySources = new ArrayList<>(loaded);
+            propertySources.addAll(this.propertySources.values());
+            OrderUtil.sort(propertySources);
+            replaceCatalog(propertySources);
+            if (Boolean.getBoolean(FROZEN_CATALOG_PROPERTY)) {
+                freezeCatalog(null);
+            }
+            return diffCatalog(previous, generatedCatalog());
+        }
     }
 
     @Override
@@ -373,16 +444,7 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
      */
     protected void readPropertySources(String name) {
         refreshablePropertySources.clear();
-        List<PropertySource> propertySources = readPropertySourceList(name);
-        addDefaultPropertySources(propertySources);
-        String propertySourcesSystemProperty = System.getProperty(Environment.PROPERTY_SOURCES_KEY);
-        if (propertySourcesSystemProperty != null) {
-            propertySources.addAll(readPropertySourceListFromFiles(propertySourcesSystemProperty));
-        }
-        String propertySourcesEnv = readPropertySourceListKeyFromEnvironment();
-        if (propertySourcesEnv != null) {
-            propertySources.addAll(readPropertySourceListFromFiles(propertySourcesEnv));
-        }
+        List<PropertySource> propertySources = loadPropertySources(name);
         refreshablePropertySources.addAll(propertySources);
 
         propertySources.addAll(this.propertySources.values());
@@ -395,6 +457,24 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
         }
     }
 
+    /**
+     * @param name The name to read property sources
+     * @return The refreshable property sources: config files, environment and system properties
+     */
+    private List<PropertySource> loadPropertySources(String name) {
+        List<PropertySource> propertySources = readPropertySourceList(name);
+        addDefaultPropertySources(propertySources);
+        String propertySourcesSystemProperty = System.getProperty(Environment.PROPERTY_SOURCES_KEY);
+        if (propertySourcesSystemProperty != null) {
+            propertySources.addAll(readPropertySourceListFromFiles(propertySourcesSystemProperty));
+        }
+        String propertySourcesEnv = readPropertySourceListKeyFromEnvironment();
+        if (propertySourcesEnv != null) {
+            propertySources.addAll(readPropertySourceListFromFiles(propertySourcesEnv));
+        }
+        return propertySources;
+    }
+
     /**
      * Reads the value of MICRONAUT_CONFIG_FILES environment variable.
      *
@@ -676,7 +756,9 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
                 }
 
                 if (deduceComputePlatform) {
+                    long probeStart = System.nanoTime();
                     ComputePlatform computePlatform = determineCloudProvider();
+                    environmentsAndPackage.cloudProbeMillis = (System.nanoTime() - probeStart) / 1000000;
                     if (computePlatform != null) {
                         switch (computePlatform) {
                             case GOOGLE_COMPUTE:
@@ -770,17 +852,6 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
         }
     }
 
-    private Map<String, Object>[] copyCatalog() {
-        Map<String, Object>[] newCatalog = new Map[catalog.length];
-        for (int i = 0; i < catalog.length; i++) {
-            Map<String, Object> entry = catalog[i];
-            if (entry != null) {
-                newCatalog[i] = new LinkedHashMap<>(entry);
-            }
-        }
-        return newCatalog;
-    }
-
     private static ComputePlatform determineCloudProvider() {
         String computePlatform = System.getProperty(CLOUD_PLATFORM_PROPERTY);
         if (computePlatform != null) {
@@ -792,6 +863,90 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
             }
 
         }
+        CloudDeduction deduction = cloudDeduction();
+        if (deduction == CloudDeduction.SKIP) {
+            LOG.debug("Skipping cloud platform deduction");
+            return ComputePlatform.BARE_METAL;
+        }
+        File cache = cloudCacheFile();
+        if (cache != null && cache.isFile() && System.currentTimeMillis() - cache.lastModified() < CLOUD_CACHE_TTL) {
+            try {
+                return ComputePlatform.valueOf(readFile(cache.getPath()));
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Ignoring unreadable compute platform cache {}", cache);
+            }
+        }
+        ComputePlatform probed = deduction == CloudDeduction.PARALLEL ? probeCloudProviderInParallel() : probeCloudProvider();
+        // a bare metal answer may come from a probe that failed or timed out, only a positive one is kept
+        if (cache != null && probed != ComputePlatform.BARE_METAL) {
+            try {
+                Files.createDirectories(cache.toPath().getParent());
+                Files.write(cache.toPath(), probed.name().getBytes());
+            } catch (IOException e) {
+                LOG.debug("Unable to cache the compute platform in {}", cache);
+            }
+        }
+        return probed;
+    }
+
+    /**
+     * Deduction mode from {@value #CLOUD_DEDUCTION_PROPERTY}; defaults to skipping the probes inside containers,
+     * where the platform is known from the environment, and to probing in parallel elsewhere.
+     */
+    private static CloudDeduction cloudDeduction() {
+        String mode = System.getProperty(CLOUD_DEDUCTION_PROPERTY, System.getenv(CLOUD_DEDUCTION_ENV));
+        if (StringUtils.isNotEmpty(mode)) {
+            try {
+                return CloudDeduction.valueOf(mode.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException("Illegal value specified for [" + CLOUD_DEDUCTION_PROPERTY + "]: " + mode);
+            }
+        }
+        return isContainer() ? CloudDeduction.SKIP : CloudDeduction.PARALLEL;
+    }
+
+    private static boolean isContainer() {
+        return StringUtils.isNotEmpty(System.getenv(K8S_ENV))
+                || StringUtils.isNotEmpty(System.getenv("container"))
+                || Files.exists(Paths.get("/.dockerenv"))
+                || Files.exists(Paths.get("/run/.containerenv"));
+    }
+
+    /**
+     * The file caching the probed platform between restarts for a day, {@code null} unless enabled: {@code true}
+     * caches in the user's home directory, any other value is taken as the file path.
+     */
+    private static File cloudCacheFile() {
+        String path = System.getProperty(CLOUD_CACHE_PROPERTY, System.getenv(CLOUD_CACHE_ENV));
+        if (StringUtils.isEmpty(path) || "false".equalsIgnoreCase(path)) {
+            return null;
+        }
+        return "true".equalsIgnoreCase(path) ? new File(System.getProperty("user.home"), CLOUD_CACHE_FILE) : new File(path).getAbsoluteFile();
+    }
+
+    private static ComputePlatform probeCloudProviderInParallel() {
+        boolean isWindows = System.getProperty("os.name")
+                .toLowerCase().startsWith("windows");
+        CompletableFuture<Boolean> ec2 = CompletableFuture.supplyAsync(() -> isWindows ? isEC2Windows() : isEC2Linux());
+        CompletableFuture<Boolean> google = CompletableFuture.supplyAsync(VDefaultEnvironment::isGoogleCompute);
+        CompletableFuture<Boolean> oracle = CompletableFuture.supplyAsync(() -> isWindows ? isOracleCloudWindows() : isOracleCloudLinux());
+        CompletableFuture<Boolean> digitalOcean = CompletableFuture.supplyAsync(VDefaultEnvironment::isDigitalOcean);
+        if (ec2.join()) {
+            return ComputePlatform.AMAZON_EC2;
+        }
+        if (google.join()) {
+            return ComputePlatform.GOOGLE_COMPUTE;
+        }
+        if (oracle.join()) {
+            return ComputePlatform.ORACLE_CLOUD;
+        }
+        if (digitalOcean.join()) {
+            return ComputePlatform.DIGITAL_OCEAN;
+        }
+        return ComputePlatform.BARE_METAL;
+    }
+
+    private static ComputePlatform probeCloudProvider() {
         boolean isWindows = System.getProperty("os.name")
                 .toLowerCase().startsWith("windows");
 
@@ -962,6 +1117,14 @@ public class VDefaultEnvironment extends VPropertySourcePropertyResolver impleme
     private static class EnvironmentsAndPackage {
         String aPackage;
         Set<String> enviroments = new LinkedHashSet<>(1);
+        long cloudProbeMillis;
+    }
+
+    /**
+     * How the compute platform is deduced at startup.
+     */
+    private enum CloudDeduction {
+        SKIP, PARALLEL, SEQUENTIAL
     }
 }
 
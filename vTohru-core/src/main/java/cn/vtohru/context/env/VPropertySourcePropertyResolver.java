@@ -45,15 +45,12 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
     protected final ConversionService<?> conversionService;
     protected final PropertyPlaceholderResolver propertyPlaceholderResolver;
     protected final Map<String, PropertySource> propertySources = new ConcurrentHashMap<>(10);
-    // properties are stored in an array of maps organized by character in the alphabet
-    // this allows optimization of searches by prefix
-    @SuppressWarnings("MagicNumber")
-    protected final Map<String, Object>[] catalog = new Map[58];
-    protected final Map<String, Object>[] rawCatalog = new Map[58];
-    protected final Map<String, Object>[] nonGenerated = new Map[58];
+    protected final Object catalogLock = new Object();
+    private volatile Catalogs catalogs = new Catalogs();
     private final Random random = new Random();
     private final Map<String, Boolean> containsCache = new ConcurrentHashMap<>(20);
     private final Map<String, Object> resolvedValueCache = new ConcurrentHashMap<>(20);
+    private volatile FrozenPropertyCatalog frozenCatalog;
 
     /**
      * Creates a new, initially empty, {@link VPropertySourcePropertyResolver} for the given {@link ConversionService}.
@@ -118,6 +115,10 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
         if (StringUtils.isEmpty(name)) {
             return false;
         } else {
+            FrozenPropertyCatalog frozen = this.frozenCatalog;
+            if (frozen != null && frozen.contains(name)) {
+                return true;
+            }
             Boolean result = containsCache.get(name);
             if (result == null) {
 
@@ -226,6 +227,13 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
         } else {
             Objects.requireNonNull(conversionContext, "Conversion context should not be null");
             Class<T> requiredType = conversionContext.getArgument().getType();
+            FrozenPropertyCatalog frozen = this.frozenCatalog;
+            if (frozen != null) {
+                Object value = frozen.get(name, requiredType);
+                if (value != null) {
+                    return Optional.of((T) value);
+                }
+            }
             boolean cacheableType = ClassUtils.isJavaLangType(requiredType);
             Object cached = cacheableType ? resolvedValueCache.get(cacheKey(name, requiredType)) : null;
             if (cached != null) {
@@ -358,7 +366,7 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
         boolean isNested = transformation == MapFormat.MapTransformation.NESTED;
 
         Arrays
-                .stream(catalog)
+                .stream(catalogs.generated)
                 .filter(Objects::nonNull)
                 .map(Map::entrySet)
                 .flatMap(Collection::stream)
@@ -495,71 +503,110 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
      */
     @SuppressWarnings("MagicNumber")
     protected void processPropertySource(PropertySource properties, PropertySource.PropertyConvention convention) {
+        synchronized (catalogLock) {
+            processPropertySource(properties, convention, catalogs);
+        }
+    }
+
+    /**
+     * Processes the property sources into new catalogs and swaps them in at once: reads keep seeing the previous
+     * properties until the new ones are complete, never an empty or partially built catalog.
+     *
+     * @param propertySources The property sources, in processing order
+     */
+    protected void replaceCatalog(List<PropertySource> propertySources) {
+        Catalogs next = new Catalogs();
+        synchronized (catalogLock) {
+            for (PropertySource propertySource : propertySources) {
+                processPropertySource(propertySource, propertySource.getConvention(), next);
+            }
+            catalogs = next;
+            resetCaches();
+        }
+    }
+
+    /**
+     * Empties the catalogs.
+     */
+    protected void clearCatalog() {
+        synchronized (catalogLock) {
+            catalogs = new Catalogs();
+            resetCaches();
+        }
+    }
+
+    /**
+     * @return The generated catalog in use, left untouched by {@link #replaceCatalog(List)}
+     */
+    protected Map<String, Object>[] generatedCatalog() {
+        return catalogs.generated;
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private void processPropertySource(PropertySource properties, PropertySource.PropertyConvention convention, Catalogs target) {
         this.propertySources.put(properties.getName(), properties);
-        synchronized (catalog) {
-            for (String property : properties) {
+        for (String property : properties) {
 
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("Processing property key {}", property);
-                }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Processing property key {}", property);
+            }
 
-                Object value = properties.get(property);
-
-                if (value instanceof CharSequence) {
-                    value = processRandomExpressions(convention, property, (CharSequence) value);
-                } else if (value instanceof List) {
-                    final ListIterator i = ((List) value).listIterator();
-                    while (i.hasNext()) {
-                        final Object o = i.next();
-                        if (o instanceof CharSequence) {
-                            final CharSequence newValue = processRandomExpressions(convention, property, (CharSequence) o);
-                            if (newValue != o) {
-                                i.set(newValue);
-                            }
+            Object value = properties.get(property);
+
+            if (value instanceof CharSequence) {
+                value = processRandomExpressions(convention, property, (CharSequence) value);
+            } else if (value instanceof List) {
+                final ListIterator i = ((List) value).listIterator();
+                while (i.hasNext()) {
+                    final Object o = i.next();
+                    if (o instanceof CharSequence) {
+                        final CharSequence newValue = processRandomExpressions(convention, property, (CharSequence) o);
+                        if (newValue != o) {
+                            i.set(newValue);
                         }
                     }
                 }
+            }
 
-                List<String> resolvedProperties = resolvePropertiesForConvention(property, convention);
-                boolean first = true;
-                for (String resolvedProperty : resolvedProperties) {
-                    int i = resolvedProperty.indexOf('[');
-                    if (i > -1) {
-                        String propertyName = resolvedProperty.substring(0, i);
-                        Map<String, Object> entries = resolveEntriesForKey(propertyName, true, VPropertySourcePropertyResolver.PropertyCatalog.GENERATED);
-                        if (entries != null) {
-                            entries.put(resolvedProperty, value);
-                            expandProperty(resolvedProperty.substring(i), val -> entries.put(propertyName, val), () -> entries.get(propertyName), value);
-                        }
-                        if (first) {
-                            Map<String, Object> normalized = resolveEntriesForKey(resolvedProperty, true, VPropertySourcePropertyResolver.PropertyCatalog.NORMALIZED);
-                            if (normalized != null) {
-                                normalized.put(propertyName, value);
-                            }
-                            first = false;
+            List<String> resolvedProperties = resolvePropertiesForConvention(property, convention);
+            boolean first = true;
+            for (String resolvedProperty : resolvedProperties) {
+                int i = resolvedProperty.indexOf('[');
+                if (i > -1) {
+                    String propertyName = resolvedProperty.substring(0, i);
+                    Map<String, Object> entries = entriesForKey(target.generated, propertyName, true);
+                    if (entries != null) {
+                        entries.put(resolvedProperty, value);
+                        expandProperty(resolvedProperty.substring(i), val -> entries.put(propertyName, val), () -> entries.get(propertyName), value);
+                    }
+                    if (first) {
+                        Map<String, Object> normalized = entriesForKey(target.normalized, resolvedProperty, true);
+                        if (normalized != null) {
+                            normalized.put(propertyName, value);
                         }
-                    } else {
-                        Map<String, Object> entries = resolveEntriesForKey(resolvedProperty, true, VPropertySourcePropertyResolver.PropertyCatalog.GENERATED);
-                        if (entries != null) {
-                            if (value instanceof List || value instanceof Map) {
-                                collapseProperty(resolvedProperty, entries, value);
-                            }
-                            entries.put(resolvedProperty, value);
+                        first = false;
+                    }
+                } else {
+                    Map<String, Object> entries = entriesForKey(target.generated, resolvedProperty, true);
+                    if (entries != null) {
+                        if (value instanceof List || value instanceof Map) {
+                            collapseProperty(resolvedProperty, entries, value);
                         }
-                        if (first) {
-                            Map<String, Object> normalized = resolveEntriesForKey(resolvedProperty, true, VPropertySourcePropertyResolver.PropertyCatalog.NORMALIZED);
-                            if (normalized != null) {
-                                normalized.put(resolvedProperty, value);
-                            }
-                            first = false;
+                        entries.put(resolvedProperty, value);
+                    }
+                    if (first) {
+                        Map<String, Object> normalized = entriesForKey(target.normalized, resolvedProperty, true);
+                        if (normalized != null) {
+                            normalized.put(resolvedProperty, value);
                         }
+                        first = false;
                     }
                 }
+            }
 
-                final Map<String, Object> rawEntries = resolveEntriesForKey(property, true, VPropertySourcePropertyResolver.PropertyCatalog.RAW);
-                if (rawEntries != null) {
-                    rawEntries.put(property, value);
-                }
+            final Map<String, Object> rawEntries = entriesForKey(target.raw, property, true);
+            if (rawEntries != null) {
+                rawEntries.put(property, value);
             }
         }
     }
@@ -710,11 +757,13 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
      */
     @SuppressWarnings("MagicNumber")
     protected Map<String, Object> resolveEntriesForKey(String name, boolean allowCreate, @Nullable VPropertySourcePropertyResolver.PropertyCatalog propertyCatalog) {
+        return entriesForKey(getCatalog(propertyCatalog), name, allowCreate);
+    }
+
+    private static Map<String, Object> entriesForKey(Map<String, Object>[] catalog, String name, boolean allowCreate) {
         if (name.length() == 0) {
             return null;
         }
-        final Map<String, Object>[] catalog = getCatalog(propertyCatalog);
-
         Map<String, Object> entries = null;
         char firstChar = name.charAt(0);
         if (Character.isLetter(firstChar)) {
@@ -732,18 +781,15 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
 
     private Map<String, Object>[] getCatalog(@Nullable VPropertySourcePropertyResolver.PropertyCatalog propertyCatalog) {
         propertyCatalog = propertyCatalog != null ? propertyCatalog : VPropertySourcePropertyResolver.PropertyCatalog.GENERATED;
-        final Map<String, Object>[] catalog;
+        final Catalogs catalogs = this.catalogs;
         switch (propertyCatalog) {
             case RAW:
-                catalog = this.rawCatalog;
-                break;
+                return catalogs.raw;
             case NORMALIZED:
-                catalog = this.nonGenerated;
-                break;
+                return catalogs.normalized;
             default:
-                catalog = this.catalog;
+                return catalogs.generated;
         }
-        return catalog;
     }
 
     /**
@@ -752,6 +798,39 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
     protected void resetCaches() {
         containsCache.clear();
         resolvedValueCache.clear();
+        frozenCatalog = null;
+    }
+
+    /**
+     * Freezes the scalar properties into a {@link FrozenPropertyCatalog} that serves later reads until the property
+     * sources change.
+     *
+     * @param stored A catalog from a previous run, reused when built from the same properties
+     * @return The catalog in use
+     */
+    protected FrozenPropertyCatalog freezeCatalog(@Nullable FrozenPropertyCatalog stored) {
+        Map<String, Object> properties = new HashMap<>();
+        synchronized (catalogLock) {
+            for (Map<String, Object> entries : catalogs.raw) {
+                if (entries == null) {
+                    continue;
+                }
+                for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                    Object value = entry.getValue();
+                    if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+                        try {
+                            properties.put(entry.getKey(), resolvePlaceHoldersIfNecessary(value));
+                        } catch (ConfigurationException e) {
+                            // unresolvable placeholders keep failing on the regular path
+                        }
+                    }
+                }
+            }
+        }
+        FrozenPropertyCatalog frozen = stored != null && stored.getDigest() == FrozenPropertyCatalog.digest(properties)
+                ? stored : FrozenPropertyCatalog.build(properties, conversionService);
+        this.frozenCatalog = frozen;
+        return frozen;
     }
 
     private void processSubmapKey(Map<String, Object> map, String key, Object value, @Nullable StringConvention keyConvention) {
@@ -922,6 +1001,17 @@ public class VPropertySourcePropertyResolver implements PropertyResolver {
         }
     }
 
+    /**
+     * The catalogs, replaced together when the property sources are reloaded. Properties are stored in an array of maps
+     * organized by character in the alphabet, which allows optimization of searches by prefix.
+     */
+    @SuppressWarnings({"MagicNumber", "unchecked"})
+    private static final class Catalogs {
+        final Map<String, Object>[] generated = new Map[58];
+        final Map<String, Object>[] raw = new Map[58];
+        final Map<String, Object>[] normalized = new Map[58];
+    }
+
     /**
      * The property catalog to use.
      */
@@ -0,0 +1,54 @@
+package cn.vtohru.event;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import io.micronaut.context.event.ApplicationEvent;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * Published after the configuration files changed, with the previous value of every changed key. A verticle scoped
+ * event also matches the keys of its {@code vtohru.vtc-<verticle>} section.
+ */
+public class ConfigRefreshEvent extends ApplicationEvent {
+    private final String verticle;
+
+    public ConfigRefreshEvent(@NonNull Map<String, Object> changes, @Nullable String verticle) {
+        super(changes);
+        this.verticle = verticle;
+    }
+
+    @Override
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getSource() {
+        return (Map<String, Object>) super.getSource();
+    }
+
+    @Nullable
+    public String getVerticle() {
+        return verticle;
+    }
+
+    /**
+     * Whether the key, or any key below it, changed.
+     */
+    public boolean isChanged(String key) {
+        String scopedKey = null;
+        if (verticle != null && key.startsWith(VerticleApplicationContext.VTOHRU)) {
+            scopedKey = key.replace(VerticleApplicationContext.VTOHRU, VerticleApplicationContext.VTOHRU + "."
+                    + VerticleApplicationContext.VERTICLE_PREFIX + verticle.toLowerCase());
+        }
+        for (String changed : getSource().keySet()) {
+            if (matches(changed, key) || (scopedKey != null && matches(changed, scopedKey))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String changed, String key) {
+        return changed.startsWith(key) && (changed.length() == key.length() || changed.charAt(key.length()) == '.');
+    }
+}
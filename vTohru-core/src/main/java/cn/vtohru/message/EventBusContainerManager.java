@@ -27,7 +27,6 @@ public class EventBusContainerManager extends VerticleEvent {
 
     @Override
     public Future<Void> stop(BeanDefinition<?> beanDefinition) {
-        eventBusMessageAnnotatedBuilder.unregister();
-        return Future.succeededFuture();
+        return eventBusMessageAnnotatedBuilder.unregister();
     }
 }
@@ -1,5 +1,6 @@
 package cn.vtohru.message;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.message.annotation.MessageListener;
 import cn.vtohru.context.VerticleApplicationContext;
 import cn.vtohru.message.annotation.MessageAddress;
@@ -9,23 +10,29 @@ import io.micronaut.context.processor.ExecutableMethodProcessor;
 import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.inject.BeanDefinition;
 import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.impl.ContextInternal;
 
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Singleton
 public class EventBusMessageAnnotatedBuilder implements ExecutableMethodProcessor<MessageListener> {
+    private static final String LISTENERS_INDEX = "message.listeners";
     private VerticleApplicationContext applicationContext;
     private Map<BeanDefinition<?>,List<ExecutableMethod<?, ?>>> listenerMethodMap = new HashMap<>();
-    private List<EventBusMessageHandler<?>> eventBusMessageHandlers = new ArrayList<>();
+    private List<EventBusMessageHandler<?>> eventBusMessageHandlers = new CopyOnWriteArrayList<>();
 
 
-    public EventBusMessageAnnotatedBuilder(ApplicationContext applicationContext) {
+    public EventBusMessageAnnotatedBuilder(ApplicationContext applicationContext, GracefulShutdown gracefulShutdown) {
         this.applicationContext = (VerticleApplicationContext) applicationContext;
+        gracefulShutdown.onDrain(this::unregister);
     }
 
     @Override
@@ -39,11 +46,10 @@ public class EventBusMessageAnnotatedBuilder implements ExecutableMethodProcesso
     }
 
     public void register() {
-        for (Map.Entry<BeanDefinition<?>, List<ExecutableMethod<?, ?>>> entry : listenerMethodMap.entrySet()) {
+        MessageInterceptorChain interceptorChain = MessageInterceptorChain.create(applicationContext);
+        List<EventBusMessageHandler<?>> registered = new ArrayList<>();
+        for (Map.Entry<BeanDefinition<?>, List<ExecutableMethod<?, ?>>> entry : applicationContext.scoped(LISTENERS_INDEX, listenerMethodMap.entrySet(), Map.Entry::getKey)) {
             BeanDefinition<?> beanDefinition = entry.getKey();
-            if (!applicationContext.isScoped(beanDefinition)) {
-                continue;
-            }
             for (ExecutableMethod<?, ?> executableMethod : entry.getValue()) {
                 AnnotationValue<MessageAddress> methodAnnotation = executableMethod.getAnnotation(MessageAddress.class);
                 if (methodAnnotation != null) {
@@ -51,16 +57,27 @@ public class EventBusMessageAnnotatedBuilder implements ExecutableMethodProcesso
                     MessageType.Type msgType = methodAnnotation.getValue(MessageType.Type.class).orElse(MessageType.Type.PUBLISH);
                     EventBus eventBus = applicationContext.getVertx().eventBus();
                     EventBusMessageHandler<?> eventBusMessageHandler = new EventBusMessageHandler(applicationContext, beanDefinition, executableMethod,msgType);
-                    eventBusMessageHandler.register(eventBus, method_address);
-                    eventBusMessageHandlers.add(eventBusMessageHandler);
+                    eventBusMessageHandler.register(eventBus, method_address, interceptorChain);
+                    registered.add(eventBusMessageHandler);
                 }
             }
         }
+        eventBusMessageHandlers.addAll(registered);
+        // the verticle's consumers go away with it, so does their drain-time unregistration
+        ((ContextInternal) applicationContext.getVertx().getOrCreateContext()).addCloseHook(completion -> unregister(registered).onComplete(ar -> completion.complete()));
+    }
+
+    public Future<Void> unregister() {
+        return unregister(eventBusMessageHandlers);
     }
 
-    public void unregister() {
-        for (EventBusMessageHandler<?> eventBusMessageHandler : eventBusMessageHandlers) {
-            eventBusMessageHandler.unregister();
+    private Future<Void> unregister(List<EventBusMessageHandler<?>> handlers) {
+        List<Future> futures = new ArrayList<>();
+        for (EventBusMessageHandler<?> eventBusMessageHandler : handlers) {
+            if (eventBusMessageHandlers.remove(eventBusMessageHandler)) {
+                futures.add(eventBusMessageHandler.unregister());
+            }
         }
+        return CompositeFuture.join(futures).mapEmpty();
     }
 }
@@ -1,36 +1,64 @@
 package cn.vtohru.message;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.annotation.MessageBackpressure;
 import cn.vtohru.message.annotation.MessageType;
+import cn.vtohru.metrics.Counter;
+import cn.vtohru.metrics.MetricsRegistry;
 import io.micronaut.context.ApplicationContext;
 import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.core.type.Argument;
 import io.micronaut.inject.BeanDefinition;
 import io.micronaut.inject.ExecutableMethod;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.impl.MessageConsumerImpl;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.serviceproxy.HelperUtils;
 
 import javax.ws.rs.QueryParam;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EventBusMessageHandler<T> implements Handler<Message<JsonObject>> {
+    private static final AtomicInteger HANDLER_IDS = new AtomicInteger();
     protected MessageConsumer<JsonObject> consumer;
     private VerticleApplicationContext applicationContext;
     private BeanDefinition<T> beanDefinition;
     private ExecutableMethod<T, Object> executableMethod;
     private MessageType.Type msgType;
+    private boolean streamUse;
     private boolean includeDebugInfo = false;
+    private Context context;
+    private Thread ownerThread;
+    private EventBusMetrics metrics;
+    private GracefulShutdown gracefulShutdown;
+    private Counter rejected;
+    private MessageInterceptorChain interceptorChain = MessageInterceptorChain.EMPTY;
+    private int maxInFlight;
+    private int maxQueue;
+    private MessageBackpressure.Overflow overflow;
+    private int inFlight;
+    private boolean paused;
+    private boolean draining;
+    private ArrayDeque<Queued> queue;
+    private final String handlerId = String.valueOf(HANDLER_IDS.incrementAndGet());
 
 
     public EventBusMessageHandler(ApplicationContext applicationContext, BeanDefinition<T> beanDefinition, ExecutableMethod<T, Object> executableMethod, MessageType.Type msgType) {
@@ -38,18 +66,236 @@ public class EventBusMessageHandler<T> implements Handler<Message<JsonObject>> {
         this.beanDefinition = beanDefinition;
         this.executableMethod = executableMethod;
         this.msgType = msgType;
+        this.gracefulShutdown = this.applicationContext.getBean(GracefulShutdown.class);
+        this.streamUse = ReadStream.class.isAssignableFrom(executableMethod.getReturnType().getType());
+        AnnotationValue<MessageBackpressure> backpressure = executableMethod.getAnnotation(MessageBackpressure.class);
+        if (backpressure != null) {
+            this.maxInFlight = backpressure.intValue("maxInFlight").orElse(64);
+            this.maxQueue = backpressure.intValue("maxQueue").orElse(1024);
+            this.overflow = backpressure.enumValue("overflow", MessageBackpressure.Overflow.class).orElse(MessageBackpressure.Overflow.PAUSE);
+            this.queue = new ArrayDeque<>();
+        }
     }
 
     @Override
     public void handle(Message<JsonObject> message) {
-        JsonObject body = message.body();
+        MessageTracing.extract(message);
+        gracefulShutdown.begin(GracefulShutdown.EVENT_BUS);
+        if (maxInFlight <= 0) {
+            dispatch(message);
+        } else if (inFlight < maxInFlight && queue.isEmpty()) {
+            inFlight++;
+            dispatch(message);
+        } else {
+            enqueue(new Queued(message, (ContextInternal) Vertx.currentContext()));
+        }
+    }
+
+    private void enqueue(Queued queued) {
+        Message<JsonObject> message = queued.message;
+        if (queue.size() < maxQueue) {
+            queue.add(queued);
+            return;
+        }
+        switch (overflow) {
+            case DROP_OLDEST:
+                reject(queue.poll().message);
+                gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+                queue.add(queued);
+                break;
+            case REJECT:
+                reject(message);
+                gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+                break;
+            default:
+                queue.add(queued);
+                if (!paused) {
+                    paused = true;
+                    consumer.pause();
+                }
+        }
+    }
+
+    private void reject(Message<JsonObject> message) {
+        if (rejected != null) {
+            rejected.increment();
+        }
+        message.fail(503, "listener overloaded: " + consumer.address());
+    }
+
+    private void release() {
+        inFlight--;
+        if (draining) {
+            return;
+        }
+        draining = true;
+        try {
+            while (inFlight < maxInFlight && !queue.isEmpty()) {
+                inFlight++;
+                Queued queued = queue.poll();
+                if (queued.context == null) {
+                    dispatch(queued.message);
+                } else {
+                    // back on the message's own duplicated context, where its trace was extracted
+                    queued.context.dispatch(queued.message, this::dispatch);
+                }
+            }
+        } finally {
+            draining = false;
+        }
+        if (paused && queue.size() <= maxQueue / 2) {
+            paused = false;
+            consumer.resume();
+        }
+    }
+
+    private void dispatch(Message<JsonObject> message) {
+        Future<Object> future;
+        long start = metrics == null ? 0 : metrics.start(message.body());
+        try {
+            future = interceptorChain.isEmpty() ? process(message) : interceptorChain.execute(beanDefinition, (ExecutableMethod<Object, ?>) executableMethod, message, this::process);
+        } catch (RuntimeException e) {
+            // fail this message only, the release() drain loop keeps dispatching the ones queued behind it
+            if (metrics != null) {
+                metrics.failed(start);
+            }
+            HelperUtils.manageFailure(message, e, this.includeDebugInfo);
+            gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+            if (maxInFlight > 0) {
+                release();
+            }
+            return;
+        }
+        if (future == null) {
+            if (metrics != null) {
+                metrics.end(start, Future.succeededFuture());
+            }
+            gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+            if (maxInFlight > 0) {
+                release();
+            }
+            return;
+        }
+        future.onComplete(ar -> {
+            if (metrics != null) {
+                metrics.end(start, ar);
+            }
+            gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+            if (maxInFlight > 0) {
+                onOwner(this::release);
+            }
+        });
+    }
+
+    private void onOwner(Runnable action) {
+        if (Thread.currentThread() == ownerThread) {
+            action.run();
+        } else {
+            context.runOnContext(v -> action.run());
+        }
+    }
+
+    private Future<Object> process(Message<JsonObject> message) {
+        if (message.headers().contains(MessageRequestBatcher.BATCH_HEADER)) {
+            return handleBatch(message);
+        }
+        if (streamUse) {
+            return invoke(message.body()).compose(stream -> MessageStreamProducer.reply(applicationContext.getVertx(), message, (ReadStream<?>) stream)
+                    .map(v -> null), e -> {
+                HelperUtils.manageFailure(message, e, this.includeDebugInfo);
+                return Future.succeededFuture();
+            });
+        }
+        Future<Object> future = invoke(message.body());
+        if (future != null) {
+            future.onComplete(HelperUtils.createHandler(message, this.includeDebugInfo));
+        }
+        return future;
+    }
+
+    private Future<Object> handleBatch(Message<JsonObject> message) {
+        JsonArray items = message.body().getJsonArray(MessageRequestBatcher.BATCH_ITEMS);
+        List<Future> futures = new ArrayList<>(items.size());
+        if (maxInFlight <= 0) {
+            for (int i = 0; i < items.size(); i++) {
+                futures.add(invokeItem(items, i));
+            }
+        } else {
+            List<Promise<Object>> results = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Promise<Object> result = Promise.promise();
+                results.add(result);
+                futures.add(result.future());
+            }
+            onOwner(() -> startBatch(new BatchRun(items, results)));
+        }
+        Promise<Object> replied = Promise.promise();
+        CompositeFuture.join(futures).onComplete(ar -> {
+            JsonArray results = new JsonArray(new ArrayList<>(futures.size()));
+            for (Future future : futures) {
+                if (future.succeeded()) {
+                    results.add(new JsonObject().put(MessageRequestBatcher.BATCH_RESULT, future.result()));
+                } else {
+                    Throwable cause = future.cause();
+                    int failureCode = cause instanceof ReplyException ? ((ReplyException) cause).failureCode() : -1;
+                    results.add(new JsonObject().put(MessageRequestBatcher.BATCH_FAILURE_CODE, failureCode).put(MessageRequestBatcher.BATCH_FAILURE_MESSAGE, cause.getMessage()));
+                }
+            }
+            message.reply(results);
+            replied.complete();
+        });
+        return replied.future();
+    }
+
+    /**
+     * Runs the items of a batch under the listener's backpressure: the envelope's own slot runs the first item and
+     * every further item takes a free in-flight slot, the items that find none wait for the batch's earlier ones.
+     */
+    private void startBatch(BatchRun run) {
+        int workers = 1;
+        while (workers < run.items.size() && inFlight < maxInFlight) {
+            inFlight++;
+            workers++;
+        }
+        for (int i = 0; i < workers; i++) {
+            runBatchItem(run, i > 0);
+        }
+    }
+
+    private void runBatchItem(BatchRun run, boolean extraSlot) {
+        if (run.next >= run.items.size()) {
+            if (extraSlot) {
+                release();
+            }
+            return;
+        }
+        int index = run.next++;
+        invokeItem(run.items, index).onComplete(ar -> {
+            run.results.get(index).handle(ar);
+            onOwner(() -> runBatchItem(run, extraSlot));
+        });
+    }
+
+    private Future<Object> invokeItem(JsonArray items, int index) {
+        Future<Object> future;
+        try {
+            future = streamUse ? Future.failedFuture("streaming listener cannot be batched") : invoke(items.getJsonObject(index));
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        return future == null ? Future.succeededFuture() : future;
+    }
+
+    private Future<Object> invoke(JsonObject body) {
         Argument[] arguments = this.executableMethod.getArguments();
         Object[] params = new Object[arguments.length];
         boolean futureUse = Future.class.isAssignableFrom(this.executableMethod.getReturnType().getType());
+        Promise<Object> promise = null;
         for (int i = 0; i < arguments.length; i++) {
             Argument argument = arguments[i];
             if (argument.getType().isAssignableFrom(Handler.class)) {
-                params[i] = HelperUtils.createHandler(message, this.includeDebugInfo);
+                promise = Promise.promise();
+                params[i] = promise;
                 futureUse = false;
             } else {
                 AnnotationValue<QueryParam> annotation = argument.getAnnotation(QueryParam.class);
@@ -73,46 +319,75 @@ public class EventBusMessageHandler<T> implements Handler<Message<JsonObject>> {
         }
         Object invoke = this.executableMethod.invoke(applicationContext.getBean(beanDefinition), params);
         if (futureUse) {
-            Future<Object> future = (Future<Object>) invoke;
-            future.onComplete(HelperUtils.createHandler(message, this.includeDebugInfo));
+            return (Future<Object>) invoke;
         }
+        if (streamUse) {
+            return Future.succeededFuture(invoke);
+        }
+        return promise == null ? null : promise.future();
     }
 
     public MessageConsumer<JsonObject> register(EventBus eventBus, String address) {
-        return this.register(eventBus, address, (List)null);
+        return this.register(eventBus, address, MessageInterceptorChain.EMPTY);
     }
 
 
-    public MessageConsumer<JsonObject> register(EventBus eventBus, String address, List<Function<Message<JsonObject>, Future<Message<JsonObject>>>> interceptors) {
-        Handler<Message<JsonObject>> handler = this.configureHandler(interceptors);
-        this.consumer = eventBus.consumer(address, handler);
-        return this.consumer;
-    }
-
-    private Handler<Message<JsonObject>> configureHandler(List<Function<Message<JsonObject>, Future<Message<JsonObject>>>> interceptors) {
-        Handler<Message<JsonObject>> handler = this;
-        Function interceptor = null;
-        if (interceptors != null) {
-            Handler<Message<JsonObject>> finalHandler = handler;
-            Function finalInterceptor = interceptor;
-            for(Iterator var3 = interceptors.iterator(); var3.hasNext(); handler = (msg) -> {
-                Future<Message<JsonObject>> fut = (Future) finalInterceptor.apply(msg);
-                fut.onComplete((ar) -> {
-                    if (ar.succeeded()) {
-                        finalHandler.handle(msg);
-                    } else {
-                        ReplyException exception = (ReplyException)ar.cause();
-                        msg.fail(exception.failureCode(), exception.getMessage());
-                    }
-                });
-            }) {
-                interceptor = (Function)var3.next();
+    public MessageConsumer<JsonObject> register(EventBus eventBus, String address, MessageInterceptorChain interceptorChain) {
+        this.interceptorChain = interceptorChain == null ? MessageInterceptorChain.EMPTY : interceptorChain;
+        this.context = applicationContext.getVertx().getOrCreateContext();
+        this.ownerThread = this.context.isEventLoopContext() ? Thread.currentThread() : null;
+        this.consumer = eventBus.consumer(address, this);
+        MetricsRegistry metricsRegistry = applicationContext.getBean(MetricsRegistry.class);
+        boolean payloadSize = applicationContext.getProperty(EventBusMetrics.PAYLOAD_SIZE_PROPERTY, Boolean.class).orElse(false);
+        this.metrics = new EventBusMetrics(metricsRegistry, EventBusMetrics.CONSUMER, address, executableMethod.getMethodName(), payloadSize);
+        if (maxInFlight > 0) {
+            this.rejected = metricsRegistry.counter(EventBusMetrics.CONSUMER + ".rejected", "address", address);
+            // one consumer per verticle instance on the same address, each owns its gauges
+            metricsRegistry.gauge(EventBusMetrics.CONSUMER + ".queue", () -> queue.size(), gaugeTags(address));
+            metricsRegistry.gauge(EventBusMetrics.CONSUMER + ".inflight", () -> inFlight, gaugeTags(address));
+        }
+        if (maxInFlight > 0 && overflow == MessageBackpressure.Overflow.PAUSE) {
+            this.consumer.setMaxBufferedMessages(maxQueue);
+            // discardHandler is only on the internal MessageConsumerImpl (Vert.x 4.1): without it messages beyond
+            // maxBufferedMessages are dropped silently and their senders only see a timeout instead of a 503
+            if (this.consumer instanceof MessageConsumerImpl) {
+                ((MessageConsumerImpl<JsonObject>) this.consumer).discardHandler(this::reject);
             }
         }
-        return (Handler)handler;
+        return this.consumer;
     }
 
     public Future<Void> unregister() {
+        if (maxInFlight > 0) {
+            MetricsRegistry metricsRegistry = applicationContext.getBean(MetricsRegistry.class);
+            metricsRegistry.remove(EventBusMetrics.CONSUMER + ".queue", gaugeTags(consumer.address()));
+            metricsRegistry.remove(EventBusMetrics.CONSUMER + ".inflight", gaugeTags(consumer.address()));
+        }
         return consumer.unregister();
     }
+
+    private static final class BatchRun {
+        private final JsonArray items;
+        private final List<Promise<Object>> results;
+        private int next;
+
+        BatchRun(JsonArray items, List<Promise<Object>> results) {
+            this.items = items;
+            this.results = results;
+        }
+    }
+
+    private static final class Queued {
+        private final Message<JsonObject> message;
+        private final ContextInternal context;
+
+        Queued(Message<JsonObject> message, ContextInternal context) {
+            this.message = message;
+            this.context = context;
+        }
+    }
+
+    private String[] gaugeTags(String address) {
+        return new String[]{"address", address, "action", executableMethod.getMethodName(), "handler", handlerId};
+    }
 }
@@ -0,0 +1,69 @@
+package cn.vtohru.message;
+
+import cn.vtohru.metrics.Counter;
+import cn.vtohru.metrics.Histogram;
+import cn.vtohru.metrics.MetricsRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class EventBusMetrics {
+    public static final String CLIENT = "eventbus.client";
+    public static final String CONSUMER = "eventbus.consumer";
+    public static final String PAYLOAD_SIZE_PROPERTY = "vtohru.metrics.payload-size";
+
+    private final Counter requests;
+    private final Counter failures;
+    private final Counter timeouts;
+    private final Histogram latency;
+    private final Histogram payload;
+
+    public EventBusMetrics(MetricsRegistry registry, String side, String address, String action, boolean payloadSize) {
+        String[] tags = {"address", address, "action", action};
+        this.requests = registry.counter(side + ".requests", tags);
+        this.failures = registry.counter(side + ".failures", tags);
+        this.timeouts = registry.counter(side + ".timeouts", tags);
+        this.latency = registry.histogram(side + ".latency", tags);
+        this.payload = payloadSize ? registry.histogram(side + ".payload", tags) : null;
+    }
+
+    public long start(Object body) {
+        requests.increment();
+        if (payload != null) {
+            payload.record(sizeOf(body));
+        }
+        return System.nanoTime();
+    }
+
+    public void end(long start, AsyncResult<?> ar) {
+        latency.record((System.nanoTime() - start) / 1000);
+        if (ar.failed()) {
+            failures.increment();
+            Throwable cause = ar.cause();
+            if (cause instanceof ReplyException && ((ReplyException) cause).failureType() == ReplyFailure.TIMEOUT) {
+                timeouts.increment();
+            }
+        }
+    }
+
+    public void failed(long start) {
+        latency.record((System.nanoTime() - start) / 1000);
+        failures.increment();
+    }
+
+    private static long sizeOf(Object body) {
+        if (body instanceof JsonObject) {
+            return ((JsonObject) body).toBuffer().length();
+        } else if (body instanceof JsonArray) {
+            return ((JsonArray) body).toBuffer().length();
+        } else if (body instanceof Buffer) {
+            return ((Buffer) body).length();
+        } else if (body instanceof String) {
+            return ((String) body).length();
+        }
+        return 0;
+    }
+}
@@ -2,8 +2,10 @@ package cn.vtohru.message;
 
 import cn.vtohru.context.VerticleApplicationContext;
 import cn.vtohru.message.annotation.MessageAddress;
+import cn.vtohru.message.annotation.MessageBatch;
 import cn.vtohru.message.annotation.MessageClient;
 import cn.vtohru.message.annotation.MessageType;
+import cn.vtohru.metrics.MetricsRegistry;
 import io.micronaut.aop.InterceptorBean;
 import io.micronaut.aop.MethodInterceptor;
 import io.micronaut.aop.MethodInvocationContext;
@@ -18,9 +20,11 @@ import io.vertx.core.eventbus.Message;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 
 import javax.inject.Singleton;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 @Singleton
@@ -28,9 +32,14 @@ import java.util.Map;
 public class MessageConsumerIntroductionAdvice implements MethodInterceptor<Object, Object>, AutoCloseable{
     private static final Logger logger = LoggerFactory.getLogger(MessageConsumerIntroductionAdvice.class);
     private VerticleApplicationContext applicationContext;
+    private MetricsRegistry metricsRegistry;
+    private boolean payloadSize;
+    private Map<String, EventBusMetrics> eventBusMetrics = new ConcurrentHashMap<>();
 
-    public MessageConsumerIntroductionAdvice(ApplicationContext applicationContext) {
+    public MessageConsumerIntroductionAdvice(ApplicationContext applicationContext, MetricsRegistry metricsRegistry) {
         this.applicationContext = (VerticleApplicationContext) applicationContext;
+        this.metricsRegistry = metricsRegistry;
+        this.payloadSize = applicationContext.getProperty(EventBusMetrics.PAYLOAD_SIZE_PROPERTY, Boolean.class).orElse(false);
     }
 
     @Override
@@ -53,35 +62,34 @@ public class MessageConsumerIntroductionAdvice implements MethodInterceptor<Obje
                     }
                 }
             }
-            DeliveryOptions deliveryOptions = new DeliveryOptions();
+            DeliveryOptions deliveryOptions = MessageTracing.inject(new DeliveryOptions());
             deliveryOptions.addHeader("action", context.getMethodName());
+            EventBusMetrics metrics = metrics(address, context.getMethodName());
+            long start = metrics.start(_json);
             if (msgType == MessageType.Type.PUBLISH) {
                 applicationContext.getVertx().eventBus().publish(address, _json, deliveryOptions);
+                metrics.end(start, Future.succeededFuture());
             } else if (msgType == MessageType.Type.P2P) {
-                applicationContext.getVertx().eventBus().send(address, _json);
+                applicationContext.getVertx().eventBus().send(address, _json, deliveryOptions);
+                metrics.end(start, Future.succeededFuture());
             } else if (msgType == MessageType.Type.REQUEST) {
-                if (Future.class.isAssignableFrom(context.getReturnType().getType())) {
-                    Promise<Object> promise = Promise.promise();
-                    applicationContext.getVertx().eventBus().request(address, _json, deliveryOptions, x -> {
-                        if (x.succeeded()) {
-                            Message<?> result = x.result();
-                            promise.complete(result.body());
-                        } else {
-                            promise.fail(x.cause());
-                        }
-                    });
-                    return promise.future();
+                if (ReadStream.class.isAssignableFrom(context.getReturnType().getType())) {
+                    Class<?> elementType = context.getReturnType().asArgument().getFirstTypeVariable().map(Argument::getType).orElse(null);
+                    MessageReadStream<?> stream = new MessageReadStream<>(applicationContext.getVertx(), elementType);
+                    stream.completionHandler(ar -> metrics.end(start, ar));
+                    applicationContext.getVertx().eventBus().request(address, _json, stream.deliveryOptions(deliveryOptions), stream::open);
+                    return stream;
+                } else if (Future.class.isAssignableFrom(context.getReturnType().getType())) {
+                    Future<Object> future = request(context, address, _json, deliveryOptions);
+                    future.onComplete(ar -> metrics.end(start, ar));
+                    return future;
                 } else if (arguments.length > 0) {
                     Object lastParam = parameters.get(arguments[arguments.length - 1].getName());
                     if (lastParam instanceof Handler) {
                         Handler handler = (Handler) lastParam;
-                        applicationContext.getVertx().eventBus().request(address, _json, deliveryOptions, x -> {
-                            if (x.succeeded()) {
-                                Message<?> result = x.result();
-                                handler.handle(Future.succeededFuture(result.body()));
-                            } else {
-                                handler.handle(Future.failedFuture(x.cause()));
-                            }
+                        request(context, address, _json, deliveryOptions).onComplete(ar -> {
+                            metrics.end(start, ar);
+                            handler.handle(ar);
                         });
                     } else {
                         throw new IllegalStateException("method last params must be handler or return type is Future");
@@ -94,6 +102,35 @@ public class MessageConsumerIntroductionAdvice implements MethodInterceptor<Obje
         return null;
     }
 
+    private EventBusMetrics metrics(String address, String action) {
+        String key = address + '#' + action;
+        EventBusMetrics metrics = eventBusMetrics.get(key);
+        if (metrics == null) {
+            metrics = eventBusMetrics.computeIfAbsent(key, k -> new EventBusMetrics(metricsRegistry, EventBusMetrics.CLIENT, address, action, payloadSize));
+        }
+        return metrics;
+    }
+
+    private Future<Object> request(MethodInvocationContext<Object, Object> context, String address, JsonObject body, DeliveryOptions deliveryOptions) {
+        AnnotationValue<MessageBatch> batch = context.getAnnotation(MessageBatch.class);
+        if (batch != null) {
+            MessageRequestBatcher batcher = MessageRequestBatcher.current(applicationContext.getVertx());
+            if (batcher != null) {
+                return batcher.request(address, body, deliveryOptions, batch.intValue("size").orElse(32), batch.longValue("window").orElse(0L));
+            }
+        }
+        Promise<Object> promise = Promise.promise();
+        applicationContext.getVertx().eventBus().request(address, body, deliveryOptions, x -> {
+            if (x.succeeded()) {
+                Message<?> result = x.result();
+                promise.complete(result.body());
+            } else {
+                promise.fail(x.cause());
+            }
+        });
+        return promise.future();
+    }
+
     @Override
     public void close() throws Exception {
 
@@ -0,0 +1,14 @@
+package cn.vtohru.message;
+
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+public interface MessageInterceptor {
+    Future<Void> preHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message);
+
+    Future<Void> afterHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, AsyncResult<Object> asyncResult);
+}
@@ -0,0 +1,162 @@
+package cn.vtohru.message;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import io.micronaut.core.order.OrderUtil;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class MessageInterceptorChain {
+    private static final Logger logger = LoggerFactory.getLogger(MessageInterceptorChain.class);
+    public static final MessageInterceptorChain EMPTY = new MessageInterceptorChain(new MessageInterceptor[0]);
+    private final MessageInterceptor[] interceptors;
+
+    public MessageInterceptorChain(MessageInterceptor[] interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    public static MessageInterceptorChain create(VerticleApplicationContext context) {
+        List<MessageInterceptor> scoped = new ArrayList<>();
+        for (MessageInterceptor interceptor : context.getBeansOfType(MessageInterceptor.class)) {
+            if (!context.isNull(interceptor)) {
+                scoped.add(interceptor);
+            }
+        }
+        if (scoped.isEmpty()) {
+            return EMPTY;
+        }
+        OrderUtil.sort(scoped);
+        return new MessageInterceptorChain(scoped.toArray(new MessageInterceptor[0]));
+    }
+
+    public boolean isEmpty() {
+        return interceptors.length == 0;
+    }
+
+    public Future<Object> execute(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, Function<Message<JsonObject>, Future<Object>> target) {
+        if (interceptors.length == 0) {
+            return target.apply(message);
+        }
+        Invocation invocation = new Invocation(beanDefinition, method, message, target);
+        invocation.proceed();
+        return invocation.promise.future();
+    }
+
+    private static final int PRE = 0;
+    private static final int TARGET = 1;
+    private static final int AFTER = 2;
+
+    private final class Invocation implements Handler<AsyncResult<Object>> {
+        private final BeanDefinition<?> beanDefinition;
+        private final ExecutableMethod<Object, ?> method;
+        private final Message<JsonObject> message;
+        private final Function<Message<JsonObject>, Future<Object>> target;
+        private final Promise<Object> promise = Promise.promise();
+        private int entered;
+        private int phase = PRE;
+        private AsyncResult<Object> result;
+
+        Invocation(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, Function<Message<JsonObject>, Future<Object>> target) {
+            this.beanDefinition = beanDefinition;
+            this.method = method;
+            this.message = message;
+            this.target = target;
+        }
+
+        @Override
+        public void handle(AsyncResult<Object> ar) {
+            if (phase == TARGET) {
+                result = ar;
+                phase = AFTER;
+                complete();
+            } else if (phase == AFTER) {
+                if (ar.failed()) {
+                    logger.warn("message interceptor afterHandler failed", ar.cause());
+                }
+                complete();
+            } else if (ar.failed()) {
+                reject(ar.cause());
+            } else {
+                proceed();
+            }
+        }
+
+        private void proceed() {
+            while (entered < interceptors.length) {
+                MessageInterceptor interceptor = interceptors[entered++];
+                Future<Void> future;
+                try {
+                    future = interceptor.preHandler(beanDefinition, method, message);
+                } catch (Exception e) {
+                    future = Future.failedFuture(e);
+                }
+                if (future == null) {
+                    future = Future.failedFuture(new IllegalStateException(interceptor.getClass().getName() + ".preHandler returned null"));
+                }
+                if (!future.isComplete()) {
+                    future.onComplete((Handler) this);
+                    return;
+                }
+                if (future.failed()) {
+                    reject(future.cause());
+                    return;
+                }
+            }
+            Future<Object> future;
+            try {
+                future = target.apply(message);
+            } catch (Exception e) {
+                future = Future.failedFuture(e);
+            }
+            if (future == null) {
+                future = Future.succeededFuture();
+            }
+            phase = TARGET;
+            future.onComplete(this);
+        }
+
+        private void reject(Throwable cause) {
+            int failureCode = cause instanceof ReplyException ? ((ReplyException) cause).failureCode() : 403;
+            message.fail(failureCode, cause.getMessage());
+            result = Future.failedFuture(cause);
+            phase = AFTER;
+            complete();
+        }
+
+        private void complete() {
+            while (entered > 0) {
+                MessageInterceptor interceptor = interceptors[--entered];
+                Future<Void> future;
+                try {
+                    future = interceptor.afterHandler(beanDefinition, method, message, result);
+                } catch (Exception e) {
+                    logger.warn("message interceptor afterHandler failed", e);
+                    continue;
+                }
+                if (future == null) {
+                    continue;
+                }
+                if (!future.isComplete()) {
+                    future.onComplete((Handler) this);
+                    return;
+                }
+                if (future.failed()) {
+                    logger.warn("message interceptor afterHandler failed", future.cause());
+                }
+            }
+            promise.handle(result);
+        }
+    }
+}
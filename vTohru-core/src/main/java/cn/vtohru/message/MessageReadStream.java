@@ -0,0 +1,248 @@
+package cn.vtohru.message;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.impl.InboundBuffer;
+
+import java.util.UUID;
+
+/**
+ * Client side of a streamed reply. Items are fetched from the producer by credits, and the stream fails with a
+ * {@link ReplyFailure#TIMEOUT} when the producer sends nothing for the idle timeout while the reader waits on it.
+ */
+public class MessageReadStream<T> implements ReadStream<T> {
+    public static final int DEFAULT_PREFETCH = 256;
+
+    private final Vertx vertx;
+    private final Class<T> elementType;
+    private final int prefetch;
+    private final String address;
+    private final InboundBuffer<T> buffer;
+    private final MessageConsumer<Object> consumer;
+    private final long idleTimeout;
+    private TimingWheel.Timeout idleTimer;
+    private long lastActivity;
+    private String control;
+    private int consumed;
+    private boolean ended;
+    private boolean closed;
+    private Handler<T> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private Handler<AsyncResult<Void>> completionHandler;
+
+    public MessageReadStream(Vertx vertx, Class<T> elementType) {
+        this(vertx, elementType, DEFAULT_PREFETCH);
+    }
+
+    public MessageReadStream(Vertx vertx, Class<T> elementType, int prefetch) {
+        this(vertx, elementType, prefetch, MessageStreamProducer.IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param idleTimeout milliseconds without any item from the producer before the stream fails, 0 to wait forever
+     */
+    public MessageReadStream(Vertx vertx, Class<T> elementType, int prefetch, long idleTimeout) {
+        this.vertx = vertx;
+        this.idleTimeout = idleTimeout;
+        this.elementType = elementType;
+        this.prefetch = Math.max(2, prefetch);
+        this.address = MessageStreamProducer.STREAM_ADDRESS_PREFIX + UUID.randomUUID();
+        Context context = vertx.getOrCreateContext();
+        this.buffer = new InboundBuffer<>(context, this.prefetch);
+        this.buffer.handler(this::deliver);
+        this.consumer = vertx.eventBus().consumer(address, this::receive);
+        touch();
+    }
+
+    public String address() {
+        return address;
+    }
+
+    /**
+     * Told once when the stream ended, failed or was cancelled, independently of the handlers the reader sets.
+     */
+    public MessageReadStream<T> completionHandler(Handler<AsyncResult<Void>> completionHandler) {
+        this.completionHandler = completionHandler;
+        return this;
+    }
+
+    public DeliveryOptions deliveryOptions(DeliveryOptions deliveryOptions) {
+        return deliveryOptions.addHeader(MessageStreamProducer.STREAM_HEADER, address);
+    }
+
+    public void open(AsyncResult<? extends Message<?>> reply) {
+        if (reply.failed()) {
+            fail(reply.cause());
+            return;
+        }
+        Object body = reply.result().body();
+        if (!(body instanceof JsonObject) || ((JsonObject) body).getString(MessageStreamProducer.CONTROL) == null) {
+            fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, "listener did not open a stream"));
+            return;
+        }
+        control = ((JsonObject) body).getString(MessageStreamProducer.CONTROL);
+        if (closed) {
+            cancel();
+        } else {
+            touch();
+            credit(prefetch);
+        }
+    }
+
+    public void cancel() {
+        if (control != null) {
+            vertx.eventBus().send(control, new JsonObject().put(MessageStreamProducer.CANCEL, true));
+        }
+        close(Future.succeededFuture());
+    }
+
+    private void receive(Message<Object> message) {
+        touch();
+        String type = message.headers().get(MessageStreamProducer.STREAM_TYPE_HEADER);
+        if (MessageStreamProducer.TYPE_ITEM.equals(type)) {
+            buffer.write(decode(message.body()));
+        } else if (MessageStreamProducer.TYPE_END.equals(type)) {
+            ended = true;
+            if (buffer.isEmpty()) {
+                end();
+            } else {
+                buffer.emptyHandler(v -> end());
+            }
+        } else if (MessageStreamProducer.TYPE_ERROR.equals(type)) {
+            fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, String.valueOf(message.body())));
+        }
+    }
+
+    private void deliver(T item) {
+        Handler<T> handler = this.handler;
+        if (handler != null) {
+            handler.handle(item);
+        }
+        if (!ended && ++consumed >= prefetch / 2) {
+            credit(consumed);
+            consumed = 0;
+        }
+    }
+
+    private void credit(long credits) {
+        if (control != null && !closed) {
+            vertx.eventBus().send(control, new JsonObject().put(MessageStreamProducer.CREDIT, credits));
+        }
+    }
+
+    private void touch() {
+        lastActivity = System.nanoTime();
+        if (idleTimer == null && idleTimeout > 0 && !closed) {
+            idleTimer = TimingWheel.current(vertx).schedule(idleTimeout, this::checkIdle);
+        }
+    }
+
+    private void checkIdle(Void v) {
+        idleTimer = null;
+        if (closed) {
+            return;
+        }
+        if (!buffer.isEmpty()) {
+            // the reader holds items back, the producer is waiting on credits
+            touch();
+            return;
+        }
+        long idle = (System.nanoTime() - lastActivity) / 1000000;
+        if (idle < idleTimeout) {
+            idleTimer = TimingWheel.current(vertx).schedule(idleTimeout - idle, this::checkIdle);
+            return;
+        }
+        if (control != null) {
+            vertx.eventBus().send(control, new JsonObject().put(MessageStreamProducer.CANCEL, true));
+        }
+        fail(new ReplyException(ReplyFailure.TIMEOUT, "stream " + address + " idle for " + idleTimeout + "ms"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(Object body) {
+        if (body == null || elementType == null || elementType.isInstance(body)) {
+            return (T) body;
+        }
+        if (body instanceof JsonObject) {
+            return ((JsonObject) body).mapTo(elementType);
+        }
+        return (T) body;
+    }
+
+    private void end() {
+        Handler<Void> endHandler = this.endHandler;
+        close(Future.succeededFuture());
+        if (endHandler != null) {
+            endHandler.handle(null);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        Handler<Throwable> exceptionHandler = this.exceptionHandler;
+        close(Future.failedFuture(cause));
+        if (exceptionHandler != null) {
+            exceptionHandler.handle(cause);
+        }
+    }
+
+    private void close(AsyncResult<Void> result) {
+        if (!closed) {
+            closed = true;
+            if (idleTimer != null) {
+                idleTimer.cancel();
+                idleTimer = null;
+            }
+            consumer.unregister();
+            if (completionHandler != null) {
+                completionHandler.handle(result);
+            }
+        }
+    }
+
+    @Override
+    public ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> handler(Handler<T> handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> pause() {
+        buffer.pause();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> resume() {
+        buffer.resume();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> fetch(long amount) {
+        buffer.fetch(amount);
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+}
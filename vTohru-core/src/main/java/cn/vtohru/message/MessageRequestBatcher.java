@@ -0,0 +1,144 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Coalesces the REQUEST calls of one event loop into envelopes. Only calls whose delivery options agree on everything
+ * but the timeout share an envelope, which is sent with the smallest timeout of its callers.
+ */
+public class MessageRequestBatcher {
+    public static final String BATCH_HEADER = "vtohru.batch";
+    public static final String BATCH_ITEMS = "items";
+    public static final String BATCH_RESULT = "result";
+    public static final String BATCH_FAILURE_CODE = "failureCode";
+    public static final String BATCH_FAILURE_MESSAGE = "message";
+    private static final String BATCHER_ATTRIBUTE = "CN.VTOHRU.MESSAGE_BATCHER";
+
+    private final Vertx vertx;
+    private final Context context;
+    private final Map<String, PendingBatch> pending = new HashMap<>();
+
+    private MessageRequestBatcher(Vertx vertx, Context context) {
+        this.vertx = vertx;
+        this.context = context;
+    }
+
+    public static MessageRequestBatcher current(Vertx vertx) {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return null;
+        }
+        MessageRequestBatcher batcher = context.get(BATCHER_ATTRIBUTE);
+        if (batcher == null) {
+            batcher = new MessageRequestBatcher(vertx, context);
+            context.put(BATCHER_ATTRIBUTE, batcher);
+        }
+        return batcher;
+    }
+
+    public Future<Object> request(String address, JsonObject body, DeliveryOptions deliveryOptions, int size, long windowMicros) {
+        String key = address + '#' + compatibility(deliveryOptions);
+        PendingBatch batch = pending.get(key);
+        if (batch == null) {
+            batch = new PendingBatch(key, address, deliveryOptions, size);
+            pending.put(key, batch);
+            schedule(batch, windowMicros);
+        } else if (deliveryOptions.getSendTimeout() < batch.deliveryOptions.getSendTimeout()) {
+            batch.deliveryOptions.setSendTimeout(deliveryOptions.getSendTimeout());
+        }
+        Promise<Object> promise = Promise.promise();
+        batch.items.add(body);
+        batch.promises.add(promise);
+        if (batch.items.size() >= size) {
+            flush(batch);
+        }
+        return promise.future();
+    }
+
+    private void schedule(PendingBatch batch, long windowMicros) {
+        long delay = windowMicros / 1000;
+        if (delay <= 0) {
+            context.runOnContext(v -> flush(batch));
+        } else {
+            vertx.setTimer(delay, id -> flush(batch));
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        if (batch.flushed) {
+            return;
+        }
+        batch.flushed = true;
+        pending.remove(batch.key, batch);
+        DeliveryOptions deliveryOptions = new DeliveryOptions(batch.deliveryOptions).addHeader(BATCH_HEADER, String.valueOf(batch.items.size()));
+        JsonObject envelope = new JsonObject().put(BATCH_ITEMS, new JsonArray(batch.items));
+        vertx.eventBus().<JsonArray>request(batch.address, envelope, deliveryOptions, ar -> {
+            if (ar.failed()) {
+                for (Promise<Object> promise : batch.promises) {
+                    promise.fail(ar.cause());
+                }
+                return;
+            }
+            JsonArray results = ar.result().body();
+            for (int i = 0; i < batch.promises.size(); i++) {
+                Promise<Object> promise = batch.promises.get(i);
+                JsonObject result = results == null ? null : results.getJsonObject(i);
+                if (result == null) {
+                    promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, "missing batch reply " + i));
+                } else if (result.containsKey(BATCH_FAILURE_CODE)) {
+                    promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, result.getInteger(BATCH_FAILURE_CODE), result.getString(BATCH_FAILURE_MESSAGE)));
+                } else {
+                    promise.complete(result.getValue(BATCH_RESULT));
+                }
+            }
+        });
+    }
+
+    private static String compatibility(DeliveryOptions deliveryOptions) {
+        StringBuilder key = new StringBuilder()
+                .append(deliveryOptions.getCodecName()).append('|')
+                .append(deliveryOptions.isLocalOnly()).append('|')
+                .append(deliveryOptions.getTracingPolicy());
+        MultiMap headers = deliveryOptions.getHeaders();
+        if (headers != null && !headers.isEmpty()) {
+            Map<String, List<String>> sorted = new TreeMap<>();
+            for (String name : headers.names()) {
+                sorted.put(name, headers.getAll(name));
+            }
+            key.append('|').append(sorted);
+        }
+        return key.toString();
+    }
+
+    private static class PendingBatch {
+        private final String key;
+        private final String address;
+        private final DeliveryOptions deliveryOptions;
+        private final List<JsonObject> items;
+        private final List<Promise<Object>> promises;
+        private boolean flushed;
+
+        PendingBatch(String key, String address, DeliveryOptions deliveryOptions, int size) {
+            this.key = key;
+            this.address = address;
+            this.deliveryOptions = new DeliveryOptions(deliveryOptions);
+            this.items = new ArrayList<>(size);
+            this.promises = new ArrayList<>(size);
+        }
+    }
+}
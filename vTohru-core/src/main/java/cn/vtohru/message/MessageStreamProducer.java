@@ -0,0 +1,157 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.UUID;
+
+public class MessageStreamProducer {
+    private static final Logger logger = LoggerFactory.getLogger(MessageStreamProducer.class);
+    public static final String STREAM_HEADER = "vtohru.stream";
+    public static final String STREAM_TYPE_HEADER = "vtohru.stream.type";
+    public static final String STREAM_ADDRESS_PREFIX = "vtohru.stream.";
+    public static final String TYPE_ITEM = "item";
+    public static final String TYPE_END = "end";
+    public static final String TYPE_ERROR = "error";
+    public static final String CONTROL = "control";
+    public static final String CREDIT = "credit";
+    public static final String CANCEL = "cancel";
+    public static final long IDLE_TIMEOUT = 60000;
+
+    private final Vertx vertx;
+    private final ReadStream<Object> source;
+    private final String sink;
+    private final Promise<Void> done = Promise.promise();
+    private MessageConsumer<JsonObject> control;
+    private TimingWheel.Timeout idleTimeout;
+    private long lastActivity;
+
+    private MessageStreamProducer(Vertx vertx, ReadStream<Object> source, String sink) {
+        this.vertx = vertx;
+        this.source = source;
+        this.sink = sink;
+    }
+
+    public static boolean isStreamRequest(Message<?> message) {
+        return message.headers().contains(STREAM_HEADER);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Future<Void> reply(Vertx vertx, Message<?> request, ReadStream<?> stream) {
+        String sink = request.headers().get(STREAM_HEADER);
+        if (sink == null) {
+            request.fail(500, "streaming reply requires a streaming client");
+            return Future.succeededFuture();
+        }
+        if (stream == null) {
+            request.fail(500, "stream not available");
+            return Future.succeededFuture();
+        }
+        MessageStreamProducer producer = new MessageStreamProducer(vertx, (ReadStream<Object>) stream, sink);
+        producer.start(request);
+        return producer.done.future();
+    }
+
+    private void start(Message<?> request) {
+        String address = STREAM_ADDRESS_PREFIX + UUID.randomUUID();
+        source.pause();
+        source.handler(item -> vertx.eventBus().send(sink, encode(item), options(TYPE_ITEM)));
+        source.exceptionHandler(e -> {
+            vertx.eventBus().send(sink, e.getMessage() == null ? e.getClass().getName() : e.getMessage(), options(TYPE_ERROR));
+            close(true);
+        });
+        source.endHandler(v -> {
+            vertx.eventBus().send(sink, null, options(TYPE_END));
+            close(true);
+        });
+        control = vertx.eventBus().consumer(address, this::handleControl);
+        control.completionHandler(ar -> {
+            if (ar.succeeded()) {
+                request.reply(new JsonObject().put(CONTROL, address));
+                touch();
+            } else {
+                request.fail(500, ar.cause().getMessage());
+                close(false);
+            }
+        });
+    }
+
+    private void handleControl(Message<JsonObject> message) {
+        JsonObject body = message.body();
+        if (body.getBoolean(CANCEL, false)) {
+            close(false);
+            return;
+        }
+        Long credit = body.getLong(CREDIT);
+        if (credit != null && credit > 0) {
+            touch();
+            source.fetch(credit);
+        }
+    }
+
+    private void touch() {
+        lastActivity = System.nanoTime();
+        if (idleTimeout == null) {
+            idleTimeout = TimingWheel.current(vertx).schedule(IDLE_TIMEOUT, this::checkIdle);
+        }
+    }
+
+    private void checkIdle(Void v) {
+        long idle = (System.nanoTime() - lastActivity) / 1000000;
+        if (idle < IDLE_TIMEOUT) {
+            idleTimeout = TimingWheel.current(vertx).schedule(IDLE_TIMEOUT - idle, this::checkIdle);
+            return;
+        }
+        logger.warn("stream to " + sink + " idle for " + IDLE_TIMEOUT + "ms, closing");
+        idleTimeout = null;
+        close(false);
+    }
+
+    /**
+     * @param finished whether the source ended or failed by itself; otherwise it is abandoned with a {@code null}
+     *                 handler, so that what backs it, such as a database cursor, is released
+     */
+    private void close(boolean finished) {
+        if (done.future().isComplete()) {
+            return;
+        }
+        if (idleTimeout != null) {
+            idleTimeout.cancel();
+            idleTimeout = null;
+        }
+        source.pause();
+        if (!finished) {
+            try {
+                source.handler(null);
+            } catch (RuntimeException e) {
+                logger.warn("failed to release the stream to " + sink, e);
+            }
+        }
+        if (control != null) {
+            control.unregister();
+        }
+        done.complete();
+    }
+
+    private static DeliveryOptions options(String type) {
+        return new DeliveryOptions().addHeader(STREAM_TYPE_HEADER, type);
+    }
+
+    static Object encode(Object item) {
+        if (item == null || item instanceof JsonObject || item instanceof JsonArray || item instanceof String
+                || item instanceof Number || item instanceof Boolean || item instanceof Buffer || item instanceof byte[]) {
+            return item;
+        }
+        return JsonObject.mapFrom(item);
+    }
+}
@@ -0,0 +1,66 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Context;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.impl.ContextInternal;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Propagates a W3C {@code traceparent} through event-bus headers. The received context is kept in the
+ * local data of the (duplicated) context a message is dispatched on, so calls made while handling it join the trace.
+ */
+public final class MessageTracing {
+    public static final String TRACEPARENT = "traceparent";
+    private static final String TRACE_KEY = "vtohru.traceparent";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private MessageTracing() {
+    }
+
+    public static DeliveryOptions inject(DeliveryOptions deliveryOptions) {
+        String parent = current();
+        String traceId = parent != null && parent.length() >= 35 ? parent.substring(3, 35) : randomHex(16);
+        deliveryOptions.addHeader(TRACEPARENT, "00-" + traceId + "-" + randomHex(8) + "-01");
+        return deliveryOptions;
+    }
+
+    public static String extract(Message<?> message) {
+        return extract(message.headers());
+    }
+
+    public static String extract(MultiMap headers) {
+        String traceparent = headers.get(TRACEPARENT);
+        Context context = Vertx.currentContext();
+        if (traceparent != null && context instanceof ContextInternal) {
+            ((ContextInternal) context).localContextData().put(TRACE_KEY, traceparent);
+        }
+        return traceparent;
+    }
+
+    public static String current() {
+        Context context = Vertx.currentContext();
+        if (context instanceof ContextInternal) {
+            return (String) ((ContextInternal) context).localContextData().get(TRACE_KEY);
+        }
+        return null;
+    }
+
+    public static String traceId(String traceparent) {
+        return traceparent == null || traceparent.length() < 35 ? null : traceparent.substring(3, 35);
+    }
+
+    private static String randomHex(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[bytes * 2];
+        for (int i = 0; i < chars.length; i += 2) {
+            int b = random.nextInt(256);
+            chars[i] = HEX[b >>> 4];
+            chars[i + 1] = HEX[b & 0xf];
+        }
+        return new String(chars);
+    }
+}
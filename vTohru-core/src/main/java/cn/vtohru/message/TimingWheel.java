@@ -0,0 +1,196 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical timing wheel shared by every idle timeout of one context (and its duplicates). Four levels of 64 slots
+ * cover 64^4 ticks; scheduling, cancelling and expiring are O(1) and a single periodic timer drives
+ * the wheel while it holds timeouts. Every operation runs on the owning context.
+ */
+public class TimingWheel {
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+    private static final String WHEEL_ATTRIBUTE = "CN.VTOHRU.TIMING_WHEEL";
+    public static final long TICK_MILLIS = 100;
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final Vertx vertx;
+    private final ContextInternal context;
+    private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private final long origin = System.nanoTime();
+    private final Timeout[][] slots = new Timeout[LEVELS][WHEEL_SIZE];
+    private long now;
+    private int size;
+    private long timerId = -1;
+
+    private TimingWheel(Vertx vertx, ContextInternal context) {
+        this.vertx = vertx;
+        this.context = context;
+    }
+
+    public static TimingWheel current(Vertx vertx) {
+        ContextInternal context = (ContextInternal) vertx.getOrCreateContext();
+        TimingWheel wheel = context.get(WHEEL_ATTRIBUTE);
+        if (wheel == null) {
+            wheel = new TimingWheel(vertx, context);
+            context.put(WHEEL_ATTRIBUTE, wheel);
+        }
+        return wheel;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Timeout schedule(long delayMillis, Handler<Void> handler) {
+        Timeout timeout = new Timeout(this, handler);
+        execute(() -> {
+            if (!timeout.cancelled) {
+                if (size == 0) {
+                    now = elapsedTicks();
+                }
+                timeout.deadline = now + Math.max(1, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+                add(timeout);
+                size++;
+                start();
+            }
+        });
+        return timeout;
+    }
+
+    private void execute(Runnable action) {
+        ContextInternal current = (ContextInternal) Vertx.currentContext();
+        if (current != null && current.contextData() == context.contextData()) {
+            action.run();
+        } else {
+            context.runOnContext(v -> action.run());
+        }
+    }
+
+    private long elapsedTicks() {
+        return (System.nanoTime() - origin) / tickNanos;
+    }
+
+    private void start() {
+        if (timerId == -1) {
+            timerId = context.setPeriodic(TICK_MILLIS, id -> advance());
+        }
+    }
+
+    private void advance() {
+        long target = elapsedTicks();
+        while (now < target && size > 0) {
+            tick();
+        }
+        if (size == 0) {
+            now = target;
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    private void tick() {
+        now++;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            int slot = (int) (now >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+            Timeout head = slots[level][slot];
+            slots[level][slot] = null;
+            while (head != null) {
+                Timeout next = head.next;
+                head.prev = head.next = null;
+                add(head);
+                head = next;
+            }
+        }
+        int slot = (int) now & WHEEL_MASK;
+        Timeout head = slots[0][slot];
+        slots[0][slot] = null;
+        while (head != null) {
+            Timeout next = head.next;
+            head.prev = head.next = null;
+            if (head.deadline > now) {
+                add(head);
+            } else {
+                head.level = -1;
+                size--;
+                if (!head.cancelled) {
+                    try {
+                        head.handler.handle(null);
+                    } catch (Exception e) {
+                        logger.warn("timeout handler failed", e);
+                    }
+                }
+            }
+            head = next;
+        }
+    }
+
+    private void add(Timeout timeout) {
+        long delta = timeout.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        long deadline = Math.max(timeout.deadline, now);
+        int slot = (int) (deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        timeout.level = level;
+        timeout.slot = slot;
+        Timeout head = slots[level][slot];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[level][slot] = timeout;
+    }
+
+    private void remove(Timeout timeout) {
+        if (timeout.level < 0) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = timeout.next = null;
+        timeout.level = -1;
+        size--;
+    }
+
+    public static final class Timeout {
+        private final TimingWheel wheel;
+        private final Handler<Void> handler;
+        private long deadline;
+        private int level = -1;
+        private int slot;
+        private Timeout prev;
+        private Timeout next;
+        private volatile boolean cancelled;
+
+        private Timeout(TimingWheel wheel, Handler<Void> handler) {
+            this.wheel = wheel;
+            this.handler = handler;
+        }
+
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                wheel.execute(() -> wheel.remove(this));
+            }
+        }
+    }
+}
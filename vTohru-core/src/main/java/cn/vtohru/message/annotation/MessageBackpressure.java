@@ -0,0 +1,27 @@
+package cn.vtohru.message.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Bounds the work a {@link MessageListener} method accepts: at most {@link #maxInFlight()} invocations run
+ * concurrently and at most {@link #maxQueue()} messages wait for a slot, beyond that {@link #overflow()} applies.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({METHOD})
+public @interface MessageBackpressure {
+    int maxInFlight() default 64;
+
+    int maxQueue() default 1024;
+
+    Overflow overflow() default Overflow.PAUSE;
+
+    enum Overflow {
+        DROP_OLDEST, REJECT, PAUSE
+    }
+}
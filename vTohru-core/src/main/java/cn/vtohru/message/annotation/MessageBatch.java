@@ -0,0 +1,26 @@
+package cn.vtohru.message.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Coalesces REQUEST calls to the same address into a single envelope.
+ * The batch is flushed once {@link #size()} calls are pending or the {@link #window()} (microseconds) elapses,
+ * a window below one millisecond flushes at the end of the current event-loop turn.
+ * Calls with different delivery headers, codec or locality go in separate envelopes; an envelope times out with the
+ * smallest send timeout of its calls.
+ * On a listener bounded by {@link MessageBackpressure} every call of an envelope takes its own in-flight slot, the
+ * calls that find no free slot run as the envelope's earlier calls complete.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({METHOD})
+public @interface MessageBatch {
+    int size() default 32;
+
+    long window() default 0;
+}
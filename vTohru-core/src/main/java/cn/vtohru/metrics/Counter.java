@@ -0,0 +1,26 @@
+package cn.vtohru.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements Meter {
+    private final LongAdder adder = new LongAdder();
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long amount) {
+        adder.add(amount);
+    }
+
+    public long count() {
+        return adder.sum();
+    }
+
+    @Override
+    public JsonObject snapshot() {
+        return new JsonObject().put("count", count());
+    }
+}
@@ -0,0 +1,22 @@
+package cn.vtohru.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.function.Supplier;
+
+public class Gauge implements Meter {
+    private final Supplier<? extends Number> supplier;
+
+    public Gauge(Supplier<? extends Number> supplier) {
+        this.supplier = supplier;
+    }
+
+    public Number value() {
+        return supplier.get();
+    }
+
+    @Override
+    public JsonObject snapshot() {
+        return new JsonObject().put("value", value());
+    }
+}
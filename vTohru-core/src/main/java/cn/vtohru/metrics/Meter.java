@@ -0,0 +1,7 @@
+package cn.vtohru.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+public interface Meter {
+    JsonObject snapshot();
+}
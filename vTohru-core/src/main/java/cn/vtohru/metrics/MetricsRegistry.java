@@ -0,0 +1,68 @@
+package cn.vtohru.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Singleton
+public class MetricsRegistry {
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String... tags) {
+        return register(name, tags, Counter.class, k -> new Counter());
+    }
+
+    public Histogram histogram(String name, String... tags) {
+        return register(name, tags, Histogram.class, k -> new Histogram());
+    }
+
+    public Gauge gauge(String name, Supplier<? extends Number> supplier, String... tags) {
+        return register(name, tags, Gauge.class, k -> new Gauge(supplier));
+    }
+
+    public void remove(String name, String... tags) {
+        meters.remove(key(name, tags));
+    }
+
+    public JsonObject snapshot() {
+        JsonObject snapshot = new JsonObject();
+        for (Map.Entry<String, Meter> entry : new TreeMap<>(meters).entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    private <M extends Meter> M register(String name, String[] tags, Class<M> type, Function<String, M> factory) {
+        String key = key(name, tags);
+        Meter meter = meters.get(key);
+        if (meter == null) {
+            meter = meters.computeIfAbsent(key, factory);
+        }
+        if (!type.isInstance(meter)) {
+            throw new IllegalStateException("meter " + key + " already registered as " + meter.getClass().getSimpleName());
+        }
+        return type.cast(meter);
+    }
+
+    static String key(String name, String[] tags) {
+        if (tags == null || tags.length == 0) {
+            return name;
+        }
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("tags must be key/value pairs: " + name);
+        }
+        StringBuilder builder = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,64 @@
+package cn.vtohru.microservice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private volatile int failureThreshold;
+    private volatile long resetTimeoutNanos;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long resetTimeoutMillis) {
+        configure(failureThreshold, resetTimeoutMillis);
+    }
+
+    public void configure(int failureThreshold, long resetTimeoutMillis) {
+        this.failureThreshold = failureThreshold;
+        this.resetTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(resetTimeoutMillis);
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= resetTimeoutNanos) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        failures.set(0);
+        if (state.get() != State.CLOSED) {
+            state.set(State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        } else if (current == State.CLOSED && failures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        openedAt = System.nanoTime();
+        if (state.compareAndSet(from, State.OPEN)) {
+            failures.set(0);
+        }
+    }
+}
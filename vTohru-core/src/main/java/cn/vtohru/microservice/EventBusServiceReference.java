@@ -5,9 +5,7 @@ import io.micronaut.context.ApplicationContext;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.servicediscovery.Record;
-import io.vertx.servicediscovery.ServiceDiscovery;
 import io.vertx.servicediscovery.types.AbstractServiceReference;
-import io.vertx.servicediscovery.utils.ClassLoaderUtils;
 
 import java.util.Objects;
 
@@ -15,11 +13,12 @@ public class EventBusServiceReference<T> extends AbstractServiceReference<T> {
 
     private final DeliveryOptions deliveryOptions;
     private final String serviceInterface;
-    private VerticleApplicationContext verticleApplicationContext;
+    private final String proxyKey;
+    private final MicroServiceDiscovery discovery;
 
-    EventBusServiceReference(ApplicationContext verticleApplicationContext, ServiceDiscovery discovery, Record record, JsonObject conf) {
+    EventBusServiceReference(ApplicationContext verticleApplicationContext, MicroServiceDiscovery discovery, Record record, JsonObject conf) {
         super(((VerticleApplicationContext)verticleApplicationContext).getVertx(), discovery, record);
-        this.verticleApplicationContext = (VerticleApplicationContext) verticleApplicationContext;
+        this.discovery = discovery;
         this.serviceInterface = record.getMetadata().getString("service.interface");
         if (conf != null) {
             this.deliveryOptions = new DeliveryOptions(conf);
@@ -28,14 +27,10 @@ public class EventBusServiceReference<T> extends AbstractServiceReference<T> {
         }
 
         Objects.requireNonNull(this.serviceInterface);
+        this.proxyKey = this.deliveryOptions == null ? this.serviceInterface : this.serviceInterface + '#' + this.deliveryOptions.toJson().encode();
     }
 
-    public synchronized T retrieve() {
-        Class<T> itf = ClassLoaderUtils.load(this.serviceInterface, this.getClass().getClassLoader());
-        if (itf == null) {
-            throw new IllegalStateException("Cannot load class " + this.serviceInterface);
-        } else {
-            return this.verticleApplicationContext.createBean(itf);
-        }
+    public T retrieve() {
+        return discovery.proxy(this.proxyKey, this.serviceInterface);
     }
 }
@@ -0,0 +1,79 @@
+package cn.vtohru.microservice;
+
+import cn.vtohru.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedging state of one service method: a two-generation latency window and a token bucket that
+ * earns {@code maxExtraLoad / 100} of a hedge per request.
+ */
+public class Hedging {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int MIN_SAMPLES = 20;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final double percentile;
+    private final long earn;
+    private final long minDelay;
+    private final AtomicLong tokens = new AtomicLong();
+    private volatile Histogram current = new Histogram();
+    private volatile Histogram previous = new Histogram();
+    private volatile long windowStart = System.nanoTime();
+
+    public Hedging(double percentile, int maxExtraLoad, long minDelay) {
+        this.percentile = percentile;
+        this.earn = TOKEN * maxExtraLoad / 100;
+        this.minDelay = minDelay;
+    }
+
+    public void record(long latencyNanos) {
+        long now = System.nanoTime();
+        if (now - windowStart > WINDOW_NANOS) {
+            rotate(now);
+        }
+        current.record(latencyNanos / 1000);
+    }
+
+    /**
+     * Delay in milliseconds before hedging, or -1 while there are not enough samples.
+     */
+    public long delay() {
+        Histogram window = previous.count() >= MIN_SAMPLES ? previous : current;
+        if (window.count() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(minDelay, window.percentile(percentile) / 1000);
+    }
+
+    public void requested() {
+        long value;
+        do {
+            value = tokens.get();
+            if (value >= MAX_TOKENS) {
+                return;
+            }
+        } while (!tokens.compareAndSet(value, Math.min(MAX_TOKENS, value + earn)));
+    }
+
+    public boolean tryHedge() {
+        long value;
+        do {
+            value = tokens.get();
+            if (value < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(value, value - TOKEN));
+        return true;
+    }
+
+    private synchronized void rotate(long now) {
+        if (now - windowStart > WINDOW_NANOS) {
+            previous = current;
+            current = new Histogram();
+            windowStart = now;
+        }
+    }
+}
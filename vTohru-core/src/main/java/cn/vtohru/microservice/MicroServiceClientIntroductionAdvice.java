@@ -1,6 +1,10 @@
 package cn.vtohru.microservice;
 
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.EventBusMetrics;
+import cn.vtohru.message.MessageReadStream;
+import cn.vtohru.message.MessageTracing;
+import cn.vtohru.metrics.MetricsRegistry;
 import cn.vtohru.microservice.annotation.Service;
 import io.micronaut.aop.InterceptorBean;
 import io.micronaut.aop.MethodInterceptor;
@@ -10,17 +14,17 @@ import io.micronaut.core.type.Argument;
 import io.micronaut.inject.ExecutableMethod;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.Promise;
 import io.vertx.core.eventbus.DeliveryOptions;
-import io.vertx.core.eventbus.Message;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.json.impl.JsonUtil;
+import io.vertx.core.streams.ReadStream;
 
 import javax.inject.Singleton;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
 @InterceptorBean(Service.class)
@@ -29,9 +33,40 @@ public class MicroServiceClientIntroductionAdvice implements MethodInterceptor<O
     private MicroServiceDiscovery serviceDiscovery;
     private VerticleApplicationContext applicationContext;
 
-    public MicroServiceClientIntroductionAdvice(MicroServiceDiscovery serviceDiscovery, ApplicationContext context) {
+    private MetricsRegistry metricsRegistry;
+    private boolean payloadSize;
+    private Map<String, EventBusMetrics> eventBusMetrics = new ConcurrentHashMap<>();
+
+    private ServiceInstanceCache instanceCache;
+    private ServiceInvoker serviceInvoker;
+
+    public MicroServiceClientIntroductionAdvice(MicroServiceDiscovery serviceDiscovery, ApplicationContext context, MetricsRegistry metricsRegistry, ServiceInstanceCache instanceCache, ServiceInvoker serviceInvoker) {
         this.serviceDiscovery = serviceDiscovery;
+        this.instanceCache = instanceCache;
+        this.serviceInvoker = serviceInvoker;
         this.applicationContext = (VerticleApplicationContext) context;
+        this.metricsRegistry = metricsRegistry;
+        this.payloadSize = context.getProperty(EventBusMetrics.PAYLOAD_SIZE_PROPERTY, Boolean.class).orElse(false);
+    }
+
+    private EventBusMetrics metrics(String address, String action) {
+        String key = address + '#' + action;
+        EventBusMetrics metrics = eventBusMetrics.get(key);
+        if (metrics == null) {
+            metrics = eventBusMetrics.computeIfAbsent(key, k -> new EventBusMetrics(metricsRegistry, EventBusMetrics.CLIENT, address, action, payloadSize));
+        }
+        return metrics;
+    }
+
+    private Future<Object> request(ExecutableMethod<?, ?> method, String serviceName, JsonObject json, DeliveryOptions deliveryOptions, EventBusMetrics metrics) {
+        long start = metrics.start(json);
+        try {
+            return serviceInvoker.request(method, serviceName, json, deliveryOptions).onComplete(ar -> metrics.end(start, ar));
+        } catch (Exception e) {
+            logger.warn("service request failed: " + serviceName + "#" + method.getMethodName(), e);
+            metrics.failed(start);
+            return Future.failedFuture(e);
+        }
     }
 
     @Override
@@ -47,37 +82,25 @@ public class MicroServiceClientIntroductionAdvice implements MethodInterceptor<O
                     _json.put(arguments[i].getName(), parameters.get(arguments[i].getName()));
                 }
             }
-            DeliveryOptions _deliveryOptions =  new DeliveryOptions();
+            DeliveryOptions _deliveryOptions = MessageTracing.inject(new DeliveryOptions());
             _deliveryOptions.addHeader("action", context.getMethodName());
-            String address = executableMethod.getDeclaringType().getName();
-            if (Future.class.isAssignableFrom(context.getReturnType().getType())) {
-                Promise<Object> promise = Promise.promise();
-                try {
-                    applicationContext.getVertx().eventBus().request(address, _json, _deliveryOptions, x -> {
-                        if (x.succeeded()) {
-                            Message<?> result = x.result();
-                            promise.complete(result.body());
-                        } else {
-                            promise.fail(x.cause());
-                        }
-                    });
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-
-                return promise.future();
+            String serviceName = executableMethod.getDeclaringType().getName();
+            EventBusMetrics metrics = metrics(serviceName, context.getMethodName());
+            if (ReadStream.class.isAssignableFrom(context.getReturnType().getType())) {
+                ServiceInstance instance = instanceCache.select(serviceName);
+                String address = instance == null ? serviceName : instance.address();
+                Class<?> elementType = (Class<?>) context.getReturnType().asArgument().getFirstTypeVariable().map(x -> ((Argument) x).getType()).orElse(null);
+                MessageReadStream<?> stream = new MessageReadStream<>(applicationContext.getVertx(), elementType);
+                long start = metrics.start(_json);
+                stream.completionHandler(ar -> metrics.end(start, ar));
+                applicationContext.getVertx().eventBus().request(address, _json, stream.deliveryOptions(_deliveryOptions), stream::open);
+                return stream;
+            } else if (Future.class.isAssignableFrom(context.getReturnType().getType())) {
+                return request(executableMethod, serviceName, _json, _deliveryOptions, metrics);
             } else if (arguments.length > 0) {
                 Object lastParam = parameters.get(arguments[arguments.length - 1].getName());
                 if (lastParam instanceof Handler) {
-                    Handler handler = (Handler) lastParam;
-                    applicationContext.getVertx().eventBus().request(address, _json, _deliveryOptions, x -> {
-                        if (x.succeeded()) {
-                            Message<?> result = x.result();
-                            handler.handle(Future.succeededFuture(result.body()));
-                        } else {
-                            handler.handle(Future.failedFuture(x.cause()));
-                        }
-                    });
+                    request(executableMethod, serviceName, _json, _deliveryOptions, metrics).onComplete((Handler) lastParam);
                 } else {
                     throw new IllegalStateException("method last params must be handler or return type is Future");
                 }
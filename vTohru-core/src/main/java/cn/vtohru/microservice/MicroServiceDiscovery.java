@@ -12,12 +12,18 @@ import io.vertx.servicediscovery.ServiceDiscoveryOptions;
 import io.vertx.servicediscovery.ServiceReference;
 import io.vertx.servicediscovery.impl.DiscoveryImpl;
 import io.vertx.servicediscovery.types.EventBusService;
+import io.vertx.servicediscovery.utils.ClassLoaderUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Verticle
 @GlobalScope
 @Indexed(MicroServiceDiscovery.class)
 public class MicroServiceDiscovery extends DiscoveryImpl {
     private VerticleApplicationContext verticleApplicationContext;
+    private Map<String, Class<?>> interfaces = new ConcurrentHashMap<>();
+    private Map<String, Object> proxies = new ConcurrentHashMap<>();
 
     public MicroServiceDiscovery(ApplicationContext applicationContext) {
         super(((VerticleApplicationContext) applicationContext).getVertx(), new ServiceDiscoveryOptions());
@@ -29,12 +35,41 @@ public class MicroServiceDiscovery extends DiscoveryImpl {
     }
 
     public Future<ServiceReference> getService(JsonObject config) {
-        return this.getRecord(config).compose(x -> {
-            if (x.getType().equalsIgnoreCase(EventBusService.TYPE)) {
-                return Future.succeededFuture(new EventBusServiceReference(this.verticleApplicationContext, this, x, new JsonObject()));
-            } else {
-                return Future.succeededFuture(this.getReference(x));
+        if (config.size() == 1 && config.getValue("name") instanceof String) {
+            ServiceInstance instance = verticleApplicationContext.getBean(ServiceInstanceCache.class).select(config.getString("name"));
+            if (instance != null) {
+                return Future.succeededFuture(reference(instance.record()));
+            }
+        }
+        return this.getRecord(config).compose(x -> Future.succeededFuture(reference(x)));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T proxy(String key, String serviceInterface) {
+        Object proxy = proxies.get(key);
+        if (proxy == null) {
+            proxy = proxies.computeIfAbsent(key, k -> verticleApplicationContext.createBean(load(serviceInterface)));
+        }
+        return (T) proxy;
+    }
+
+    private Class<?> load(String serviceInterface) {
+        Class<?> itf = interfaces.get(serviceInterface);
+        if (itf == null) {
+            itf = ClassLoaderUtils.load(serviceInterface, this.getClass().getClassLoader());
+            if (itf == null) {
+                throw new IllegalStateException("Cannot load class " + serviceInterface);
             }
-        });
+            interfaces.putIfAbsent(serviceInterface, itf);
+        }
+        return itf;
+    }
+
+    private ServiceReference reference(Record x) {
+        if (x.getType().equalsIgnoreCase(EventBusService.TYPE)) {
+            return new EventBusServiceReference(this.verticleApplicationContext, this, x, new JsonObject());
+        } else {
+            return this.getReference(x);
+        }
     }
 }
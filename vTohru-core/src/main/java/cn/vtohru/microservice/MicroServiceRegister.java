@@ -1,48 +1,113 @@
 package cn.vtohru.microservice;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.annotation.GlobalScope;
 import cn.vtohru.annotation.Verticle;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.MessageInterceptorChain;
+import cn.vtohru.microservice.annotation.Service;
 import io.micronaut.context.ApplicationContext;
 import io.micronaut.inject.BeanDefinition;
+import io.vertx.core.Closeable;
 import io.vertx.core.Future;
-import io.vertx.core.eventbus.Message;
+import io.vertx.core.Promise;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
-import io.vertx.core.json.JsonObject;
 import io.vertx.servicediscovery.Record;
 import io.vertx.servicediscovery.types.EventBusService;
 import io.vertx.serviceproxy.ServiceException;
 import io.vertx.serviceproxy.ServiceExceptionMessageCodec;
 
-import java.util.List;
-import java.util.function.Function;
+import java.util.UUID;
+
 
 @Verticle
 @GlobalScope
 public class MicroServiceRegister {
     private static final Logger logger = LoggerFactory.getLogger(MicroServiceRegister.class);
-    private boolean topLevel = true;
-    private long timeoutSeconds = 300L;
-    private List<Function<Message<JsonObject>, Future<Message<JsonObject>>>> interceptors;
+    public static final String IDLE_TIMEOUT = VerticleApplicationContext.VTOHRU + ".service.idle-timeout";
+    private MessageInterceptorChain interceptorChain;
     private boolean includeDebugInfo = false;
     private VerticleApplicationContext verticleApplicationContext;
     private MicroServiceDiscovery serviceDiscovery;
+    private GracefulShutdown gracefulShutdown;
 
-    public MicroServiceRegister(ApplicationContext applicationContext, MicroServiceDiscovery serviceDiscovery) {
+    public MicroServiceRegister(ApplicationContext applicationContext, MicroServiceDiscovery serviceDiscovery, GracefulShutdown gracefulShutdown) {
         this.verticleApplicationContext = (VerticleApplicationContext) applicationContext;
         try {
             this.verticleApplicationContext.getVertx().eventBus().registerDefaultCodec(ServiceException.class, new ServiceExceptionMessageCodec());
         } catch (IllegalStateException ex) {}
         this.serviceDiscovery = serviceDiscovery;
+        this.gracefulShutdown = gracefulShutdown;
     }
 
     public <T> void registerService(Class<?> serviceClass, BeanDefinition<?> definition) {
-        ServiceProxyHandler<T> serviceProxyHandler = new ServiceProxyHandler(verticleApplicationContext, definition, topLevel, timeoutSeconds, includeDebugInfo);
+        if (interceptorChain == null) {
+            interceptorChain = MessageInterceptorChain.create(verticleApplicationContext);
+        }
+        long idleTimeout = idleTimeout(serviceClass);
+        boolean topLevel = idleTimeout <= 0;
+        ServiceProxyHandler<T> serviceProxyHandler = new ServiceProxyHandler(verticleApplicationContext, definition, topLevel,
+                topLevel ? ServiceProxyHandler.DEFAULT_CONNECTION_TIMEOUT : idleTimeout, includeDebugInfo);
+        serviceProxyHandler.setInterceptorChain(interceptorChain);
+        String instanceAddress = serviceClass.getName() + "@" + UUID.randomUUID();
         serviceProxyHandler.register(verticleApplicationContext.getVertx().eventBus(), serviceClass.getName());
-        Record record = EventBusService.createRecord(serviceClass.getName(), serviceClass.getName(), serviceClass);
-        this.serviceDiscovery.publishService(record).onSuccess(x->{
+        serviceProxyHandler.registerInstance(verticleApplicationContext.getVertx().eventBus(), instanceAddress);
+        Record record = EventBusService.createRecord(serviceClass.getName(), instanceAddress, serviceClass);
+        Future<Record> published = this.serviceDiscovery.publishService(record).onSuccess(x->{
             logger.info(verticleApplicationContext.getScopeName() + " publish Service <" + x.getName());
         }).onFailure(logger::error);
+        Publication publication = new Publication(published, serviceProxyHandler, (ContextInternal) verticleApplicationContext.getVertx().getOrCreateContext());
+        serviceProxyHandler.idleHandler(v -> publication.withdraw().onSuccess(x -> logger.info("unpublished idle service instance " + instanceAddress)));
+    }
+
+    /**
+     * The discovery record of one service instance, withdrawn once: on drain, when the instance idles out, or when the
+     * verticle that published it is undeployed, whichever comes first.
+     */
+    private final class Publication implements Closeable {
+        private final Future<Record> published;
+        private final ServiceProxyHandler<?> handler;
+        private final ContextInternal context;
+        private final GracefulShutdown.Registration drain;
+        private Future<Void> withdrawn;
+
+        Publication(Future<Record> published, ServiceProxyHandler<?> handler, ContextInternal context) {
+            this.published = published;
+            this.handler = handler;
+            this.context = context;
+            this.drain = gracefulShutdown.onDrain(this::withdraw);
+            context.addCloseHook(this);
+        }
+
+        Future<Void> withdraw() {
+            context.removeCloseHook(this);
+            return unpublish();
+        }
+
+        private synchronized Future<Void> unpublish() {
+            if (withdrawn == null) {
+                drain.cancel();
+                withdrawn = published.compose(x -> serviceDiscovery.unpublish(x.getRegistration())).onComplete(ar -> handler.close());
+            }
+            return withdrawn;
+        }
+
+        @Override
+        public void close(Promise<Void> completion) {
+            unpublish().onComplete(ar -> completion.complete());
+        }
+    }
+
+    /**
+     * Idle timeout in seconds of the instances of a service, not above 0 when they are never reaped.
+     */
+    private long idleTimeout(Class<?> serviceClass) {
+        Service service = serviceClass.getAnnotation(Service.class);
+        if (service != null && service.idleTimeout() > 0) {
+            return service.idleTimeout();
+        }
+        return verticleApplicationContext.getProperty(IDLE_TIMEOUT, Long.class).orElse(-1L);
     }
 }
@@ -15,6 +15,7 @@ import java.util.*;
 @Singleton
 public class ServiceAnnotatedBuilder implements ExecutableMethodProcessor<Service> {
     private static final Logger logger = LoggerFactory.getLogger(ServiceAnnotatedBuilder.class);
+    private static final String SERVICES_INDEX = "microservice.services";
     private Map<Class<?>, List<BeanDefinition<?>>> serviceMap = new HashMap<>();
     private VerticleApplicationContext context;
     private MicroServiceRegister serviceRegister;
@@ -40,14 +41,14 @@ public class ServiceAnnotatedBuilder implements ExecutableMethodProcessor<Servic
     }
 
     public void registerService() {
-        if (serviceMap != null) {
-            for (Map.Entry<Class<?>, List<BeanDefinition<?>>> entry : serviceMap.entrySet()) {
-                for (BeanDefinition<?> definition : entry.getValue()) {
-                    if (context.isScoped(definition)) {
-                        this.serviceRegister.registerService(entry.getKey(), definition);
-                    }
-                }
+        List<Map.Entry<Class<?>, BeanDefinition<?>>> services = new ArrayList<>();
+        for (Map.Entry<Class<?>, List<BeanDefinition<?>>> entry : serviceMap.entrySet()) {
+            for (BeanDefinition<?> definition : entry.getValue()) {
+                services.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), definition));
             }
         }
+        for (Map.Entry<Class<?>, BeanDefinition<?>> service : context.scoped(SERVICES_INDEX, services, Map.Entry::getValue)) {
+            this.serviceRegister.registerService(service.getKey(), service.getValue());
+        }
     }
 }
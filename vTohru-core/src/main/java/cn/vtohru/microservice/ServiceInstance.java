@@ -0,0 +1,58 @@
+package cn.vtohru.microservice;
+
+import io.vertx.servicediscovery.Record;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ServiceInstance {
+    private static final double EWMA_DECAY_NANOS = 10_000_000_000d;
+    private final Record record;
+    private final String address;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong ewma = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile long lastUpdate = System.nanoTime();
+
+    public ServiceInstance(Record record) {
+        this.record = record;
+        this.address = record.getLocation().getString(Record.ENDPOINT, record.getName());
+    }
+
+    public Record record() {
+        return record;
+    }
+
+    public String registration() {
+        return record.getRegistration();
+    }
+
+    public String address() {
+        return address;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public double latency() {
+        return Double.longBitsToDouble(ewma.get());
+    }
+
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    public void complete(long latencyNanos) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        double weight = Math.exp(-(now - lastUpdate) / EWMA_DECAY_NANOS);
+        lastUpdate = now;
+        long current;
+        long next;
+        do {
+            current = ewma.get();
+            double value = Double.longBitsToDouble(current);
+            next = Double.doubleToRawLongBits(value == 0 ? latencyNanos : value * weight + latencyNanos * (1 - weight));
+        } while (!ewma.compareAndSet(current, next));
+    }
+}
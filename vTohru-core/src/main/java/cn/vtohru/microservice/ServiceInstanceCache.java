@@ -0,0 +1,156 @@
+package cn.vtohru.microservice;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.microservice.balance.LoadBalancer;
+import cn.vtohru.microservice.balance.RoundRobinLoadBalancer;
+import io.micronaut.context.ApplicationContext;
+import io.vertx.core.Context;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.ServiceDiscoveryOptions;
+import io.vertx.servicediscovery.Status;
+import io.vertx.servicediscovery.impl.DiscoveryImpl;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Singleton
+public class ServiceInstanceCache {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceInstanceCache.class);
+    public static final String LOAD_BALANCER = "vtohru.service.load-balancer";
+    private static final ServiceInstance[] EMPTY = new ServiceInstance[0];
+
+    private VerticleApplicationContext applicationContext;
+    private LoadBalancer loadBalancer;
+    private Map<String, ServiceInstance[]> instances = new ConcurrentHashMap<>();
+    private Context context;
+    private ServiceDiscovery discovery;
+    private List<Consumer<ServiceInstance>> removalListeners = new CopyOnWriteArrayList<>();
+
+    public ServiceInstanceCache(ApplicationContext applicationContext, List<LoadBalancer> loadBalancers) {
+        this.applicationContext = (VerticleApplicationContext) applicationContext;
+        String name = applicationContext.getProperty(LOAD_BALANCER, String.class).orElse(RoundRobinLoadBalancer.NAME);
+        for (LoadBalancer loadBalancer : loadBalancers) {
+            if (loadBalancer.name().equalsIgnoreCase(name)) {
+                this.loadBalancer = loadBalancer;
+            }
+        }
+        if (this.loadBalancer == null) {
+            throw new IllegalStateException("unknown load balancer: " + name);
+        }
+    }
+
+    public ServiceInstance select(String serviceName) {
+        ServiceInstance[] candidates = instances.get(serviceName);
+        if (candidates == null) {
+            load(serviceName);
+            return null;
+        }
+        if (candidates.length == 0) {
+            return null;
+        }
+        return loadBalancer.select(candidates);
+    }
+
+    public ServiceInstance[] instances(String serviceName) {
+        return instances.getOrDefault(serviceName, EMPTY);
+    }
+
+    /**
+     * Registers a listener told about every instance that left the cache, to drop state kept per instance.
+     */
+    public void onRemoved(Consumer<ServiceInstance> listener) {
+        removalListeners.add(listener);
+    }
+
+    private void load(String serviceName) {
+        if (instances.putIfAbsent(serviceName, EMPTY) != null) {
+            return;
+        }
+        context().runOnContext(v -> discovery.getRecords(record -> serviceName.equals(record.getName()), false).onSuccess(records -> {
+            List<ServiceInstance> loaded = new ArrayList<>(records.size());
+            for (Record record : records) {
+                loaded.add(new ServiceInstance(record));
+            }
+            merge(serviceName, loaded);
+        }).onFailure(e -> {
+            logger.warn("load service instances failed: " + serviceName, e);
+            instances.remove(serviceName, EMPTY);
+        }));
+    }
+
+    private void merge(String serviceName, List<ServiceInstance> loaded) {
+        ServiceInstance[] current = instances.getOrDefault(serviceName, EMPTY);
+        List<ServiceInstance> merged = new ArrayList<>(loaded.size());
+        for (ServiceInstance instance : loaded) {
+            ServiceInstance existing = find(current, instance.registration());
+            merged.add(existing != null ? existing : instance);
+        }
+        instances.put(serviceName, merged.toArray(EMPTY));
+        removed(current, merged);
+    }
+
+    private void announced(Message<JsonObject> message) {
+        Record record = new Record(message.body());
+        ServiceInstance[] current = instances.get(record.getName());
+        if (current == null || record.getRegistration() == null) {
+            return;
+        }
+        List<ServiceInstance> updated = new ArrayList<>(current.length + 1);
+        for (ServiceInstance instance : current) {
+            if (!instance.registration().equals(record.getRegistration())) {
+                updated.add(instance);
+            }
+        }
+        if (record.getStatus() == Status.UP) {
+            ServiceInstance existing = find(current, record.getRegistration());
+            updated.add(existing != null ? existing : new ServiceInstance(record));
+        }
+        instances.put(record.getName(), updated.toArray(EMPTY));
+        removed(current, updated);
+        if (logger.isDebugEnabled()) {
+            logger.debug("service " + record.getName() + " now has " + updated.size() + " instances");
+        }
+    }
+
+    private void removed(ServiceInstance[] previous, List<ServiceInstance> kept) {
+        for (ServiceInstance instance : previous) {
+            if (!kept.contains(instance)) {
+                for (Consumer<ServiceInstance> listener : removalListeners) {
+                    listener.accept(instance);
+                }
+            }
+        }
+    }
+
+    private static ServiceInstance find(ServiceInstance[] instances, String registration) {
+        for (ServiceInstance instance : instances) {
+            if (instance.registration().equals(registration)) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Context context() {
+        if (context == null) {
+            context = ((VertxInternal) applicationContext.getVertx()).createEventLoopContext();
+            ServiceDiscoveryOptions options = new ServiceDiscoveryOptions();
+            context.runOnContext(v -> {
+                discovery = new DiscoveryImpl(applicationContext.getVertx(), options);
+                applicationContext.getVertx().eventBus().consumer(options.getAnnounceAddress(), this::announced);
+            });
+        }
+        return context;
+    }
+}
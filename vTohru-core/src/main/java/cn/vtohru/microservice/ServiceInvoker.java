@@ -0,0 +1,279 @@
+package cn.vtohru.microservice;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.event.ConfigRefreshEvent;
+import cn.vtohru.metrics.MetricsRegistry;
+import cn.vtohru.microservice.annotation.Hedged;
+import cn.vtohru.microservice.annotation.ServiceMethod;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class ServiceInvoker implements ApplicationEventListener<ConfigRefreshEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceInvoker.class);
+    public static final String FAILURE_THRESHOLD = "vtohru.service.circuit-breaker.failure-threshold";
+    public static final String RESET_TIMEOUT = "vtohru.service.circuit-breaker.reset-timeout";
+    public static final int CIRCUIT_OPEN = 503;
+
+    private VerticleApplicationContext applicationContext;
+    private ServiceInstanceCache instanceCache;
+    private MetricsRegistry metricsRegistry;
+    private volatile int failureThreshold;
+    private volatile long resetTimeout;
+    private Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private Map<ExecutableMethod<?, ?>, Policy> policies = new ConcurrentHashMap<>();
+
+    public ServiceInvoker(ApplicationContext applicationContext, ServiceInstanceCache instanceCache, MetricsRegistry metricsRegistry) {
+        this.applicationContext = (VerticleApplicationContext) applicationContext;
+        this.instanceCache = instanceCache;
+        this.metricsRegistry = metricsRegistry;
+        this.failureThreshold = applicationContext.getProperty(FAILURE_THRESHOLD, Integer.class).orElse(5);
+        this.resetTimeout = applicationContext.getProperty(RESET_TIMEOUT, Long.class).orElse(10000L);
+        instanceCache.onRemoved(instance -> evict(instance.address()));
+    }
+
+    @Override
+    public void onApplicationEvent(ConfigRefreshEvent event) {
+        if (!event.isChanged(FAILURE_THRESHOLD) && !event.isChanged(RESET_TIMEOUT)) {
+            return;
+        }
+        this.failureThreshold = applicationContext.getProperty(FAILURE_THRESHOLD, Integer.class).orElse(5);
+        this.resetTimeout = applicationContext.getProperty(RESET_TIMEOUT, Long.class).orElse(10000L);
+        for (CircuitBreaker breaker : breakers.values()) {
+            breaker.configure(failureThreshold, resetTimeout);
+        }
+        logger.info("circuit breakers reconfigured: failure threshold " + failureThreshold + ", reset timeout " + resetTimeout + "ms");
+    }
+
+    public Future<Object> request(ExecutableMethod<?, ?> method, String serviceName, JsonObject body, DeliveryOptions deliveryOptions) {
+        Call call = new Call(policy(method), serviceName, body, deliveryOptions);
+        call.attempt();
+        return call.promise.future();
+    }
+
+    public CircuitBreaker breaker(String address) {
+        CircuitBreaker breaker = breakers.get(address);
+        if (breaker == null) {
+            breaker = breakers.computeIfAbsent(address, k -> {
+                CircuitBreaker created = new CircuitBreaker(failureThreshold, resetTimeout);
+                metricsRegistry.gauge("service.circuit.state", () -> created.state().ordinal(), "address", k);
+                return created;
+            });
+        }
+        return breaker;
+    }
+
+    private void evict(String address) {
+        if (breakers.remove(address) != null) {
+            metricsRegistry.remove("service.circuit.state", "address", address);
+        }
+    }
+
+    private Policy policy(ExecutableMethod<?, ?> method) {
+        Policy policy = policies.get(method);
+        if (policy == null) {
+            policy = policies.computeIfAbsent(method, Policy::new);
+        }
+        return policy;
+    }
+
+    private ServiceInstance acquire(String serviceName) {
+        ServiceInstance[] instances = instanceCache.instances(serviceName);
+        int attempts = Math.max(1, instances.length);
+        for (int i = 0; i < attempts; i++) {
+            ServiceInstance instance = instanceCache.select(serviceName);
+            if (instance == null) {
+                return null;
+            }
+            if (breaker(instance.address()).tryAcquire()) {
+                return instance;
+            }
+        }
+        throw new ReplyException(ReplyFailure.RECIPIENT_FAILURE, CIRCUIT_OPEN, "circuit open: " + serviceName);
+    }
+
+    private static boolean unhealthy(Throwable cause) {
+        if (!(cause instanceof ReplyException)) {
+            return false;
+        }
+        ReplyException e = (ReplyException) cause;
+        return e.failureType() != ReplyFailure.RECIPIENT_FAILURE || e.failureCode() == CIRCUIT_OPEN;
+    }
+
+    private ServiceInstance acquireOther(String serviceName, ServiceInstance exclude) {
+        ServiceInstance[] instances = instanceCache.instances(serviceName);
+        for (int i = 0; i < instances.length; i++) {
+            ServiceInstance instance = instanceCache.select(serviceName);
+            if (instance != null && instance != exclude && breaker(instance.address()).tryAcquire()) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    private static final class Policy {
+        private final long timeout;
+        private final int retries;
+        private final long backoff;
+        private final Hedging hedging;
+
+        Policy(ExecutableMethod<?, ?> method) {
+            AnnotationValue<ServiceMethod> annotation = method.getAnnotation(ServiceMethod.class);
+            if (annotation == null) {
+                timeout = DeliveryOptions.DEFAULT_TIMEOUT;
+                retries = 0;
+                backoff = 0;
+            } else {
+                timeout = annotation.longValue("timeout").orElse(DeliveryOptions.DEFAULT_TIMEOUT);
+                retries = annotation.isTrue("idempotent") ? annotation.intValue("retries").orElse(0) : 0;
+                backoff = annotation.longValue("backoff").orElse(100);
+            }
+            AnnotationValue<Hedged> hedged = method.getAnnotation(Hedged.class);
+            if (hedged == null) {
+                hedging = null;
+            } else {
+                hedging = new Hedging(hedged.doubleValue("percentile").orElse(0.95), hedged.intValue("maxExtraLoad").orElse(5), hedged.longValue("minDelay").orElse(1));
+            }
+        }
+    }
+
+    private final class Call {
+        private final Policy policy;
+        private final String serviceName;
+        private final JsonObject body;
+        private final DeliveryOptions deliveryOptions;
+        private final Promise<Object> promise = Promise.promise();
+        private int attempt;
+
+        Call(Policy policy, String serviceName, JsonObject body, DeliveryOptions deliveryOptions) {
+            this.policy = policy;
+            this.serviceName = serviceName;
+            this.body = body;
+            this.deliveryOptions = deliveryOptions.setSendTimeout(policy.timeout);
+        }
+
+        void attempt() {
+            ServiceInstance instance;
+            try {
+                instance = acquire(serviceName);
+            } catch (ReplyException e) {
+                metricsRegistry.counter("service.circuit.rejected", "service", serviceName).increment();
+                promise.fail(e);
+                return;
+            }
+            CircuitBreaker breaker = breaker(instance == null ? serviceName : instance.address());
+            if (instance == null && !breaker.tryAcquire()) {
+                metricsRegistry.counter("service.circuit.rejected", "service", serviceName).increment();
+                promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, CIRCUIT_OPEN, "circuit open: " + serviceName));
+                return;
+            }
+            Round round = new Round();
+            send(round, instance, breaker);
+            Hedging hedging = policy.hedging;
+            if (hedging != null && instance != null) {
+                hedging.requested();
+                long delay = hedging.delay();
+                if (delay >= 0 && delay < policy.timeout) {
+                    round.timer = applicationContext.getVertx().setTimer(delay, t -> hedge(round, instance));
+                }
+            }
+        }
+
+        private void hedge(Round round, ServiceInstance primary) {
+            round.timer = -1;
+            if (round.pending.get() == 0 || promise.future().isComplete() || !policy.hedging.tryHedge()) {
+                return;
+            }
+            ServiceInstance instance = acquireOther(serviceName, primary);
+            if (instance != null) {
+                metricsRegistry.counter("service.hedges", "service", serviceName).increment();
+                send(round, instance, breaker(instance.address()));
+            }
+        }
+
+        private void send(Round round, ServiceInstance instance, CircuitBreaker breaker) {
+            long start = System.nanoTime();
+            round.pending.incrementAndGet();
+            if (instance != null) {
+                instance.start();
+            }
+            String address = instance == null ? serviceName : instance.address();
+            applicationContext.getVertx().eventBus().<Object>request(address, body, deliveryOptions, ar -> {
+                long latency = System.nanoTime() - start;
+                if (instance != null) {
+                    instance.complete(latency);
+                }
+                if (ar.succeeded() && policy.hedging != null) {
+                    policy.hedging.record(latency);
+                }
+                completed(round, breaker, ar);
+            });
+        }
+
+        private void completed(Round round, CircuitBreaker breaker, AsyncResult<Message<Object>> ar) {
+            int pending = round.pending.decrementAndGet();
+            if (ar.succeeded()) {
+                breaker.onSuccess();
+                cancelHedge(round);
+                promise.tryComplete(ar.result().body());
+                return;
+            }
+            Throwable cause = ar.cause();
+            boolean unhealthy = unhealthy(cause);
+            if (unhealthy) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            if (pending > 0 || promise.future().isComplete()) {
+                return;
+            }
+            cancelHedge(round);
+            if (!unhealthy || attempt >= policy.retries) {
+                promise.tryFail(cause);
+                return;
+            }
+            long delay = ThreadLocalRandom.current().nextLong(policy.backoff * (1L << Math.min(attempt, 16)) + 1);
+            attempt++;
+            metricsRegistry.counter("service.retries", "service", serviceName).increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("retry " + serviceName + " #" + attempt + " in " + delay + "ms: " + cause.getMessage());
+            }
+            if (delay == 0) {
+                attempt();
+            } else {
+                applicationContext.getVertx().setTimer(delay, t -> attempt());
+            }
+        }
+
+        private void cancelHedge(Round round) {
+            long timer = round.timer;
+            if (timer >= 0) {
+                applicationContext.getVertx().cancelTimer(timer);
+            }
+        }
+    }
+
+    private static final class Round {
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long timer = -1;
+    }
+}
@@ -1,27 +1,48 @@
 package cn.vtohru.microservice;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.EventBusMetrics;
+import cn.vtohru.message.MessageInterceptorChain;
+import cn.vtohru.message.MessageStreamProducer;
+import cn.vtohru.message.MessageTracing;
+import cn.vtohru.message.TimingWheel;
+import cn.vtohru.metrics.MetricsRegistry;
 import io.micronaut.core.type.Argument;
 import io.micronaut.inject.BeanDefinition;
 import io.micronaut.inject.ExecutableMethod;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.serviceproxy.HelperUtils;
 import io.vertx.serviceproxy.ProxyHandler;
 import io.vertx.serviceproxy.ServiceException;
 import io.vertx.serviceproxy.ServiceExceptionMessageCodec;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ServiceProxyHandler<T> extends ProxyHandler {
     private BeanDefinition<T> beanDefinition;
     public static final long DEFAULT_CONNECTION_TIMEOUT = 5 * 60; // 5 minutes
     private VerticleApplicationContext context;
-    private final long timerID;
+    private TimingWheel.Timeout idleTimeout;
     private long lastAccessed;
     private final long timeoutSeconds;
     private final boolean includeDebugInfo;
+    private MessageInterceptorChain interceptorChain = MessageInterceptorChain.EMPTY;
+    private MetricsRegistry metricsRegistry;
+    private GracefulShutdown gracefulShutdown;
+    private MessageConsumer<JsonObject> instanceConsumer;
+    private Handler<Void> idleHandler;
+    private boolean payloadSize;
+    private Map<String, EventBusMetrics> actionMetrics = new ConcurrentHashMap<>();
 
     public ServiceProxyHandler(VerticleApplicationContext context, BeanDefinition<T> beanDefinition){
         this(context, beanDefinition, DEFAULT_CONNECTION_TIMEOUT);
@@ -32,7 +53,7 @@ public class ServiceProxyHandler<T> extends ProxyHandler {
     }
 
     public ServiceProxyHandler(VerticleApplicationContext context, BeanDefinition<T> beanDefinition, boolean topLevel, long timeoutInSecond){
-        this(context, beanDefinition, true, timeoutInSecond, false);
+        this(context, beanDefinition, topLevel, timeoutInSecond, false);
     }
 
     public ServiceProxyHandler(VerticleApplicationContext context, BeanDefinition<T>  beanDefinition, boolean topLevel, long timeoutSeconds, boolean includeDebugInfo) {
@@ -40,43 +61,69 @@ public class ServiceProxyHandler<T> extends ProxyHandler {
         this.beanDefinition = beanDefinition;
         this.includeDebugInfo = includeDebugInfo;
         this.timeoutSeconds = timeoutSeconds;
+        this.metricsRegistry = context.getBean(MetricsRegistry.class);
+        this.gracefulShutdown = context.getBean(GracefulShutdown.class);
+        this.payloadSize = context.getProperty(EventBusMetrics.PAYLOAD_SIZE_PROPERTY, Boolean.class).orElse(false);
         try {
             this.context.getVertx().eventBus().registerDefaultCodec(ServiceException.class,
                     new ServiceExceptionMessageCodec());
         } catch (IllegalStateException ex) {}
+        accessed();
         if (timeoutSeconds != -1 && !topLevel) {
-            long period = timeoutSeconds * 1000 / 2;
-            if (period > 10000) {
-                period = 10000;
-            }
-            this.timerID = this.context.getVertx().setPeriodic(period, this::checkTimedOut);
-        } else {
-            this.timerID = -1;
+            this.idleTimeout = TimingWheel.current(context.getVertx()).schedule(timeoutSeconds * 1000, this::checkTimedOut);
         }
-        accessed();
     }
 
-
-    private void checkTimedOut(long id) {
-        long now = System.nanoTime();
-        if (now - lastAccessed > timeoutSeconds * 1000000000) {
+    private void checkTimedOut(Void v) {
+        long idle = (System.nanoTime() - lastAccessed) / 1000000;
+        if (idle >= timeoutSeconds * 1000) {
+            idleTimeout = null;
             close();
+            if (idleHandler != null) {
+                idleHandler.handle(null);
+            }
+        } else {
+            idleTimeout = TimingWheel.current(context.getVertx()).schedule(timeoutSeconds * 1000 - idle, this::checkTimedOut);
         }
     }
 
+    public MessageConsumer<JsonObject> registerInstance(EventBus eventBus, String address) {
+        this.instanceConsumer = eventBus.consumer(address, this);
+        return this.instanceConsumer;
+    }
+
     @Override
     public void close() {
-        if (timerID != -1) {
-            this.context.getVertx().cancelTimer(timerID);
+        if (instanceConsumer != null) {
+            instanceConsumer.unregister();
+        }
+        if (idleTimeout != null) {
+            idleTimeout.cancel();
+            idleTimeout = null;
         }
         super.close();
     }
 
+    /**
+     * Called after the handler closed itself for being idle.
+     */
+    public void idleHandler(Handler<Void> idleHandler) {
+        this.idleHandler = idleHandler;
+    }
+
     private void accessed() {
         this.lastAccessed = System.nanoTime();
     }
 
+    public void setInterceptorChain(MessageInterceptorChain interceptorChain) {
+        this.interceptorChain = interceptorChain == null ? MessageInterceptorChain.EMPTY : interceptorChain;
+    }
+
     public void handle(Message<JsonObject> msg) {
+        MessageTracing.extract(msg);
+        EventBusMetrics metrics = null;
+        long start = 0;
+        gracefulShutdown.begin(GracefulShutdown.EVENT_BUS);
         try{
             String action = msg.headers().get("action");
             if (action == null) throw new IllegalStateException("action not specified");
@@ -85,8 +132,46 @@ public class ServiceProxyHandler<T> extends ProxyHandler {
             if (executableMethod == null) {
                 throw new IllegalStateException("Invalid action: " + action);
             }
-            boolean futureUse = Future.class.isAssignableFrom(executableMethod.getReturnType().getType());
+            metrics = metrics(action);
+            start = metrics.start(msg.body());
+            Future<Object> future;
+            if (interceptorChain.isEmpty()) {
+                future = invoke(msg, executableMethod);
+            } else {
+                future = interceptorChain.execute(beanDefinition, (ExecutableMethod<Object, ?>) executableMethod, msg, m -> invoke(m, executableMethod));
+            }
+            EventBusMetrics actionMetrics = metrics;
+            long actionStart = start;
+            if (future == null) {
+                actionMetrics.end(actionStart, Future.succeededFuture());
+                gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+            } else {
+                future.onComplete(ar -> {
+                    actionMetrics.end(actionStart, ar);
+                    gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+                });
+            }
+        } catch (Throwable t) {
+            if (metrics != null) {
+                metrics.failed(start);
+            }
+            gracefulShutdown.end(GracefulShutdown.EVENT_BUS);
+            fail(msg, t);
+        }
+    }
 
+    private EventBusMetrics metrics(String action) {
+        EventBusMetrics metrics = actionMetrics.get(action);
+        if (metrics == null) {
+            metrics = actionMetrics.computeIfAbsent(action, k -> new EventBusMetrics(metricsRegistry, EventBusMetrics.CONSUMER, consumer.address(), action, payloadSize));
+        }
+        return metrics;
+    }
+
+    private Future<Object> invoke(Message<JsonObject> msg, ExecutableMethod<T, Object> executableMethod) {
+        try{
+            boolean futureUse = Future.class.isAssignableFrom(executableMethod.getReturnType().getType());
+            Promise<Object> promise = null;
             JsonObject body = msg.body();
             Argument[] arguments = executableMethod.getArguments();
             Object[] params = new Object[arguments.length];
@@ -94,7 +179,8 @@ public class ServiceProxyHandler<T> extends ProxyHandler {
                 Argument argument = arguments[i];
                 if (argument.getType().isAssignableFrom(Handler.class)) {
                     futureUse = false;
-                    params[i] = HelperUtils.createHandler(msg, this.includeDebugInfo);
+                    promise = Promise.promise();
+                    params[i] = promise;
                 } else {
                     String paramName = argument.getName();
                     Object value = body.getMap().get(paramName);
@@ -115,13 +201,26 @@ public class ServiceProxyHandler<T> extends ProxyHandler {
                 }
             }
             Object invoke = executableMethod.invoke(context.getBean(beanDefinition), params);
-            if (futureUse) {
-                Future<Object> future = (Future<Object>) invoke;
+            Future<Object> future = null;
+            if (invoke instanceof ReadStream) {
+                return MessageStreamProducer.reply(context.getVertx(), msg, (ReadStream<?>) invoke).map(v -> null);
+            } else if (futureUse) {
+                future = (Future<Object>) invoke;
+            } else if (promise != null) {
+                future = promise.future();
+            }
+            if (future != null) {
                 future.onComplete(HelperUtils.createHandler(msg, this.includeDebugInfo));
             }
+            return future;
         } catch (Throwable t) {
-            if (includeDebugInfo) msg.reply(new ServiceException(500, t.getMessage(), HelperUtils.generateDebugInfo(t)));
-            else msg.reply(new ServiceException(500, t.getMessage()));
+            fail(msg, t);
+            return Future.failedFuture(t);
         }
     }
+
+    private void fail(Message<JsonObject> msg, Throwable t) {
+        if (includeDebugInfo) msg.reply(new ServiceException(500, t.getMessage(), HelperUtils.generateDebugInfo(t)));
+        else msg.reply(new ServiceException(500, t.getMessage()));
+    }
 }
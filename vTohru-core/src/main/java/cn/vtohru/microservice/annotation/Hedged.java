@@ -0,0 +1,27 @@
+package cn.vtohru.microservice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Sends a duplicate request to another instance when the first one has not replied within the given
+ * percentile of recently observed latency. Only for read-only {@link Service} methods: the first reply
+ * wins and the other one is ignored.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Hedged {
+    double percentile() default 0.95;
+
+    /**
+     * Upper bound of hedged requests, in percent of all requests of the method.
+     */
+    int maxExtraLoad() default 5;
+
+    long minDelay() default 1;
+}
@@ -19,4 +19,10 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Target({TYPE, ANNOTATION_TYPE, METHOD, FIELD})
 public @interface Service {
     String value() default "";
+
+    /**
+     * Seconds an instance of this service may stay without calls before it is unregistered and unpublished. Values
+     * below 1 fall back to {@code vtohru.service.idle-timeout}, which by default keeps instances forever.
+     */
+    long idleTimeout() default -1;
 }
@@ -0,0 +1,25 @@
+package cn.vtohru.microservice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Call policy of a {@link Service} method. Retries are only attempted for idempotent methods, and only when the
+ * call timed out, no instance could be reached, or the instance answered 503 (circuit open or listener overloaded).
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({METHOD})
+public @interface ServiceMethod {
+    long timeout() default 30000;
+
+    int retries() default 0;
+
+    long backoff() default 100;
+
+    boolean idempotent() default false;
+}
@@ -0,0 +1,34 @@
+package cn.vtohru.microservice.balance;
+
+import cn.vtohru.microservice.ServiceInstance;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Singleton
+public class EwmaLoadBalancer implements LoadBalancer {
+    public static final String NAME = "ewma";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ServiceInstance select(ServiceInstance[] instances) {
+        if (instances.length == 1) {
+            return instances[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(instances.length);
+        int b = random.nextInt(instances.length - 1);
+        if (b >= a) {
+            b++;
+        }
+        return cost(instances[a]) <= cost(instances[b]) ? instances[a] : instances[b];
+    }
+
+    private double cost(ServiceInstance instance) {
+        return (instance.latency() + 1) * (instance.inFlight() + 1);
+    }
+}
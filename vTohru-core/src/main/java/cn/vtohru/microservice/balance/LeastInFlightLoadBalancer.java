@@ -0,0 +1,30 @@
+package cn.vtohru.microservice.balance;
+
+import cn.vtohru.microservice.ServiceInstance;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Singleton
+public class LeastInFlightLoadBalancer implements LoadBalancer {
+    public static final String NAME = "least-in-flight";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ServiceInstance select(ServiceInstance[] instances) {
+        if (instances.length == 1) {
+            return instances[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(instances.length);
+        int b = random.nextInt(instances.length - 1);
+        if (b >= a) {
+            b++;
+        }
+        return instances[a].inFlight() <= instances[b].inFlight() ? instances[a] : instances[b];
+    }
+}
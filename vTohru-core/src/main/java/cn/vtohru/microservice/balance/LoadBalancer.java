@@ -0,0 +1,9 @@
+package cn.vtohru.microservice.balance;
+
+import cn.vtohru.microservice.ServiceInstance;
+
+public interface LoadBalancer {
+    String name();
+
+    ServiceInstance select(ServiceInstance[] instances);
+}
@@ -0,0 +1,22 @@
+package cn.vtohru.microservice.balance;
+
+import cn.vtohru.microservice.ServiceInstance;
+
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Singleton
+public class RoundRobinLoadBalancer implements LoadBalancer {
+    public static final String NAME = "round-robin";
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ServiceInstance select(ServiceInstance[] instances) {
+        return instances[(next.getAndIncrement() & Integer.MAX_VALUE) % instances.length];
+    }
+}
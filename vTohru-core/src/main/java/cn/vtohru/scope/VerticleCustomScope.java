@@ -11,10 +11,10 @@ import io.micronaut.context.scope.BeanCreationContext;
 import io.micronaut.context.scope.CreatedBean;
 import io.micronaut.context.scope.CustomScope;
 import io.micronaut.core.annotation.NonNull;
-import io.micronaut.core.annotation.Nullable;
-import io.micronaut.core.util.CollectionUtils;
 import io.micronaut.inject.BeanIdentifier;
+import io.netty.channel.EventLoop;
 import io.vertx.core.Context;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 
@@ -22,6 +22,8 @@ import javax.inject.Singleton;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Singleton
 public class VerticleCustomScope implements CustomScope<Verticle>, LifeCycle<VerticleCustomScope>, ApplicationEventListener<VerticleTerminatedEvent> {
@@ -47,21 +49,8 @@ public class VerticleCustomScope implements CustomScope<Verticle>, LifeCycle<Ver
         if (!beanContext.isScoped(creationContext.definition())) {
             return null;
         }
-        final Map<BeanIdentifier, CreatedBean<T>> scopeMap = getScopeMap(true);
-        final BeanIdentifier id = creationContext.id();
-        CreatedBean<T> createdBean = scopeMap.get(id);
-        if (createdBean != null) {
-            return createdBean.bean();
-        } else {
-            createdBean = scopeMap.get(id);
-            if (createdBean != null) {
-                return createdBean.bean();
-            } else {
-                createdBean = doCreate(creationContext);
-                scopeMap.put(id, createdBean);
-                return createdBean.bean();
-            }
-        }
+        ScopedBeans scopedBeans = getScopedBeans(beanContext.getVertx().getOrCreateContext(), true);
+        return scopedBeans.getOrCreate(creationContext);
     }
 
     @Override
@@ -69,37 +58,30 @@ public class VerticleCustomScope implements CustomScope<Verticle>, LifeCycle<Ver
         if (identifier == null) {
             return Optional.empty();
         }
-        Map<BeanIdentifier, CreatedBean<T>> scopeMap;
-        try {
-            scopeMap = getScopeMap(false);
-        } catch (IllegalStateException e) {
+        ScopedBeans scopedBeans = getScopedBeans(beanContext.getVertx().getOrCreateContext(), false);
+        if (scopedBeans == null) {
             return Optional.empty();
         }
-        if (CollectionUtils.isNotEmpty(scopeMap)) {
-            CreatedBean<T> createdBean = scopeMap.get(identifier);
-            if (createdBean != null) {
-                try {
-                    createdBean.close();
-                } catch (BeanDestructionException e) {
-                    handleDestructionException(e);
-                }
-                return  Optional.of(createdBean.bean());
-            } else {
-                return Optional.empty();
-            }
-        } else {
+        BeanHolder holder = scopedBeans.shared.remove(identifier);
+        if (holder == null) {
             return Optional.empty();
         }
+        CreatedBean<T> createdBean = holder.destroy();
+        if (createdBean == null) {
+            return Optional.empty();
+        }
+        try {
+            createdBean.close();
+        } catch (BeanDestructionException e) {
+            handleDestructionException(e);
+        }
+        return Optional.of(createdBean.bean());
     }
+
     private void handleDestructionException(BeanDestructionException e) {
         logger.error("Error occurred destroying bean of scope @" + this.annotationType().getSimpleName() + ": " + e.getMessage(), e);
     }
 
-
-    protected <T> Map<BeanIdentifier, CreatedBean<T>> getScopeMap(boolean forCreation) {
-        Context context = beanContext.getVertx().getOrCreateContext();
-        return getRequestScopedBeans(context, forCreation);
-    }
     @Override
     public VerticleCustomScope stop() {
         Context context = beanContext.getVertx().getOrCreateContext();
@@ -111,38 +93,136 @@ public class VerticleCustomScope implements CustomScope<Verticle>, LifeCycle<Ver
         return true;
     }
 
-    private <T> void destroyBeans(Context context) {
-        Map<BeanIdentifier, CreatedBean<T>> requestScopedBeans =
-                getRequestScopedBeans(context, false);
-        if (requestScopedBeans != null) {
-            destroyScope(requestScopedBeans);
+    private void destroyBeans(Context context) {
+        ScopedBeans scopedBeans = getScopedBeans(context, false);
+        if (scopedBeans == null) {
+            return;
         }
-    }
-    protected <T> void destroyScope(@Nullable Map<BeanIdentifier, CreatedBean<T>> scopeMap) {
-        if (CollectionUtils.isNotEmpty(scopeMap)) {
-            for (CreatedBean<?> createdBean : scopeMap.values()) {
+        for (BeanIdentifier identifier : scopedBeans.shared.keySet()) {
+            BeanHolder holder = scopedBeans.shared.remove(identifier);
+            CreatedBean<?> createdBean = holder == null ? null : holder.destroy();
+            if (createdBean != null) {
+                try {
                     createdBean.close();
+                } catch (BeanDestructionException e) {
+                    handleDestructionException(e);
+                }
             }
-            scopeMap.clear();
         }
+        scopedBeans.pruneLocal();
     }
 
-    private synchronized <T> Map<BeanIdentifier, CreatedBean<T>> getRequestScopedBeans(Context context, boolean create) {
-        return this.getRequestAttributeMap(context, SCOPED_BEANS_ATTRIBUTE, create);
+    private ScopedBeans getScopedBeans(Context context, boolean create) {
+        ConcurrentMap<Object, Object> contextData = ((ContextInternal) context).contextData();
+        ScopedBeans scopedBeans = (ScopedBeans) contextData.get(SCOPED_BEANS_ATTRIBUTE);
+        if (scopedBeans == null && create) {
+            scopedBeans = (ScopedBeans) contextData.computeIfAbsent(SCOPED_BEANS_ATTRIBUTE, k -> new ScopedBeans((ContextInternal) context));
+        }
+        return scopedBeans;
     }
-    private <T> Map<BeanIdentifier, CreatedBean<T>> getRequestAttributeMap(Context context, String attribute, boolean create) {
-        HashMap<BeanIdentifier, CreatedBean<T>> local = context.get(attribute);
-        if (local != null) {
-            return local;
+
+    /**
+     * Beans of one verticle context. Every bean lives in {@code shared} and is created exactly once under its holder's
+     * lock; the event loop that owns the context additionally keeps a plain map of holders it reads without any
+     * synchronization.
+     */
+    private final class ScopedBeans {
+        private final EventLoop eventLoop;
+        private final Map<BeanIdentifier, BeanHolder> local = new HashMap<>();
+        private final ConcurrentMap<BeanIdentifier, BeanHolder> shared = new ConcurrentHashMap<>();
+
+        ScopedBeans(ContextInternal context) {
+            this.eventLoop = context.isEventLoopContext() ? context.nettyEventLoop() : null;
+        }
+
+        <T> T getOrCreate(BeanCreationContext<T> creationContext) {
+            BeanIdentifier id = creationContext.id();
+            boolean owner = eventLoop != null && eventLoop.inEventLoop();
+            if (owner) {
+                BeanHolder holder = local(id);
+                if (holder != null) {
+                    T bean = holder.get(creationContext);
+                    if (bean != null) {
+                        return bean;
+                    }
+                    local.remove(id);
+                }
+            }
+            while (true) {
+                BeanHolder holder = shared.get(id);
+                if (holder == null) {
+                    holder = shared.computeIfAbsent(id, k -> new BeanHolder());
+                }
+                T bean = holder.get(creationContext);
+                if (bean != null) {
+                    if (owner) {
+                        local.put(id, holder);
+                    }
+                    return bean;
+                }
+                // destroyed between the lookup and the creation, retry with a fresh holder
+                shared.remove(id, holder);
+            }
+        }
+
+        /**
+         * Drops destroyed holders from the event loop's map, on the event loop.
+         */
+        void pruneLocal() {
+            if (eventLoop == null) {
+                return;
+            }
+            if (eventLoop.inEventLoop()) {
+                local.values().removeIf(holder -> holder.destroyed);
+            } else {
+                eventLoop.execute(() -> local.values().removeIf(holder -> holder.destroyed));
+            }
         }
-        if (create) {
-            Map<BeanIdentifier, CreatedBean<T>> scopedBeans = new HashMap<>(5);
-            context.put(attribute, scopedBeans);
-            return scopedBeans;
+
+        private BeanHolder local(BeanIdentifier id) {
+            assert eventLoop.inEventLoop() : "scoped beans of " + eventLoop + " read from " + Thread.currentThread();
+            BeanHolder holder = local.get(id);
+            if (holder != null && holder.destroyed) {
+                local.remove(id);
+                return null;
+            }
+            return holder;
         }
-        return null;
     }
 
+    private final class BeanHolder {
+        private volatile CreatedBean<?> createdBean;
+        private volatile boolean destroyed;
+
+        /**
+         * @return the bean, or {@code null} once the holder is destroyed
+         */
+        @SuppressWarnings("unchecked")
+        <T> T get(BeanCreationContext<T> creationContext) {
+            CreatedBean<?> created = createdBean;
+            if (created == null) {
+                synchronized (this) {
+                    if (destroyed) {
+                        return null;
+                    }
+                    created = createdBean;
+                    if (created == null) {
+                        created = doCreate(creationContext);
+                        createdBean = created;
+                    }
+                }
+            }
+            return (T) created.bean();
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized <T> CreatedBean<T> destroy() {
+            destroyed = true;
+            CreatedBean<?> created = createdBean;
+            createdBean = null;
+            return (CreatedBean<T>) created;
+        }
+    }
 
     @Override
     public void onApplicationEvent(VerticleTerminatedEvent event) {
@@ -1,8 +1,13 @@
 package cn.vtohru.web;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.annotation.GlobalScope;
 import cn.vtohru.annotation.Verticle;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.MessageTracing;
+import cn.vtohru.metrics.Counter;
+import cn.vtohru.metrics.Histogram;
+import cn.vtohru.metrics.MetricsRegistry;
 import io.micronaut.context.ApplicationContext;
 import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.core.annotation.Indexed;
@@ -40,6 +45,8 @@ import java.util.regex.Pattern;
 public class VerticleRouterHandler {
     private static Pattern pathPattern = Pattern.compile("\\{(.*?)\\}");
     private static final Logger logger = LoggerFactory.getLogger(VerticleRouterHandler.class);
+    private static final String ROUTES_INDEX = "web.routes";
+    public static final String METRICS_PATH = "vtohru.metrics.path";
     private static final String[] DEFAULT_MEDIA_TYPES = new String[]{"application/json"};
     private VerticleApplicationContext context;
     private VerticleAnnotatedMethodRouteBuilder routeBuilder;
@@ -47,18 +54,38 @@ public class VerticleRouterHandler {
     private ResponseHandlerRegister responseHandlerRegister;
     private List<Interceptor> interceptorList;
     private List<ResourceHandler> resourceHandlers;
+    private MetricsRegistry metricsRegistry;
+    private GracefulShutdown gracefulShutdown;
 
-    public VerticleRouterHandler(ApplicationContext context, VerticleAnnotatedMethodRouteBuilder routeBuilder, ErrorHandlerRegister errorHandlerRegister, ResponseHandlerRegister responseHandlerRegister, List<Interceptor> interceptorList, List<ResourceHandler> resourceHandlers) {
+    public VerticleRouterHandler(ApplicationContext context, VerticleAnnotatedMethodRouteBuilder routeBuilder, ErrorHandlerRegister errorHandlerRegister, ResponseHandlerRegister responseHandlerRegister, List<Interceptor> interceptorList, List<ResourceHandler> resourceHandlers, MetricsRegistry metricsRegistry, GracefulShutdown gracefulShutdown) {
         this.context = (VerticleApplicationContext) context;
         this.routeBuilder = routeBuilder;
         this.errorHandlerRegister = errorHandlerRegister;
         this.responseHandlerRegister = responseHandlerRegister;
         this.interceptorList = interceptorList;
         this.resourceHandlers = resourceHandlers;
+        this.metricsRegistry = metricsRegistry;
+        this.gracefulShutdown = gracefulShutdown;
+    }
+
+    /**
+     * Counts the request as in flight until its response ended; once the application drains, new requests are turned
+     * away with a 503 and the connection is closed so clients retry against another instance.
+     */
+    private void track(RoutingContext rc) {
+        if (gracefulShutdown.isDraining()) {
+            rc.response().setStatusCode(503).putHeader("Connection", "close").end();
+            return;
+        }
+        gracefulShutdown.begin(GracefulShutdown.HTTP);
+        rc.addEndHandler(v -> gracefulShutdown.end(GracefulShutdown.HTTP));
+        rc.next();
     }
 
     public Router buildRouter() {
         Router router = Router.router(this.context.getVertx());
+        router.route().handler(this::track);
+        context.getProperty(METRICS_PATH, String.class).ifPresent(metricsPath -> router.get(metricsPath).handler(rc -> rc.json(metricsRegistry.snapshot())));
         for (ResourceHandler resourceHandler : this.resourceHandlers) {
             if (!context.isNull(resourceHandler)) {
                 Route route = StringUtils.isEmpty(resourceHandler.path()) ? router.route() : router.route(converter(resourceHandler.path()));
@@ -73,34 +100,32 @@ public class VerticleRouterHandler {
             }
         }
 
-        for (Map.Entry<BeanDefinition<?>, List<ExecutableMethod<?, ?>>> beanDefinitionListEntry : routeBuilder.getRouterMap().entrySet()) {
+        for (Map.Entry<BeanDefinition<?>, List<ExecutableMethod<?, ?>>> beanDefinitionListEntry : context.scoped(ROUTES_INDEX, routeBuilder.getRouterMap().entrySet(), Map.Entry::getKey)) {
             BeanDefinition<?> beanDefinition = beanDefinitionListEntry.getKey();
-            if (context.isScoped(beanDefinition)) {
-                Object bean= context.getBean(beanDefinition);
-                for (ExecutableMethod executableMethod : beanDefinitionListEntry.getValue()) {
-                    HttpMethod methodType = getMethodType(executableMethod);
-                    if (methodType == null) {
-                        continue;
-                    }
-                    String uri = executableMethod.stringValue(Path.class).orElse("");
-                    String[] produces = resolveProduces(executableMethod);
-                    String[] consumes = resolveConsumes(executableMethod);
-                    MediaType mediaType = Arrays.stream(produces).findFirst().map(MediaType::valueOf).orElse(MediaType.APPLICATION_JSON_TYPE);
-                    String beanPath = getBeanPath(beanDefinition);
-                    String path = converter(beanPath + uri);
-                    Route route = router.route(methodType, path);
-                    if (produces.length > 0) {
-                        route.produces(String.join(";", produces));
-                    }
-                    if (consumes.length > 0) {
-                        route.consumes(String.join(";", consumes));
-                    }
-                    route.handler(invokeInterceptor(bean, beanDefinition, executableMethod, mediaType));
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Created Route: " + uri);
-                    }
-                    logger.info(context.getScopeName() + ":register routerHandler:" + uri);
+            Object bean= context.getBean(beanDefinition);
+            for (ExecutableMethod executableMethod : beanDefinitionListEntry.getValue()) {
+                HttpMethod methodType = getMethodType(executableMethod);
+                if (methodType == null) {
+                    continue;
+                }
+                String uri = executableMethod.stringValue(Path.class).orElse("");
+                String[] produces = resolveProduces(executableMethod);
+                String[] consumes = resolveConsumes(executableMethod);
+                MediaType mediaType = Arrays.stream(produces).findFirst().map(MediaType::valueOf).orElse(MediaType.APPLICATION_JSON_TYPE);
+                String beanPath = getBeanPath(beanDefinition);
+                String path = converter(beanPath + uri);
+                Route route = router.route(methodType, path);
+                if (produces.length > 0) {
+                    route.produces(String.join(";", produces));
                 }
+                if (consumes.length > 0) {
+                    route.consumes(String.join(";", consumes));
+                }
+                route.handler(invokeInterceptor(bean, beanDefinition, executableMethod, mediaType, methodType.name(), path));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Created Route: " + uri);
+                }
+                logger.info(context.getScopeName() + ":register routerHandler:" + uri);
             }
         }
         if (errorHandlerRegister != null) {
@@ -152,8 +177,14 @@ public class VerticleRouterHandler {
         return null;
     }
 
-    private Handler<RoutingContext> invokeInterceptor(Object bean, BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, MediaType mediaType) {
+    private Handler<RoutingContext> invokeInterceptor(Object bean, BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, MediaType mediaType, String httpMethod, String path) {
+        Counter requests = metricsRegistry.counter("web.requests", "method", httpMethod, "path", path);
+        Counter failures = metricsRegistry.counter("web.failures", "method", httpMethod, "path", path);
+        Histogram latency = metricsRegistry.histogram("web.latency", "method", httpMethod, "path", path);
         return routingContext -> {
+            long start = System.nanoTime();
+            requests.increment();
+            MessageTracing.extract(routingContext.request().headers());
             Promise<Object> promise = Promise.promise();
             if (interceptorList == null || interceptorList.size() == 0) {
                 invokeHandler(routingContext, bean, method, mediaType).onSuccess(promise::complete).onFailure(promise::fail);
@@ -193,6 +224,10 @@ public class VerticleRouterHandler {
             }
             AbstractResponseHandler responseHandler = responseHandlerRegister.findResponseHandler(mediaType).orElse(this.context.getBean(JsonResponseHandler.class));
             promise.future().onComplete(x -> {
+                latency.record((System.nanoTime() - start) / 1000);
+                if (x.failed()) {
+                    failures.increment();
+                }
                 if (routingContext.response().ended()) {
                     return;
                 }
@@ -1,5 +1,6 @@
 package cn.vtohru.web;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.VerticleEvent;
 import cn.vtohru.context.VerticleApplicationContext;
 import cn.vtohru.microservice.MicroServiceDiscovery;
@@ -29,7 +30,8 @@ public class WebContainerManager extends VerticleEvent {
     private static final String WEB_CONFIG_PREFIX = "vtohru.web";
     private static final Logger logger = LoggerFactory.getLogger(WebContainerManager.class);
     private VerticleApplicationContext applicationContext;
-    private HttpServer httpServer;
+    private static final String HTTP_SERVER_ATTRIBUTE = "CN.VTOHRU.HTTP_SERVER";
+    private static final String WEB_SERVICE_ATTRIBUTE = "CN.VTOHRU.WEB_SERVICE";
 
     public WebContainerManager(ApplicationContext applicationContext) {
         this.applicationContext = (VerticleApplicationContext) applicationContext;
@@ -49,9 +51,10 @@ public class WebContainerManager extends VerticleEvent {
         HttpServerOptions httpServerOptions = new HttpServerOptions(httpConfig);
         httpServerOptions.setPort(port);
         httpServerOptions.setHost(host);
-        this.httpServer = applicationContext.getVertx().createHttpServer(httpServerOptions);
+        HttpServer httpServer = applicationContext.getVertx().createHttpServer(httpServerOptions);
+        applicationContext.getVertx().getOrCreateContext().put(HTTP_SERVER_ATTRIBUTE, httpServer);
         Router router = verticleRouterHandler.buildRouter();
-        return this.httpServer.requestHandler(router).listen().compose(x->{
+        return httpServer.requestHandler(router).listen().compose(x->{
             logger.info(applicationContext.getScopeName() + "-start http server success at port:" + x.actualPort());
             Optional<AnnotationValue<WebService>> webServiceAnnotationValue = annotation.getAnnotation("service", WebService.class);
             if (!webServiceAnnotationValue.isPresent()) {
@@ -66,6 +69,8 @@ public class WebContainerManager extends VerticleEvent {
                     new JsonObject().put("api.name", name));
             return serviceDiscovery.publishService(record).compose(y -> {
                 logger.info("publish web service success:" + name);
+                GracefulShutdown.Registration drain = applicationContext.getBean(GracefulShutdown.class).onDrain(() -> serviceDiscovery.unpublish(y.getRegistration()));
+                applicationContext.getVertx().getOrCreateContext().put(WEB_SERVICE_ATTRIBUTE, new WebServicePublication(y, drain));
                 return Future.succeededFuture();
             });
         });
@@ -73,10 +78,29 @@ public class WebContainerManager extends VerticleEvent {
 
     @Override
     public Future<Void> stop(BeanDefinition<?> beanDefinition) {
+        Future<Void> unpublished = Future.succeededFuture();
+        WebServicePublication publication = applicationContext.getVertx().getOrCreateContext().get(WEB_SERVICE_ATTRIBUTE);
+        if (publication != null) {
+            applicationContext.getVertx().getOrCreateContext().remove(WEB_SERVICE_ATTRIBUTE);
+            publication.drain.cancel();
+            // fails when the drain already withdrew the record
+            unpublished = applicationContext.getBean(MicroServiceDiscovery.class).unpublish(publication.record.getRegistration()).otherwiseEmpty();
+        }
+        HttpServer httpServer = applicationContext.getVertx().getOrCreateContext().get(HTTP_SERVER_ATTRIBUTE);
         if (httpServer != null) {
-            return httpServer.close();
+            applicationContext.getVertx().getOrCreateContext().remove(HTTP_SERVER_ATTRIBUTE);
+            return unpublished.compose(v -> httpServer.close());
         }
-        return Future.succeededFuture();
+        return unpublished;
     }
 
+    private static final class WebServicePublication {
+        private final Record record;
+        private final GracefulShutdown.Registration drain;
+
+        WebServicePublication(Record record, GracefulShutdown.Registration drain) {
+            this.record = record;
+            this.drain = drain;
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package cn.vtohru;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.microservice.MicroServiceDiscovery;
+import cn.vtohru.microservice.MicroServiceRegister;
+import cn.vtohru.runtime.VTohru;
+import cn.vtohru.service.HelloService;
+import cn.vtohru.service.impl.HelloServiceImpl;
+import cn.vtohru.web.VerticleRouterHandler;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GracefulShutdownTest {
+    private Vertx vertx;
+    private VerticleApplicationContext context;
+    private GracefulShutdown gracefulShutdown;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        context = new VTohru().properties(Collections.singletonMap(GracefulShutdown.DRAIN_TIMEOUT, 5000)).build();
+        context.registerSingleton(context, false);
+        context.start();
+        context.setVertx(vertx);
+        context.registerSingleton(Vertx.class, vertx);
+        gracefulShutdown = context.getBean(GracefulShutdown.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vertx.close();
+    }
+
+    @Test
+    public void drainRefusesNewRequestsAndWaitsForTheOnesInFlight() throws Exception {
+        CompletableFuture<RoutingContext> slow = new CompletableFuture<>();
+        CompletableFuture<HttpServer> listening = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            Router router = context.getBean(VerticleRouterHandler.class).buildRouter();
+            router.get("/slow").handler(slow::complete);
+            vertx.createHttpServer().requestHandler(router).listen(0).onSuccess(listening::complete).onFailure(listening::completeExceptionally);
+        });
+        int port = listening.get(10, TimeUnit.SECONDS).actualPort();
+        HttpClient client = vertx.createHttpClient();
+        CompletableFuture<Integer> slowStatus = status(client, port, "/slow");
+        RoutingContext inFlight = slow.get(10, TimeUnit.SECONDS);
+        assertEquals(1, gracefulShutdown.inFlight());
+
+        CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(gracefulShutdown::drain);
+        while (!gracefulShutdown.isDraining()) {
+            Thread.sleep(10);
+        }
+        assertEquals(503, status(client, port, "/slow").get(10, TimeUnit.SECONDS).intValue());
+        Thread.sleep(200);
+        assertFalse("drain returned with a request in flight", drained.isDone());
+
+        vertx.runOnContext(v -> inFlight.response().end());
+        assertEquals(200, slowStatus.get(10, TimeUnit.SECONDS).intValue());
+        assertTrue(drained.get(10, TimeUnit.SECONDS));
+        assertEquals(0, gracefulShutdown.inFlight());
+    }
+
+    @Test
+    public void undeployWithdrawsThePublishedServiceAndItsDrainHook() throws Exception {
+        int hooks = gracefulShutdown.drainHooks();
+        MicroServiceDiscovery discovery = new MicroServiceDiscovery(context);
+        String deploymentId = vertx.deployVerticle(new AbstractVerticle() {
+            @Override
+            public void start() {
+                new MicroServiceRegister(GracefulShutdownTest.this.context, discovery, gracefulShutdown)
+                        .registerService(HelloService.class, GracefulShutdownTest.this.context.getBeanDefinition(HelloServiceImpl.class));
+            }
+        }).toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(hooks + 1, gracefulShutdown.drainHooks());
+        assertEquals(1, records(discovery));
+
+        vertx.undeploy(deploymentId).toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(hooks, gracefulShutdown.drainHooks());
+        assertEquals(0, records(discovery));
+    }
+
+    private int records(MicroServiceDiscovery discovery) throws Exception {
+        List<?> records = discovery.getRecords(record -> true).toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        return records.size();
+    }
+
+    private CompletableFuture<Integer> status(HttpClient client, int port, String path) {
+        CompletableFuture<Integer> status = new CompletableFuture<>();
+        client.request(HttpMethod.GET, port, "localhost", path)
+                .compose(request -> request.send())
+                .onSuccess(response -> status.complete(response.statusCode()))
+                .onFailure(status::completeExceptionally);
+        return status;
+    }
+}
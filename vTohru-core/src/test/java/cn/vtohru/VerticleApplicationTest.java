@@ -0,0 +1,87 @@
+package cn.vtohru;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.runtime.VTohru;
+import cn.vtohru.verticle.ReportVerticle;
+import cn.vtohru.verticle.TestVerticle;
+import io.micronaut.inject.BeanDefinition;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VerticleApplicationTest {
+    private VerticleApplicationContext context;
+    private VerticleApplication application;
+
+    @Before
+    public void setUp() {
+        context = new VTohru().build();
+        context.registerSingleton(context, false);
+        context.start();
+        application = new VerticleApplication(context, null);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void optionsComeFromTheAnnotation() {
+        BeanDefinition<ReportVerticle> definition = context.getBeanDefinition(ReportVerticle.class);
+        DeploymentOptions options = application.deploymentOptions("report", definition, new JsonObject());
+        assertEquals(3, options.getInstances());
+        assertTrue(options.isWorker());
+        assertEquals("reports", options.getWorkerPoolName());
+    }
+
+    @Test
+    public void configOverridesTheAnnotation() {
+        BeanDefinition<ReportVerticle> definition = context.getBeanDefinition(ReportVerticle.class);
+        JsonObject config = new JsonObject()
+                .put(VerticleApplication.INSTANCES, 1)
+                .put(VerticleApplication.WORKER, false)
+                .put(VerticleApplication.WORKER_POOL_NAME, "batch")
+                .put(VerticleApplication.WORKER_POOL_SIZE, 4);
+        DeploymentOptions options = application.deploymentOptions("report", definition, config);
+        assertEquals(1, options.getInstances());
+        assertFalse(options.isWorker());
+        assertEquals("batch", options.getWorkerPoolName());
+        assertEquals(4, options.getWorkerPoolSize());
+        assertEquals(config, options.getConfig());
+    }
+
+    @Test
+    public void instancesAreReadFromTheVerticleConfig() {
+        BeanDefinition<TestVerticle> definition = context.getBeanDefinition(TestVerticle.class);
+        String verticleName = context.getVerticleName(definition);
+        DeploymentOptions options = application.deploymentOptions(verticleName, definition, context.getVConfig(definition));
+        assertEquals(2, options.getInstances());
+        assertFalse(options.isWorker());
+        assertNull(options.getWorkerPoolName());
+    }
+
+    @Test
+    public void poolSizeWithoutNameGetsADedicatedPool() {
+        BeanDefinition<TestVerticle> definition = context.getBeanDefinition(TestVerticle.class);
+        DeploymentOptions options = application.deploymentOptions("testverticle", definition,
+                new JsonObject().put(VerticleApplication.WORKER_POOL_SIZE, 2));
+        assertEquals("testverticle-worker", options.getWorkerPoolName());
+        assertEquals(2, options.getWorkerPoolSize());
+    }
+
+    @Test
+    public void virtualThreadsFallBackToWorker() {
+        BeanDefinition<TestVerticle> definition = context.getBeanDefinition(TestVerticle.class);
+        DeploymentOptions options = application.deploymentOptions("testverticle", definition,
+                new JsonObject().put(VerticleApplication.VIRTUAL_THREADS, true));
+        assertTrue(options.isWorker());
+    }
+}
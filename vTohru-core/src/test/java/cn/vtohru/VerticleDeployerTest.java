@@ -0,0 +1,70 @@
+package cn.vtohru;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VerticleDeployerTest {
+
+    @Test
+    public void deploysIndependentVerticlesTogether() {
+        List<String> started = new ArrayList<>();
+        Map<String, Promise<String>> pending = new HashMap<>();
+        VerticleDeployer deployer = new VerticleDeployer();
+        for (String name : new String[]{"db", "cache", "web"}) {
+            String[] dependsOn = "web".equals(name) ? new String[]{"DB", "cache"} : new String[0];
+            deployer.add(name, dependsOn, () -> {
+                started.add(name);
+                Promise<String> promise = Promise.promise();
+                pending.put(name, promise);
+                return promise.future();
+            });
+        }
+        Future<Void> future = deployer.deploy();
+        assertEquals(2, started.size());
+        pending.get("db").complete("1");
+        assertEquals(2, started.size());
+        pending.get("cache").complete("2");
+        assertEquals("web", started.get(2));
+        pending.get("web").complete("3");
+        assertTrue(future.succeeded());
+        assertEquals(3, deployer.timings().size());
+    }
+
+    @Test
+    public void failureStopsDependents() {
+        List<String> started = new ArrayList<>();
+        VerticleDeployer deployer = new VerticleDeployer();
+        deployer.add("db", null, () -> Future.failedFuture("no database"));
+        deployer.add("web", new String[]{"db"}, () -> {
+            started.add("web");
+            return Future.succeededFuture("1");
+        });
+        Future<Void> future = deployer.deploy();
+        assertTrue(future.failed());
+        assertTrue(future.cause().getMessage(), future.cause().getMessage().contains("skipped [web]"));
+        assertTrue(started.isEmpty());
+    }
+
+    @Test
+    public void rejectsCycles() {
+        VerticleDeployer deployer = new VerticleDeployer();
+        deployer.add("a", new String[]{"b"}, () -> Future.succeededFuture("1"));
+        deployer.add("b", new String[]{"a"}, () -> Future.succeededFuture("2"));
+        try {
+            deployer.deploy();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("cycle"));
+        }
+    }
+}
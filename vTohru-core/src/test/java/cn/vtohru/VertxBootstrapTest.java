@@ -0,0 +1,24 @@
+package cn.vtohru;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VertxBootstrapTest {
+
+    @Test
+    public void kebabCaseKeysMapOntoVertxOptions() {
+        JsonObject config = new JsonObject()
+                .put("event-loop-pool-size", 3)
+                .put("prefer-native-transport", true)
+                .put("file-system-options", new JsonObject().put("file-caching-enabled", false));
+        VertxOptions options = new VertxOptions(VertxBootstrap.camelCase(config));
+        assertEquals(3, options.getEventLoopPoolSize());
+        assertTrue(options.getPreferNativeTransport());
+        assertFalse(options.getFileSystemOptions().isFileCachingEnabled());
+    }
+}
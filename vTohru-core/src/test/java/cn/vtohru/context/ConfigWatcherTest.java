@@ -0,0 +1,105 @@
+package cn.vtohru.context;
+
+import cn.vtohru.event.ConfigRefreshEvent;
+import cn.vtohru.runtime.VTohru;
+import io.micronaut.core.naming.conventions.StringConvention;
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigWatcherTest {
+    private Vertx vertx;
+    private File file;
+    private VerticleApplicationContext context;
+
+    @Before
+    public void setUp() throws IOException {
+        vertx = Vertx.vertx();
+        File dir = Files.createTempDirectory("config").toFile();
+        dir.deleteOnExit();
+        file = new File(dir, "application.yml");
+        file.deleteOnExit();
+        write("vtohru:\n  watched: one\n  stable: same\n");
+        context = ((VTohru) new VTohru().overrideConfigLocations("file:" + dir.getPath()))
+                .properties(Collections.singletonMap(ConfigWatcher.INTERVAL, 50))
+                .build();
+        context.registerSingleton(context, false);
+        context.start();
+        context.setVertx(vertx);
+    }
+
+    @After
+    public void tearDown() {
+        context.getBean(ConfigWatcher.class).stop();
+        context.close();
+        vertx.close();
+    }
+
+    @Test
+    public void changedFileIsPublishedWithThePreviousValues() throws Exception {
+        ConfigWatcher watcher = context.getBean(ConfigWatcher.class);
+        CompletableFuture<ConfigRefreshEvent> refreshed = new CompletableFuture<>();
+        watcher.onRefresh(refreshed::complete);
+        watcher.start(vertx);
+        write("vtohru:\n  watched: three\n  stable: same\n");
+        ConfigRefreshEvent event = refreshed.get(10, TimeUnit.SECONDS);
+        assertTrue(event.isChanged("vtohru.watched"));
+        assertFalse(event.isChanged("vtohru.stable"));
+        assertEquals("one", event.getSource().get("vtohru.watched"));
+        assertEquals("three", context.getProperty("vtohru.watched", String.class).orElse(null));
+    }
+
+    @Test
+    public void readsDuringRefreshSeeAValue() throws Exception {
+        ConfigWatcher watcher = context.getBean(ConfigWatcher.class);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        AtomicInteger reads = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    if (!"same".equals(context.getProperty("vtohru.stable", String.class).orElse(null))
+                            || !"same".equals(context.getEnvironment().getProperties("vtohru", StringConvention.CAMEL_CASE).get("stable"))) {
+                        misses.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    misses.incrementAndGet();
+                }
+                reads.incrementAndGet();
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 50; i++) {
+                write("vtohru:\n  watched: v" + i + "\n  stable: same\n");
+                Map<String, Object> changes = watcher.refresh().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+                assertTrue(changes.containsKey("vtohru.watched"));
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        assertTrue(reads.get() > 0);
+        assertEquals(0, misses.get());
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
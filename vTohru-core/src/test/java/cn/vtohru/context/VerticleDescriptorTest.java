@@ -0,0 +1,47 @@
+package cn.vtohru.context;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VerticleDescriptorTest {
+
+    @Test
+    public void indexIsBuiltOnce() {
+        VerticleDescriptor descriptor = new VerticleDescriptor("test", new String[]{"cn.vtohru"});
+        AtomicInteger builds = new AtomicInteger();
+        List<String> first = descriptor.index("key", () -> {
+            builds.incrementAndGet();
+            return new ArrayList<>(Arrays.asList("a", "b"));
+        });
+        List<String> second = descriptor.index("key", () -> {
+            builds.incrementAndGet();
+            return new ArrayList<>();
+        });
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+        assertEquals(1, descriptor.hits());
+        descriptor.clear();
+        assertEquals(0, descriptor.index("key", ArrayList::new).size());
+    }
+
+    @Test
+    public void cachesSurviveUntilTheLastInstanceStops() {
+        VerticleDescriptor descriptor = new VerticleDescriptor("test", new String[]{"cn.vtohru"});
+        descriptor.attach();
+        descriptor.attach();
+        List<String> cached = descriptor.index("key", () -> new ArrayList<>(Arrays.asList("a")));
+        assertFalse(descriptor.detach());
+        assertSame(cached, descriptor.index("key", ArrayList::new));
+        assertTrue(descriptor.detach());
+        assertEquals(0, descriptor.index("key", ArrayList::new).size());
+    }
+}
@@ -0,0 +1,56 @@
+package cn.vtohru.context.env;
+
+import io.micronaut.core.convert.ConversionService;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrozenPropertyCatalogTest {
+
+    @Test
+    public void everyKeyIsFound() {
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            properties.put("vtohru.key" + i, String.valueOf(i));
+        }
+        FrozenPropertyCatalog catalog = FrozenPropertyCatalog.build(properties, ConversionService.SHARED);
+        assertEquals(2000, catalog.size());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, catalog.get("vtohru.key" + i, Integer.class));
+        }
+        assertFalse(catalog.contains("vtohru.key2000"));
+        assertNull(catalog.get("vtohru.missing", String.class));
+    }
+
+    @Test
+    public void valuesArePreConverted() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("port", "8080");
+        properties.put("enabled", true);
+        properties.put("name", "vtohru");
+        FrozenPropertyCatalog catalog = FrozenPropertyCatalog.build(properties, ConversionService.SHARED);
+        assertEquals(8080, catalog.get("port", int.class));
+        assertEquals(8080L, catalog.get("port", Long.class));
+        assertEquals("true", catalog.get("enabled", String.class));
+        assertEquals(true, catalog.get("enabled", Boolean.class));
+        assertNull(catalog.get("name", Integer.class));
+        assertNull(catalog.get("port", StringBuilder.class));
+
+        File file = File.createTempFile("catalog", ".ser");
+        file.deleteOnExit();
+        catalog.write(file);
+        FrozenPropertyCatalog stored = FrozenPropertyCatalog.read(file);
+        assertNotNull(stored);
+        assertEquals(FrozenPropertyCatalog.digest(properties), stored.getDigest());
+        assertTrue(stored.contains("name"));
+        assertEquals("vtohru", stored.get("name", String.class));
+    }
+}
@@ -0,0 +1,36 @@
+package cn.vtohru.event;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigRefreshEventTest {
+
+    @Test
+    public void keysMatchOnSegmentBoundaries() {
+        ConfigRefreshEvent event = new ConfigRefreshEvent(Collections.singletonMap("vtohru.datasource.orders.url", "old"), null);
+        assertTrue(event.isChanged("vtohru.datasource.orders.url"));
+        assertTrue(event.isChanged("vtohru.datasource.orders"));
+        assertTrue(event.isChanged("vtohru.datasource"));
+        assertFalse(event.isChanged("vtohru.data"));
+        assertFalse(event.isChanged("vtohru.datasource.orders.url.extra"));
+        assertFalse(event.isChanged("vtohru.datasource.users"));
+    }
+
+    @Test
+    public void scopedKeysMatchTheirVerticleOnly() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("vtohru.vtc-orderverticle.datasource.orders.pool.max-size", 4);
+        ConfigRefreshEvent scoped = new ConfigRefreshEvent(changes, "OrderVerticle");
+        assertTrue(scoped.isChanged("vtohru.datasource.orders.pool"));
+        assertTrue(scoped.isChanged("vtohru.vtc-orderverticle.datasource"));
+        assertFalse(scoped.isChanged("vtohru.datasource.orders.url"));
+        assertFalse(new ConfigRefreshEvent(changes, "UserVerticle").isChanged("vtohru.datasource.orders.pool"));
+        assertFalse(new ConfigRefreshEvent(changes, null).isChanged("vtohru.datasource.orders.pool"));
+    }
+}
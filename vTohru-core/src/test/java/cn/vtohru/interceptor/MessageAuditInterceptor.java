@@ -0,0 +1,29 @@
+package cn.vtohru.interceptor;
+
+import cn.vtohru.annotation.Verticle;
+import cn.vtohru.message.MessageInterceptor;
+import io.micronaut.core.annotation.Indexed;
+import io.micronaut.core.annotation.Order;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+@Verticle
+@Order(1)
+@Indexed(MessageInterceptor.class)
+public class MessageAuditInterceptor implements MessageInterceptor {
+    @Override
+    public Future<Void> preHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message) {
+        System.out.println("message:" + message.address());
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> afterHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, AsyncResult<Object> asyncResult) {
+        System.out.println("after message:" + message.address() + " " + asyncResult.succeeded());
+        return Future.succeededFuture();
+    }
+}
@@ -0,0 +1,51 @@
+package cn.vtohru.message;
+
+import cn.vtohru.message.annotation.MessageAddress;
+import cn.vtohru.message.annotation.MessageBackpressure;
+import cn.vtohru.message.annotation.MessageListener;
+import cn.vtohru.message.annotation.MessageType;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+@MessageListener
+public class BackpressureListener {
+    static final BlockingQueue<Promise<String>> PENDING = new LinkedBlockingQueue<>();
+    static final BlockingQueue<String> TRACES = new LinkedBlockingQueue<>();
+
+    @MessageAddress(value = "backpressure.reject", type = MessageType.Type.REQUEST)
+    @MessageBackpressure(maxInFlight = 1, maxQueue = 2, overflow = MessageBackpressure.Overflow.REJECT)
+    public Future<String> reject(String name) {
+        return hold(name);
+    }
+
+    @MessageAddress(value = "backpressure.drop", type = MessageType.Type.REQUEST)
+    @MessageBackpressure(maxInFlight = 1, maxQueue = 2, overflow = MessageBackpressure.Overflow.DROP_OLDEST)
+    public Future<String> drop(String name) {
+        return hold(name);
+    }
+
+    @MessageAddress(value = "backpressure.pause", type = MessageType.Type.REQUEST)
+    @MessageBackpressure(maxInFlight = 1, maxQueue = 2, overflow = MessageBackpressure.Overflow.PAUSE)
+    public Future<String> pause(String name) {
+        return hold(name);
+    }
+
+    @MessageAddress(value = "backpressure.wide", type = MessageType.Type.REQUEST)
+    @MessageBackpressure(maxInFlight = 2, maxQueue = 4, overflow = MessageBackpressure.Overflow.REJECT)
+    public Future<String> wide(String name) {
+        return hold(name);
+    }
+
+    private Future<String> hold(String name) {
+        if ("boom".equals(name)) {
+            throw new IllegalStateException("boom");
+        }
+        TRACES.add(String.valueOf(MessageTracing.current()));
+        Promise<String> promise = Promise.promise();
+        PENDING.add(promise);
+        return promise.future().map(v -> name);
+    }
+}
@@ -0,0 +1,237 @@
+package cn.vtohru.message;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.message.annotation.MessageType;
+import cn.vtohru.metrics.MetricsRegistry;
+import cn.vtohru.runtime.VTohru;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class EventBusBackpressureTest {
+    private Vertx vertx;
+    private VerticleApplicationContext context;
+
+    @Before
+    public void setUp() {
+        BackpressureListener.PENDING.clear();
+        BackpressureListener.TRACES.clear();
+        vertx = Vertx.vertx();
+        context = new VTohru().build();
+        context.registerSingleton(context, false);
+        context.start();
+        context.setVertx(vertx);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vertx.close();
+    }
+
+    @Test
+    public void rejectFailsTheNewestMessage() throws Exception {
+        register("reject");
+        List<CompletableFuture<Object>> replies = send("backpressure.reject", "a", "b", "c", "d");
+        assertEquals(503, failure(replies.get(3)).failureCode());
+        completePending(3);
+        assertEquals("a", replies.get(0).get(10, TimeUnit.SECONDS));
+        assertEquals("b", replies.get(1).get(10, TimeUnit.SECONDS));
+        assertEquals("c", replies.get(2).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void dropOldestFailsTheOldestQueuedMessage() throws Exception {
+        register("drop");
+        List<CompletableFuture<Object>> replies = send("backpressure.drop", "a", "b", "c", "d");
+        assertEquals(503, failure(replies.get(1)).failureCode());
+        completePending(3);
+        assertEquals("a", replies.get(0).get(10, TimeUnit.SECONDS));
+        assertEquals("c", replies.get(2).get(10, TimeUnit.SECONDS));
+        assertEquals("d", replies.get(3).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void pauseKeepsEveryMessageAndResumes() throws Exception {
+        register("pause");
+        List<CompletableFuture<Object>> replies = send("backpressure.pause", "a", "b", "c", "d");
+        Promise<String> first = BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNull(BackpressureListener.PENDING.poll(100, TimeUnit.MILLISECONDS));
+        for (CompletableFuture<Object> reply : replies) {
+            assertFalse(reply.isDone());
+        }
+        first.complete();
+        completePending(3);
+        for (int i = 0; i < replies.size(); i++) {
+            assertEquals(String.valueOf((char) ('a' + i)), replies.get(i).get(10, TimeUnit.SECONDS));
+        }
+        List<CompletableFuture<Object>> resumed = send("backpressure.pause", "e");
+        completePending(1);
+        assertEquals("e", resumed.get(0).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failingListenerDoesNotStopTheDrain() throws Exception {
+        register("reject");
+        List<CompletableFuture<Object>> replies = send("backpressure.reject", "a", "boom", "c");
+        completePending(2);
+        assertEquals("a", replies.get(0).get(10, TimeUnit.SECONDS));
+        assertEquals("boom", failure(replies.get(1)).getMessage());
+        assertEquals("c", replies.get(2).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void batchItemsCountAgainstMaxInFlight() throws Exception {
+        register("reject");
+        CompletableFuture<Object> reply = batch("backpressure.reject", "a", "b", "c");
+        for (int i = 0; i < 3; i++) {
+            Promise<String> promise = BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS);
+            assertNotNull("batch item " + i + " never started", promise);
+            assertNull("more batch items in flight than maxInFlight", BackpressureListener.PENDING.poll(100, TimeUnit.MILLISECONDS));
+            promise.complete();
+        }
+        JsonArray results = (JsonArray) reply.get(10, TimeUnit.SECONDS);
+        assertEquals("a", results.getJsonObject(0).getString(MessageRequestBatcher.BATCH_RESULT));
+        assertEquals("b", results.getJsonObject(1).getString(MessageRequestBatcher.BATCH_RESULT));
+        assertEquals("c", results.getJsonObject(2).getString(MessageRequestBatcher.BATCH_RESULT));
+        List<CompletableFuture<Object>> after = send("backpressure.reject", "d");
+        completePending(1);
+        assertEquals("d", after.get(0).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void batchTakesFreeSlotsAndGivesThemBack() throws Exception {
+        register("wide");
+        CompletableFuture<Object> reply = batch("backpressure.wide", "a", "b", "c");
+        Promise<String> first = BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS);
+        Promise<String> second = BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertNull(BackpressureListener.PENDING.poll(100, TimeUnit.MILLISECONDS));
+        first.complete();
+        second.complete();
+        completePending(1);
+        assertEquals(3, ((JsonArray) reply.get(10, TimeUnit.SECONDS)).size());
+        send("backpressure.wide", "d", "e");
+        assertNotNull(BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS));
+        assertNotNull("slot of the batch was not given back", BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void queuedMessageKeepsItsTrace() throws Exception {
+        register("reject");
+        String first = "00-11111111111111111111111111111111-aaaaaaaaaaaaaaaa-01";
+        String second = "00-22222222222222222222222222222222-bbbbbbbbbbbbbbbb-01";
+        CompletableFuture<Object> firstReply = request("backpressure.reject", "a", first);
+        CompletableFuture<Object> secondReply = request("backpressure.reject", "b", second);
+        assertEquals(first, BackpressureListener.TRACES.poll(10, TimeUnit.SECONDS));
+        completePending(2);
+        assertEquals(second, BackpressureListener.TRACES.poll(10, TimeUnit.SECONDS));
+        assertEquals("a", firstReply.get(10, TimeUnit.SECONDS));
+        assertEquals("b", secondReply.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void everyHandlerOwnsItsGauges() throws Exception {
+        EventBusMessageHandler<BackpressureListener> first = register("reject");
+        EventBusMessageHandler<BackpressureListener> second = register("reject");
+        MetricsRegistry metricsRegistry = context.getBean(MetricsRegistry.class);
+        assertEquals(2, inflightGauges(metricsRegistry));
+        first.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(1, inflightGauges(metricsRegistry));
+        second.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(0, inflightGauges(metricsRegistry));
+    }
+
+    private static long inflightGauges(MetricsRegistry metricsRegistry) {
+        return metricsRegistry.snapshot().fieldNames().stream()
+                .filter(name -> name.startsWith(EventBusMetrics.CONSUMER + ".inflight{address=backpressure.reject,")).count();
+    }
+
+    private EventBusMessageHandler<BackpressureListener> register(String methodName) throws Exception {
+        BeanDefinition<BackpressureListener> definition = context.getBeanDefinition(BackpressureListener.class);
+        ExecutableMethod<BackpressureListener, Object> method = (ExecutableMethod<BackpressureListener, Object>) definition.findMethod(methodName, String.class).get();
+        EventBusMessageHandler<BackpressureListener> handler = new EventBusMessageHandler<>(context, definition, method, MessageType.Type.REQUEST);
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+        vertx.runOnContext(v -> handler.register(vertx.eventBus(), "backpressure." + methodName).completionHandler(ar -> registered.complete(null)));
+        registered.get(10, TimeUnit.SECONDS);
+        return handler;
+    }
+
+    private List<CompletableFuture<Object>> send(String address, String... names) {
+        List<CompletableFuture<Object>> replies = new ArrayList<>();
+        for (String name : names) {
+            replies.add(request(address, name, null));
+        }
+        return replies;
+    }
+
+    private CompletableFuture<Object> batch(String address, String... names) {
+        JsonArray items = new JsonArray();
+        for (String name : names) {
+            items.add(new JsonObject().put("name", name));
+        }
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        DeliveryOptions deliveryOptions = new DeliveryOptions().addHeader(MessageRequestBatcher.BATCH_HEADER, String.valueOf(names.length));
+        vertx.eventBus().request(address, new JsonObject().put(MessageRequestBatcher.BATCH_ITEMS, items), deliveryOptions, ar -> {
+            if (ar.succeeded()) {
+                reply.complete(ar.result().body());
+            } else {
+                reply.completeExceptionally(ar.cause());
+            }
+        });
+        return reply;
+    }
+
+    private CompletableFuture<Object> request(String address, String name, String traceparent) {
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        DeliveryOptions deliveryOptions = new DeliveryOptions();
+        if (traceparent != null) {
+            deliveryOptions.addHeader(MessageTracing.TRACEPARENT, traceparent);
+        }
+        vertx.eventBus().request(address, new JsonObject().put("name", name), deliveryOptions, ar -> {
+            if (ar.succeeded()) {
+                reply.complete(ar.result().body());
+            } else {
+                reply.completeExceptionally(ar.cause());
+            }
+        });
+        return reply;
+    }
+
+    private void completePending(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            Promise<String> promise = BackpressureListener.PENDING.poll(10, TimeUnit.SECONDS);
+            assertNotNull("listener invocation " + i + " never started", promise);
+            promise.complete();
+        }
+    }
+
+    private ReplyException failure(CompletableFuture<Object> reply) throws Exception {
+        try {
+            reply.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return (ReplyException) e.getCause();
+        }
+        throw new AssertionError("reply succeeded");
+    }
+}
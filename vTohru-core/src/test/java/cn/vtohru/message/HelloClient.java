@@ -1,6 +1,7 @@
 package cn.vtohru.message;
 
 import cn.vtohru.message.annotation.MessageAddress;
+import cn.vtohru.message.annotation.MessageBatch;
 import cn.vtohru.message.annotation.MessageClient;
 import cn.vtohru.message.annotation.MessageType;
 import io.vertx.core.AsyncResult;
@@ -20,5 +21,6 @@ public interface HelloClient {
     void goodMorning(String msg);
 
     @MessageAddress(value = "good", type = MessageType.Type.REQUEST)
+    @MessageBatch(size = 16, window = 2000)
     Future<String> luck(String name, JsonObject data);
 }
@@ -1,6 +1,7 @@
 package cn.vtohru.message;
 
 import cn.vtohru.message.annotation.MessageAddress;
+import cn.vtohru.message.annotation.MessageBackpressure;
 import cn.vtohru.message.annotation.MessageListener;
 import cn.vtohru.message.annotation.MessageType;
 import cn.vtohru.model.SimpleModel;
@@ -32,6 +33,7 @@ public class HelloMessage {
     }
 
     @MessageAddress(value = "good", type = MessageType.Type.REQUEST)
+    @MessageBackpressure(maxInFlight = 8, maxQueue = 256, overflow = MessageBackpressure.Overflow.REJECT)
     public Future<String> googlucker(String name, SimpleModel data) {
         Promise<String> promise = Promise.promise();
         System.out.println("name:" + name);
@@ -0,0 +1,160 @@
+package cn.vtohru.message;
+
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageInterceptorChainTest {
+    private Vertx vertx;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        calls = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void interceptorsWrapTargetInOrder() throws Exception {
+        MessageInterceptorChain chain = new MessageInterceptorChain(new MessageInterceptor[]{new Recording("a", false, false), new Recording("b", true, false)});
+        vertx.eventBus().<JsonObject>consumer("chain", msg -> chain.execute(null, null, msg, m -> {
+            calls.add("target");
+            m.reply("ok");
+            return Future.succeededFuture("ok");
+        }).onComplete(ar -> calls.add("done")));
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        vertx.eventBus().request("chain", new JsonObject(), ar -> reply.complete(ar.result().body()));
+        assertEquals("ok", reply.get(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals("[pre a, pre b, target, after b, after a, done]", calls.toString());
+    }
+
+    @Test
+    public void rejectingInterceptorFailsMessage() throws Exception {
+        MessageInterceptorChain chain = new MessageInterceptorChain(new MessageInterceptor[]{new Recording("a", false, false), new Recording("b", false, true)});
+        vertx.eventBus().<JsonObject>consumer("chain", msg -> chain.execute(null, null, msg, m -> {
+            calls.add("target");
+            return Future.succeededFuture();
+        }));
+        CompletableFuture<Throwable> reply = new CompletableFuture<>();
+        vertx.eventBus().request("chain", new JsonObject(), ar -> reply.complete(ar.cause()));
+        ReplyException cause = (ReplyException) reply.get(10, TimeUnit.SECONDS);
+        assertEquals(401, cause.failureCode());
+        Thread.sleep(100);
+        assertEquals("[pre a, pre b, after b, after a]", calls.toString());
+    }
+
+    @Test
+    public void throwingInterceptorsStillCompleteTheInvocation() throws Exception {
+        MessageInterceptorChain chain = new MessageInterceptorChain(new MessageInterceptor[]{new Recording("a", true, false), new Throwing("b", true), new Throwing("c", false)});
+        CompletableFuture<Throwable> done = new CompletableFuture<>();
+        vertx.eventBus().<JsonObject>consumer("chain", msg -> chain.execute(null, null, msg, m -> {
+            calls.add("target");
+            return Future.succeededFuture();
+        }).onComplete(ar -> done.complete(ar.cause())));
+        CompletableFuture<Throwable> reply = new CompletableFuture<>();
+        vertx.eventBus().request("chain", new JsonObject(), ar -> reply.complete(ar.cause()));
+        ReplyException cause = (ReplyException) reply.get(10, TimeUnit.SECONDS);
+        assertEquals(403, cause.failureCode());
+        assertEquals("pre b", cause.getMessage());
+        assertEquals("pre b", done.get(10, TimeUnit.SECONDS).getMessage());
+        assertEquals("[pre a, pre b, after b, after a]", calls.toString());
+    }
+
+    @Test
+    public void nullFromPreHandlerRejectsTheMessage() throws Exception {
+        MessageInterceptorChain chain = new MessageInterceptorChain(new MessageInterceptor[]{new Recording("a", true, false), new Throwing("b", false)});
+        CompletableFuture<Throwable> done = new CompletableFuture<>();
+        vertx.eventBus().<JsonObject>consumer("chain", msg -> chain.execute(null, null, msg, m -> {
+            calls.add("target");
+            return Future.succeededFuture();
+        }).onComplete(ar -> done.complete(ar.cause())));
+        CompletableFuture<Throwable> reply = new CompletableFuture<>();
+        vertx.eventBus().request("chain", new JsonObject(), ar -> reply.complete(ar.cause()));
+        assertEquals(403, ((ReplyException) reply.get(10, TimeUnit.SECONDS)).failureCode());
+        assertTrue(done.get(10, TimeUnit.SECONDS) instanceof IllegalStateException);
+        assertEquals("[pre a, pre b, after b, after a]", calls.toString());
+    }
+
+    /**
+     * Throws from its preHandler, or returns {@code null} from it, and throws from its afterHandler.
+     */
+    private class Throwing implements MessageInterceptor {
+        private final String name;
+        private final boolean throwing;
+
+        Throwing(String name, boolean throwing) {
+            this.name = name;
+            this.throwing = throwing;
+        }
+
+        @Override
+        public Future<Void> preHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message) {
+            calls.add("pre " + name);
+            if (throwing) {
+                throw new IllegalStateException("pre " + name);
+            }
+            return null;
+        }
+
+        @Override
+        public Future<Void> afterHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, AsyncResult<Object> asyncResult) {
+            calls.add("after " + name);
+            throw new IllegalStateException("after " + name);
+        }
+    }
+
+    private class Recording implements MessageInterceptor {
+        private final String name;
+        private final boolean async;
+        private final boolean reject;
+
+        Recording(String name, boolean async, boolean reject) {
+            this.name = name;
+            this.async = async;
+            this.reject = reject;
+        }
+
+        @Override
+        public Future<Void> preHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message) {
+            calls.add("pre " + name);
+            if (reject) {
+                return Future.failedFuture(new ReplyException(null, 401, "denied"));
+            }
+            if (async) {
+                Promise<Void> promise = Promise.promise();
+                vertx.setTimer(10, id -> promise.complete());
+                return promise.future();
+            }
+            return Future.succeededFuture();
+        }
+
+        @Override
+        public Future<Void> afterHandler(BeanDefinition<?> beanDefinition, ExecutableMethod<Object, ?> method, Message<JsonObject> message, AsyncResult<Object> asyncResult) {
+            calls.add("after " + name);
+            return Future.succeededFuture();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cn.vtohru.message;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageRequestBatcherTest {
+    private Vertx vertx;
+    private List<Integer> envelopes;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        envelopes = new CopyOnWriteArrayList<>();
+        vertx.eventBus().<JsonObject>consumer("echo", msg -> {
+            JsonArray items = msg.body().getJsonArray(MessageRequestBatcher.BATCH_ITEMS);
+            envelopes.add(Integer.parseInt(msg.headers().get(MessageRequestBatcher.BATCH_HEADER)));
+            JsonArray results = new JsonArray();
+            for (int i = 0; i < items.size(); i++) {
+                String name = items.getJsonObject(i).getString("name");
+                if ("boom".equals(name)) {
+                    results.add(new JsonObject().put(MessageRequestBatcher.BATCH_FAILURE_CODE, 500).put(MessageRequestBatcher.BATCH_FAILURE_MESSAGE, "boom"));
+                } else {
+                    results.add(new JsonObject().put(MessageRequestBatcher.BATCH_RESULT, "hello:" + name));
+                }
+            }
+            msg.reply(results);
+        });
+        vertx.eventBus().<JsonObject>consumer("silent", msg -> {
+        });
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void callsAreCoalescedAndResultsFannedOut() throws Exception {
+        List<Future> calls = send("echo", new DeliveryOptions(), new DeliveryOptions(), new DeliveryOptions());
+        List<Object> results = new ArrayList<>();
+        for (Future call : calls) {
+            results.add(call.result());
+        }
+        assertEquals(1, envelopes.size());
+        assertEquals(3, (int) envelopes.get(0));
+        assertEquals("hello:0", results.get(0));
+        assertEquals("hello:1", results.get(1));
+        assertEquals("hello:2", results.get(2));
+    }
+
+    @Test
+    public void failureReachesOnlyItsCaller() throws Exception {
+        CompletableFuture<List<Future<Object>>> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            MessageRequestBatcher batcher = MessageRequestBatcher.current(vertx);
+            List<Future<Object>> calls = new ArrayList<>();
+            calls.add(batcher.request("echo", new JsonObject().put("name", "a"), new DeliveryOptions(), 16, 0));
+            calls.add(batcher.request("echo", new JsonObject().put("name", "boom"), new DeliveryOptions(), 16, 0));
+            CompositeFuture.join(new ArrayList<>(calls)).onComplete(ar -> done.complete(calls));
+        });
+        List<Future<Object>> calls = done.get(10, TimeUnit.SECONDS);
+        assertEquals("hello:a", calls.get(0).result());
+        ReplyException failure = (ReplyException) calls.get(1).cause();
+        assertEquals(500, failure.failureCode());
+        assertEquals("boom", failure.getMessage());
+    }
+
+    @Test
+    public void incompatibleOptionsAreNotBatchedTogether() throws Exception {
+        send("echo", new DeliveryOptions(), new DeliveryOptions().addHeader("tenant", "a"), new DeliveryOptions().addHeader("tenant", "a"));
+        assertEquals(2, envelopes.size());
+        assertEquals(3, envelopes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void batchUsesTheSmallestTimeout() throws Exception {
+        long start = System.nanoTime();
+        List<Future> calls = send("silent", new DeliveryOptions().setSendTimeout(30000), new DeliveryOptions().setSendTimeout(200));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        for (Future call : calls) {
+            assertEquals(ReplyFailure.TIMEOUT, ((ReplyException) call.cause()).failureType());
+        }
+    }
+
+    private List<Future> send(String address, DeliveryOptions... options) throws Exception {
+        CompletableFuture<List<Future>> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            MessageRequestBatcher batcher = MessageRequestBatcher.current(vertx);
+            List<Future> calls = new ArrayList<>();
+            for (int i = 0; i < options.length; i++) {
+                calls.add(batcher.request(address, new JsonObject().put("name", String.valueOf(i)), options[i], 16, 0));
+            }
+            CompositeFuture.join(calls).onComplete(ar -> done.complete(calls));
+        });
+        return done.get(20, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,189 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.impl.InboundBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageStreamTest {
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void streamIsDeliveredWithinCredits() throws Exception {
+        int total = 2000;
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicInteger produced = new AtomicInteger();
+        vertx.eventBus().<JsonObject>consumer("numbers", msg -> {
+            InboundBuffer<Integer> buffer = new InboundBuffer<>(vertx.getOrCreateContext());
+            buffer.pause();
+            for (int i = 0; i < total; i++) {
+                buffer.write(i);
+            }
+            MessageStreamProducer.reply(vertx, msg, new BufferStream(buffer, produced));
+        });
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            AtomicInteger received = new AtomicInteger();
+            MessageReadStream<Integer> stream = new MessageReadStream<>(vertx, Integer.class, 64);
+            stream.handler(i -> {
+                maxAhead.accumulateAndGet(produced.get() - received.incrementAndGet(), Math::max);
+                if (i != received.get() - 1) {
+                    result.completeExceptionally(new AssertionError("item " + i + " delivered at " + (received.get() - 1)));
+                }
+            });
+            stream.exceptionHandler(result::completeExceptionally);
+            stream.endHandler(e -> result.complete(received.get()));
+            vertx.eventBus().request("numbers", new JsonObject(), stream.deliveryOptions(new DeliveryOptions()), stream::open);
+        });
+        assertEquals(total, result.get(10, TimeUnit.SECONDS).intValue());
+        assertTrue("producer ran " + maxAhead.get() + " items ahead", maxAhead.get() <= 64);
+    }
+
+    @Test
+    public void plainRequestToStreamingListenerFails() throws Exception {
+        vertx.eventBus().<JsonObject>consumer("numbers", msg -> MessageStreamProducer.reply(vertx, msg, null));
+        CompletableFuture<Throwable> result = new CompletableFuture<>();
+        vertx.eventBus().request("numbers", new JsonObject(), ar -> result.complete(ar.cause()));
+        assertTrue(result.get(10, TimeUnit.SECONDS).getMessage().contains("streaming client"));
+    }
+
+    @Test
+    public void cancelledStreamReleasesTheSource() throws Exception {
+        int total = 2000;
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        vertx.eventBus().<JsonObject>consumer("numbers", msg -> {
+            InboundBuffer<Integer> buffer = new InboundBuffer<>(vertx.getOrCreateContext());
+            buffer.pause();
+            for (int i = 0; i < total; i++) {
+                buffer.write(i);
+            }
+            MessageStreamProducer.reply(vertx, msg, new BufferStream(buffer, new AtomicInteger(), released));
+        });
+        CompletableFuture<Integer> cancelled = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            AtomicInteger received = new AtomicInteger();
+            MessageReadStream<Integer> stream = new MessageReadStream<>(vertx, Integer.class, 64);
+            stream.handler(i -> {
+                if (received.incrementAndGet() == 10) {
+                    stream.cancel();
+                    cancelled.complete(received.get());
+                }
+            });
+            stream.exceptionHandler(cancelled::completeExceptionally);
+            vertx.eventBus().request("numbers", new JsonObject(), stream.deliveryOptions(new DeliveryOptions()), stream::open);
+        });
+        assertEquals(10, cancelled.get(10, TimeUnit.SECONDS).intValue());
+        released.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void silentProducerTimesOut() throws Exception {
+        CompletableFuture<JsonObject> cancelled = new CompletableFuture<>();
+        vertx.eventBus().<JsonObject>consumer("silent.control", msg -> {
+            if (msg.body().getBoolean(MessageStreamProducer.CANCEL, false)) {
+                cancelled.complete(msg.body());
+            }
+        });
+        vertx.eventBus().<JsonObject>consumer("silent", msg -> msg.reply(new JsonObject().put(MessageStreamProducer.CONTROL, "silent.control")));
+        CompletableFuture<Throwable> result = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            MessageReadStream<Integer> stream = new MessageReadStream<>(vertx, Integer.class, 64, 300);
+            stream.handler(i -> result.completeExceptionally(new AssertionError("unexpected item " + i)));
+            stream.exceptionHandler(result::complete);
+            stream.endHandler(e -> result.completeExceptionally(new AssertionError("unexpected end")));
+            vertx.eventBus().request("silent", new JsonObject(), stream.deliveryOptions(new DeliveryOptions()), stream::open);
+        });
+        Throwable failure = result.get(10, TimeUnit.SECONDS);
+        assertEquals(ReplyFailure.TIMEOUT, ((ReplyException) failure).failureType());
+        assertTrue(cancelled.get(10, TimeUnit.SECONDS).getBoolean(MessageStreamProducer.CANCEL));
+    }
+
+    private static class BufferStream implements ReadStream<Integer> {
+        private final InboundBuffer<Integer> buffer;
+        private final AtomicInteger produced;
+        private final CompletableFuture<Void> released;
+        private Handler<Void> endHandler;
+
+        BufferStream(InboundBuffer<Integer> buffer, AtomicInteger produced) {
+            this(buffer, produced, new CompletableFuture<>());
+        }
+
+        BufferStream(InboundBuffer<Integer> buffer, AtomicInteger produced, CompletableFuture<Void> released) {
+            this.buffer = buffer;
+            this.produced = produced;
+            this.released = released;
+            buffer.emptyHandler(v -> {
+                if (endHandler != null) {
+                    endHandler.handle(null);
+                }
+            });
+        }
+
+        @Override
+        public ReadStream<Integer> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<Integer> handler(Handler<Integer> handler) {
+            if (handler == null) {
+                buffer.handler(null);
+                released.complete(null);
+                return this;
+            }
+            buffer.handler(i -> {
+                produced.incrementAndGet();
+                handler.handle(i);
+            });
+            return this;
+        }
+
+        @Override
+        public ReadStream<Integer> pause() {
+            buffer.pause();
+            return this;
+        }
+
+        @Override
+        public ReadStream<Integer> resume() {
+            buffer.resume();
+            return this;
+        }
+
+        @Override
+        public ReadStream<Integer> fetch(long amount) {
+            buffer.fetch(amount);
+            return this;
+        }
+
+        @Override
+        public ReadStream<Integer> endHandler(Handler<Void> endHandler) {
+            this.endHandler = endHandler;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package cn.vtohru.message;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TimingWheelTest {
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void expiresInDeadlineOrderAndSkipsCancelled() throws Exception {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        Context context = vertx.getOrCreateContext();
+        context.runOnContext(v -> {
+            TimingWheel wheel = TimingWheel.current(vertx);
+            assertSame(wheel, TimingWheel.current(vertx));
+            wheel.schedule(300, x -> fired.add("b"));
+            wheel.schedule(100, x -> fired.add("a"));
+            wheel.schedule(200, x -> fired.add("cancelled")).cancel();
+            wheel.schedule(500, x -> done.complete(wheel.size()));
+        });
+        assertEquals(0, done.get(5, TimeUnit.SECONDS).intValue());
+        assertEquals(2, fired.size());
+        assertEquals("a", fired.get(0));
+        assertEquals("b", fired.get(1));
+    }
+}
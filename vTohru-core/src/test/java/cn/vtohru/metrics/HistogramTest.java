@@ -0,0 +1,33 @@
+package cn.vtohru.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long v = 0; v < 100000; v++) {
+            int index = Histogram.index(v);
+            assertTrue(v + " above bucket " + index, v <= Histogram.upperBound(index));
+            assertTrue(v + " below bucket " + index, index == 0 || v > Histogram.upperBound(index - 1));
+        }
+        assertEquals(Histogram.index(Long.MAX_VALUE), Histogram.index(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void percentilesWithinPrecision() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10000, histogram.count());
+        assertEquals(10000, histogram.max());
+        assertEquals(5000.5, histogram.mean(), 0.001);
+        assertEquals(5000, histogram.percentile(0.5), 5000 * 0.125);
+        assertEquals(9900, histogram.percentile(0.99), 9900 * 0.125);
+        assertEquals(10000, histogram.percentile(1.0));
+    }
+}
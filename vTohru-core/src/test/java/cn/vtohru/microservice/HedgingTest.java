@@ -0,0 +1,33 @@
+package cn.vtohru.microservice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HedgingTest {
+
+    @Test
+    public void waitsForEnoughSamples() {
+        Hedging hedging = new Hedging(0.9, 5, 1);
+        assertEquals(-1, hedging.delay());
+        for (int i = 1; i <= 100; i++) {
+            hedging.record(i * 1_000_000L);
+        }
+        long delay = hedging.delay();
+        assertTrue("delay " + delay, delay >= 80 && delay <= 100);
+    }
+
+    @Test
+    public void budgetBoundsExtraLoad() {
+        Hedging hedging = new Hedging(0.9, 5, 1);
+        int hedges = 0;
+        for (int i = 0; i < 1000; i++) {
+            hedging.requested();
+            if (hedging.tryHedge()) {
+                hedges++;
+            }
+        }
+        assertEquals(50, hedges);
+    }
+}
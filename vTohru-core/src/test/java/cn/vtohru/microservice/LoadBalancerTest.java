@@ -0,0 +1,63 @@
+package cn.vtohru.microservice;
+
+import cn.vtohru.microservice.balance.EwmaLoadBalancer;
+import cn.vtohru.microservice.balance.LeastInFlightLoadBalancer;
+import cn.vtohru.microservice.balance.RoundRobinLoadBalancer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LoadBalancerTest {
+
+    private static ServiceInstance[] instances(int n) {
+        ServiceInstance[] instances = new ServiceInstance[n];
+        for (int i = 0; i < n; i++) {
+            Record record = new Record().setName("svc").setRegistration("r" + i).setLocation(new JsonObject().put(Record.ENDPOINT, "svc@" + i));
+            instances[i] = new ServiceInstance(record);
+        }
+        return instances;
+    }
+
+    @Test
+    public void roundRobinVisitsEveryInstance() {
+        ServiceInstance[] instances = instances(3);
+        RoundRobinLoadBalancer balancer = new RoundRobinLoadBalancer();
+        Map<String, Integer> hits = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            hits.merge(balancer.select(instances).address(), 1, Integer::sum);
+        }
+        assertEquals(3, hits.size());
+        assertEquals(Integer.valueOf(100), hits.get("svc@0"));
+    }
+
+    @Test
+    public void leastInFlightAvoidsBusyInstance() {
+        ServiceInstance[] instances = instances(2);
+        for (int i = 0; i < 10; i++) {
+            instances[0].start();
+        }
+        LeastInFlightLoadBalancer balancer = new LeastInFlightLoadBalancer();
+        for (int i = 0; i < 100; i++) {
+            assertSame(instances[1], balancer.select(instances));
+        }
+    }
+
+    @Test
+    public void ewmaPrefersFasterInstance() {
+        ServiceInstance[] instances = instances(2);
+        instances[0].start();
+        instances[0].complete(50_000_000);
+        instances[1].start();
+        instances[1].complete(1_000_000);
+        EwmaLoadBalancer balancer = new EwmaLoadBalancer();
+        for (int i = 0; i < 100; i++) {
+            assertSame(instances[1], balancer.select(instances));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package cn.vtohru.service;
 
+import cn.vtohru.microservice.annotation.Hedged;
 import cn.vtohru.microservice.annotation.Service;
+import cn.vtohru.microservice.annotation.ServiceMethod;
 import cn.vtohru.model.SimpleModel;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
@@ -10,5 +12,7 @@ import io.vertx.core.Handler;
 public interface HelloService {
     void say(String word, Handler<AsyncResult<String>> handler);
 
+    @Hedged(percentile = 0.95, maxExtraLoad = 5)
+    @ServiceMethod(timeout = 5000, retries = 2, backoff = 50, idempotent = true)
     Future<String> hello(String name, SimpleModel simpleModel);
 }
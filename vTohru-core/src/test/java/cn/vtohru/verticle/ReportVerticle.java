@@ -0,0 +1,9 @@
+package cn.vtohru.verticle;
+
+import cn.vtohru.annotation.VerticleContaner;
+import io.vertx.core.AbstractVerticle;
+
+@VerticleContaner(value = "report", usePackage = "cn.vtohru.verticle.report", instances = 3, worker = true, workerPoolName = "reports")
+public class ReportVerticle extends AbstractVerticle {
+
+}
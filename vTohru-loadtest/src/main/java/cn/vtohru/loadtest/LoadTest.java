@@ -0,0 +1,131 @@
+package cn.vtohru.loadtest;
+
+import cn.vtohru.VerticleApplication;
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.loadtest.app.Order;
+import cn.vtohru.loadtest.load.AllocationMeter;
+import cn.vtohru.loadtest.load.LoadResult;
+import cn.vtohru.loadtest.load.OpenLoopGenerator;
+import cn.vtohru.loadtest.load.Scenario;
+import cn.vtohru.loadtest.store.MemorySession;
+import cn.vtohru.loadtest.store.MemoryStorage;
+import cn.vtohru.orm.entity.EntityManager;
+import cn.vtohru.runtime.VTohru;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots {@link LoadTestVerticle} in-process over the in-memory order store and drives each scenario with an
+ * {@link OpenLoopGenerator}, printing latency percentiles and the allocation rate per scenario.
+ * <p>
+ * Tuned with system properties: {@code loadtest.rate} (requests per second), {@code loadtest.duration} and
+ * {@code loadtest.warmup} (milliseconds), {@code loadtest.orders} (seeded rows), {@code loadtest.connections} and
+ * {@code loadtest.scenarios} (comma separated).
+ */
+public class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    public static final int PORT = 17788;
+    private static final long STARTUP_TIMEOUT = 30000;
+    private static final int CUSTOMERS = 500;
+    private static final String[] STATUSES = {"NEW", "PAID", "SHIPPED"};
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 2000);
+        long duration = Long.getLong("loadtest.duration", 10000L);
+        long warmup = Long.getLong("loadtest.warmup", 3000L);
+        int orders = Integer.getInteger("loadtest.orders", 2000);
+        int connections = Integer.getInteger("loadtest.connections", 32);
+        String[] selected = System.getProperty("loadtest.scenarios", "ping,order,search,quote,mixed").split(",");
+
+        VerticleApplicationContext context = new VTohru().build();
+        context.registerSingleton(context, false);
+        context.start();
+        VerticleApplication application = context.getBean(VerticleApplication.class);
+        application.start();
+        Vertx vertx = context.getVertx();
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while (vertx.deploymentIDs().isEmpty()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("LoadTestVerticle did not deploy within " + STARTUP_TIMEOUT + "ms");
+            }
+            Thread.sleep(10);
+        }
+        seed(context, orders);
+
+        HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultHost("localhost")
+                .setDefaultPort(PORT)
+                .setKeepAlive(true)
+                .setMaxPoolSize(connections));
+        AllocationMeter allocationMeter = new AllocationMeter();
+        if (!allocationMeter.isSupported()) {
+            logger.warn("thread allocation counters are not supported by this JVM, allocation columns will read 0");
+        }
+        OpenLoopGenerator generator = new OpenLoopGenerator(vertx.getOrCreateContext(), client, allocationMeter, 10000);
+        Map<String, Scenario> scenarios = scenarios(orders);
+        System.out.println(LoadResult.header());
+        for (String name : selected) {
+            Scenario scenario = scenarios.get(name.trim());
+            if (scenario == null) {
+                logger.warn("unknown scenario " + name + ", expected one of " + scenarios.keySet());
+                continue;
+            }
+            if (warmup > 0) {
+                await(generator.run(scenario, rate, warmup), warmup);
+            }
+            System.out.println(await(generator.run(scenario, rate, duration), duration));
+        }
+        client.close();
+        application.stop();
+        System.exit(0);
+    }
+
+    private static Map<String, Scenario> scenarios(int orders) {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        scenarios.put("ping", new Scenario("ping", i -> "/orders/ping"));
+        scenarios.put("order", new Scenario("order", i -> "/orders/detail/" + String.format("%012d", 1 + i % orders)));
+        scenarios.put("search", new Scenario("search", i -> "/orders/search?customer=c" + i % CUSTOMERS + "&status=" + STATUSES[(int) (i % STATUSES.length)] + "&size=10"));
+        scenarios.put("quote", new Scenario("quote", i -> "/orders/quote?sku=sku-" + i % 100 + "&qty=" + (1 + i % 150)));
+        scenarios.put("mixed", new Scenario("mixed", i -> {
+            long pick = i % 10;
+            if (pick < 6) {
+                return scenarios.get("order").uri(i);
+            } else if (pick < 8) {
+                return scenarios.get("quote").uri(i);
+            } else if (pick < 9) {
+                return scenarios.get("search").uri(i);
+            }
+            return scenarios.get("ping").uri(i);
+        }));
+        return scenarios;
+    }
+
+    private static void seed(VerticleApplicationContext context, int orders) {
+        MemoryStorage storage = context.getBean(MemoryStorage.class);
+        storage.clear();
+        MemorySession session = new MemorySession(storage, context.getBean(EntityManager.class));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setCustomer("c" + i % CUSTOMERS);
+            order.setSku("sku-" + i % 100);
+            order.setStatus(STATUSES[i % STATUSES.length]);
+            order.setQuantity(1 + i % 20);
+            order.setAmount(9.5 * order.getQuantity());
+            order.setCreateTime(now - i * 1000L);
+            session.insert(order);
+        }
+    }
+
+    private static <T> T await(Future<T> future, long duration) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(duration + 30000, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,13 @@
+package cn.vtohru.loadtest;
+
+import cn.vtohru.annotation.VerticleContaner;
+import cn.vtohru.microservice.annotation.ServiceAutoConfigure;
+import cn.vtohru.web.annotation.WebAutoConfigure;
+import io.vertx.core.AbstractVerticle;
+
+@VerticleContaner(usePackage = "cn.vtohru.loadtest")
+@WebAutoConfigure(port = LoadTest.PORT)
+@ServiceAutoConfigure
+public class LoadTestVerticle extends AbstractVerticle {
+
+}
@@ -0,0 +1,79 @@
+package cn.vtohru.loadtest.app;
+
+import javax.persistence.*;
+
+@Entity(name = "orders")
+public class Order {
+    @Id
+    @Column(name = "_id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private String id;
+    @Column
+    private String customer;
+    @Column
+    private String sku;
+    @Column
+    private String status;
+    @Column
+    private int quantity;
+    @Column
+    private double amount;
+    @Column
+    private Long createTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public Long getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Long createTime) {
+        this.createTime = createTime;
+    }
+}
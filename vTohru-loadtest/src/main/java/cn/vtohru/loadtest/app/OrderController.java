@@ -0,0 +1,60 @@
+package cn.vtohru.loadtest.app;
+
+import cn.vtohru.orm.DataStore;
+import cn.vtohru.orm.Query;
+import cn.vtohru.orm.data.PageData;
+import cn.vtohru.web.annotation.Controller;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+@Controller
+@Path("/orders")
+public class OrderController {
+    @Inject
+    private DataStore dataStore;
+    @Inject
+    private PricingService pricingService;
+
+    @GET
+    @Path("/ping")
+    public Future<String> ping() {
+        return Future.succeededFuture("pong");
+    }
+
+    @GET
+    @Path("/detail/{id}")
+    public Future<Order> get(@PathParam("id") String id) {
+        return dataStore.build(Order.class).eq(Order::getId, id).first();
+    }
+
+    @GET
+    @Path("/search")
+    public Future<PageData<Order>> search(@QueryParam("customer") String customer, @QueryParam("status") String status,
+                                          @QueryParam("page") Integer page, @QueryParam("size") Integer size) {
+        int rows = size == null ? 20 : size;
+        int offset = page == null ? 0 : page * rows;
+        Query<Order> query = dataStore.build(Order.class);
+        if (customer != null) {
+            query.eq(Order::getCustomer, customer);
+        }
+        if (status != null) {
+            query.eq(Order::getStatus, status);
+        }
+        return query.orderBy(Order::getCreateTime, true).pagination(offset, rows);
+    }
+
+    @GET
+    @Path("/quote")
+    public Future<JsonObject> quote(@QueryParam("sku") String sku, @QueryParam("qty") Integer quantity) {
+        return pricingService.quote(sku, quantity).map(amount -> new JsonObject()
+                .put("sku", sku)
+                .put("quantity", quantity)
+                .put("amount", amount));
+    }
+}
@@ -0,0 +1,9 @@
+package cn.vtohru.loadtest.app;
+
+import cn.vtohru.microservice.annotation.Service;
+import io.vertx.core.Future;
+
+@Service
+public interface PricingService {
+    Future<Double> quote(String sku, Integer quantity);
+}
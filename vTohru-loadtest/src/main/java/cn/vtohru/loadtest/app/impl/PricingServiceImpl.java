@@ -0,0 +1,16 @@
+package cn.vtohru.loadtest.app.impl;
+
+import cn.vtohru.annotation.Verticle;
+import cn.vtohru.loadtest.app.PricingService;
+import io.vertx.core.Future;
+
+@Verticle
+public class PricingServiceImpl implements PricingService {
+
+    @Override
+    public Future<Double> quote(String sku, Integer quantity) {
+        double unitPrice = 10 + Math.floorMod(sku.hashCode(), 90);
+        double discount = quantity >= 100 ? 0.9 : quantity >= 10 ? 0.95 : 1;
+        return Future.succeededFuture(unitPrice * quantity * discount);
+    }
+}
@@ -0,0 +1,39 @@
+package cn.vtohru.loadtest.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by all live threads of the process, read from the HotSpot per-thread allocation counters. Threads
+ * that exit between two readings take their allocations with them, so the figure is a lower bound.
+ */
+public class AllocationMeter {
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public AllocationMeter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threadMXBean = (com.sun.management.ThreadMXBean) bean;
+            this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threadMXBean = null;
+        }
+    }
+
+    public boolean isSupported() {
+        return threadMXBean != null;
+    }
+
+    public long allocatedBytes() {
+        if (threadMXBean == null) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,71 @@
+package cn.vtohru.loadtest.load;
+
+import cn.vtohru.metrics.Histogram;
+
+/**
+ * Outcome of one measured run. Latencies are in microseconds and measured from the time each request was scheduled
+ * to be sent, not from when it actually went out.
+ */
+public class LoadResult {
+    private final String scenario;
+    private final int rate;
+    private final long elapsedNanos;
+    private final long sent;
+    private final long completed;
+    private final long errors;
+    private final Histogram latency;
+    private final long allocatedBytes;
+
+    public LoadResult(String scenario, int rate, long elapsedNanos, long sent, long completed, long errors, Histogram latency, long allocatedBytes) {
+        this.scenario = scenario;
+        this.rate = rate;
+        this.elapsedNanos = elapsedNanos;
+        this.sent = sent;
+        this.completed = completed;
+        this.errors = errors;
+        this.latency = latency;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public static String header() {
+        return String.format("%-10s %7s %9s %8s %7s %9s %9s %9s %9s %10s %9s",
+                "scenario", "rate", "achieved", "done", "errors", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "alloc MB/s", "KB/req");
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-10s %7d %9.0f %8d %7d %9.2f %9.2f %9.2f %9.2f %10.1f %9.2f",
+                scenario, rate, completed / seconds, completed, errors + (sent - completed),
+                millis(latency.percentile(0.5)), millis(latency.percentile(0.99)), millis(latency.percentile(0.999)), millis(latency.max()),
+                allocatedBytes / seconds / (1024 * 1024), completed == 0 ? 0 : (double) allocatedBytes / completed / 1024);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,128 @@
+package cn.vtohru.loadtest.load;
+
+import cn.vtohru.metrics.Histogram;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends requests at a fixed rate whatever the response times are. Request {@code i} is due at
+ * {@code start + i / rate}; a 1ms tick sends every request that became due, and its latency is counted from that due
+ * time. A slow server therefore shows up as queueing delay in the percentiles instead of silently lowering the send
+ * rate, which is the coordinated omission a closed-loop client suffers from. Requests still unanswered after the
+ * response timeout are recorded at their age when the run ends.
+ */
+public class OpenLoopGenerator {
+    private static final long TICK_MILLIS = 1;
+    private static final Buffer FAILURE_ENVELOPE = Buffer.buffer("{\"code\":0");
+
+    private final Context context;
+    private final HttpClient client;
+    private final AllocationMeter allocationMeter;
+    private final long responseTimeout;
+
+    public OpenLoopGenerator(Context context, HttpClient client, AllocationMeter allocationMeter, long responseTimeout) {
+        this.context = context;
+        this.client = client;
+        this.allocationMeter = allocationMeter;
+        this.responseTimeout = responseTimeout;
+    }
+
+    public Future<LoadResult> run(Scenario scenario, int rate, long durationMillis) {
+        Promise<LoadResult> promise = Promise.promise();
+        context.runOnContext(v -> new Run(scenario, rate, durationMillis, promise).start());
+        return promise.future();
+    }
+
+    private final class Run {
+        private final Scenario scenario;
+        private final int rate;
+        private final long total;
+        private final double intervalNanos;
+        private final Promise<LoadResult> promise;
+        private final Histogram latency = new Histogram();
+        private final BitSet answered = new BitSet();
+        private long start;
+        private long startAllocated;
+        private long sent;
+        private long completed;
+        private long errors;
+        private long tickTimer;
+        private long timeoutTimer;
+
+        private Run(Scenario scenario, int rate, long durationMillis, Promise<LoadResult> promise) {
+            this.scenario = scenario;
+            this.rate = rate;
+            this.total = Math.max(1, rate * durationMillis / 1000);
+            this.intervalNanos = 1e9 / rate;
+            this.promise = promise;
+        }
+
+        private void start() {
+            startAllocated = allocationMeter.allocatedBytes();
+            start = System.nanoTime();
+            tickTimer = context.owner().setPeriodic(TICK_MILLIS, id -> tick());
+            tick();
+        }
+
+        private void tick() {
+            long due = Math.min(total, (long) ((System.nanoTime() - start) / intervalNanos) + 1);
+            while (sent < due) {
+                send(sent, scenario.uri(sent), start + (long) (sent * intervalNanos));
+                sent++;
+            }
+            if (sent == total) {
+                context.owner().cancelTimer(tickTimer);
+                timeoutTimer = context.owner().setTimer(responseTimeout, id -> finish());
+            }
+        }
+
+        private void send(long index, String uri, long intended) {
+            client.request(HttpMethod.GET, uri)
+                    .compose(HttpClientRequest::send)
+                    .compose(response -> response.body().map(body -> response.statusCode() < 400 && !isFailure(body)))
+                    .onComplete(ar -> {
+                        if (promise.future().isComplete()) {
+                            return;
+                        }
+                        answered.set((int) index);
+                        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+                        if (ar.failed() || !ar.result()) {
+                            errors++;
+                        }
+                        completed++;
+                        if (completed == total) {
+                            context.owner().cancelTimer(timeoutTimer);
+                            finish();
+                        }
+                    });
+        }
+
+        /**
+         * The JSON response handler reports a failed handler with a 200 and {@code "code":0}.
+         */
+        private boolean isFailure(Buffer body) {
+            return body.length() >= FAILURE_ENVELOPE.length() && body.getBuffer(0, FAILURE_ENVELOPE.length()).equals(FAILURE_ENVELOPE);
+        }
+
+        private void finish() {
+            if (promise.future().isComplete()) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (int i = answered.nextClearBit(0); i < sent; i = answered.nextClearBit(i + 1)) {
+                latency.record(TimeUnit.NANOSECONDS.toMicros(now - (start + (long) (i * intervalNanos))));
+            }
+            long elapsed = now - start;
+            long allocated = allocationMeter.allocatedBytes() - startAllocated;
+            promise.complete(new LoadResult(scenario.getName(), rate, elapsed, sent, completed, errors, latency, allocated));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package cn.vtohru.loadtest.load;
+
+import java.util.function.LongFunction;
+
+/**
+ * A named stream of GET requests: the URI of the i-th request is derived from its sequence number, so a scenario is
+ * replayed identically at every rate.
+ */
+public class Scenario {
+    private final String name;
+    private final LongFunction<String> uri;
+
+    public Scenario(String name, LongFunction<String> uri) {
+        this.name = name;
+        this.uri = uri;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String uri(long sequence) {
+        return uri.apply(sequence);
+    }
+}
@@ -0,0 +1,28 @@
+package cn.vtohru.loadtest.store;
+
+import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.orm.DataSourceConfiguration;
+import cn.vtohru.orm.DataStore;
+import cn.vtohru.orm.DataStoreSpiFactory;
+import cn.vtohru.orm.entity.EntityManager;
+
+import javax.inject.Singleton;
+
+@Singleton
+public class MemoryDataFactory implements DataStoreSpiFactory {
+    private MemoryStorage storage;
+
+    public MemoryDataFactory(MemoryStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public DataStore createDataStore(VerticleApplicationContext verticleApplicationContext, DataSourceConfiguration dataSourceConfiguration, EntityManager entityManager) {
+        return new MemoryDataStore(storage, entityManager);
+    }
+
+    @Override
+    public boolean accept(String type) {
+        return "memory".equalsIgnoreCase(type);
+    }
+}
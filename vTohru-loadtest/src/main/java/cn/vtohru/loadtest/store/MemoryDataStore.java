@@ -0,0 +1,80 @@
+package cn.vtohru.loadtest.store;
+
+import cn.vtohru.mongo.impl.MongoQuery;
+import cn.vtohru.orm.DataStore;
+import cn.vtohru.orm.DbSession;
+import cn.vtohru.orm.Query;
+import cn.vtohru.orm.data.IDataProxy;
+import cn.vtohru.orm.entity.EntityManager;
+import io.vertx.core.Future;
+
+import java.util.List;
+
+/**
+ * Stand-in for a Mongo data store: queries are built by {@link MongoQuery} exactly as against a real server, and the
+ * resulting commands are evaluated by {@link MemorySession} over {@link MemoryStorage}.
+ */
+public class MemoryDataStore implements DataStore {
+    private MemoryStorage storage;
+    private EntityManager entityManager;
+
+    public MemoryDataStore(MemoryStorage storage, EntityManager entityManager) {
+        this.storage = storage;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Future<Void> start() {
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> stop() {
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public <T> Future<T> persist(T model) {
+        return session().persist(model);
+    }
+
+    @Override
+    public <T> Future<T> insert(T model) {
+        return session().insert(model);
+    }
+
+    @Override
+    public <T> Future<Long> insertBatch(List<T> model) {
+        return session().insertBatch(model);
+    }
+
+    @Override
+    public <T> Future<T> update(T model) {
+        return session().update(model);
+    }
+
+    @Override
+    public <T> Future<Void> remove(T model) {
+        return session().remove(model);
+    }
+
+    @Override
+    public <T> Future<T> fetch(T model) {
+        return session().fetch(model);
+    }
+
+    @Override
+    public <T> Query<T> build(Class<T> clazz) {
+        MongoQuery<T> mongoQuery = new MongoQuery<>(new IDataProxy(this, null), entityManager);
+        return mongoQuery.from(clazz);
+    }
+
+    @Override
+    public Future<DbSession> getSession() {
+        return Future.succeededFuture(session());
+    }
+
+    private MemorySession session() {
+        return new MemorySession(storage, entityManager);
+    }
+}
@@ -0,0 +1,229 @@
+package cn.vtohru.loadtest.store;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates the subset of the aggregation pipeline that {@code MongoQuery} generates: {@code $match} with
+ * {@code $and}/{@code $or} and the comparison operators, {@code $sort}, {@code $skip}, {@code $limit},
+ * {@code $project} and {@code $count}.
+ */
+final class MemoryPipeline {
+    private static final String ID = "_id";
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private MemoryPipeline() {
+    }
+
+    static JsonArray aggregate(Map<String, JsonObject> table, JsonArray pipeline) {
+        List<JsonObject> current;
+        int first = 0;
+        JsonObject head = pipeline.isEmpty() ? null : pipeline.getJsonObject(0);
+        if (head != null && head.containsKey("$match")) {
+            JsonObject query = head.getJsonObject("$match");
+            Predicate<JsonObject> predicate = compile(query);
+            current = new ArrayList<>();
+            for (JsonObject row : candidates(table, query)) {
+                if (predicate.test(row)) {
+                    current.add(row);
+                }
+            }
+            first = 1;
+        } else {
+            current = new ArrayList<>(table.values());
+        }
+        for (int i = first; i < pipeline.size(); i++) {
+            JsonObject stage = pipeline.getJsonObject(i);
+            if (stage.containsKey("$match")) {
+                current.removeIf(compile(stage.getJsonObject("$match")).negate());
+            } else if (stage.containsKey("$sort")) {
+                current.sort(comparator(stage.getJsonObject("$sort")));
+            } else if (stage.containsKey("$skip")) {
+                int skip = Math.min(stage.getInteger("$skip"), current.size());
+                current = current.subList(skip, current.size());
+            } else if (stage.containsKey("$limit")) {
+                int limit = Math.min(stage.getInteger("$limit"), current.size());
+                current = current.subList(0, limit);
+            } else if (stage.containsKey("$project")) {
+                current = project(current, stage.getJsonObject("$project"));
+            } else if (stage.containsKey("$count")) {
+                JsonObject count = new JsonObject().put(stage.getString("$count"), (long) current.size());
+                current = new ArrayList<>();
+                current.add(count);
+            } else {
+                throw new IllegalStateException("unsupported pipeline stage: " + stage.fieldNames());
+            }
+        }
+        return new JsonArray(new ArrayList<>(current));
+    }
+
+    /**
+     * The rows a query can match: the single row of an {@code _id} equality, otherwise the whole table.
+     */
+    static Collection<JsonObject> candidates(Map<String, JsonObject> table, JsonObject query) {
+        Object id = query.getValue(ID);
+        if (id == null && query.getValue("$and") instanceof JsonArray) {
+            for (Object clause : query.getJsonArray("$and")) {
+                Object value = ((JsonObject) clause).getValue(ID);
+                if (value instanceof JsonObject && ((JsonObject) value).containsKey("$eq")) {
+                    id = ((JsonObject) value).getValue("$eq");
+                }
+            }
+        }
+        if (id == null || id instanceof JsonObject) {
+            return table.values();
+        }
+        JsonObject row = table.get(String.valueOf(id));
+        return row == null ? Collections.emptyList() : Collections.singletonList(row);
+    }
+
+    /**
+     * Compiles a {@code $match} document once, so scanning a table does not walk the query for every row.
+     */
+    static Predicate<JsonObject> compile(JsonObject query) {
+        List<Predicate<JsonObject>> clauses = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : query) {
+            String key = entry.getKey();
+            if ("$and".equals(key)) {
+                clauses.add(all(compileAll((JsonArray) entry.getValue())));
+            } else if ("$or".equals(key)) {
+                List<Predicate<JsonObject>> any = compileAll((JsonArray) entry.getValue());
+                clauses.add(row -> {
+                    for (Predicate<JsonObject> clause : any) {
+                        if (clause.test(row)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                });
+            } else if (entry.getValue() instanceof JsonObject) {
+                for (Map.Entry<String, Object> operator : (JsonObject) entry.getValue()) {
+                    String name = operator.getKey();
+                    Object expected = operator.getValue();
+                    clauses.add(row -> test(row.getValue(key), name, expected));
+                }
+            } else {
+                Object expected = entry.getValue();
+                clauses.add(row -> equal(row.getValue(key), expected));
+            }
+        }
+        return all(clauses);
+    }
+
+    private static List<Predicate<JsonObject>> compileAll(JsonArray queries) {
+        List<Predicate<JsonObject>> compiled = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            compiled.add(compile(queries.getJsonObject(i)));
+        }
+        return compiled;
+    }
+
+    private static Predicate<JsonObject> all(List<Predicate<JsonObject>> clauses) {
+        return row -> {
+            for (Predicate<JsonObject> clause : clauses) {
+                if (!clause.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static boolean test(Object actual, String operator, Object expected) {
+        switch (operator) {
+            case "$eq":
+                return equal(actual, expected);
+            case "$ne":
+                return !equal(actual, expected);
+            case "$gt":
+                return actual != null && compare(actual, expected) > 0;
+            case "$gte":
+                return actual != null && compare(actual, expected) >= 0;
+            case "$lt":
+                return actual != null && compare(actual, expected) < 0;
+            case "$lte":
+                return actual != null && compare(actual, expected) <= 0;
+            case "$in":
+                return contains(expected, actual);
+            case "$nin":
+                return !contains(expected, actual);
+            case "$regex":
+                return actual != null && PATTERNS.computeIfAbsent(String.valueOf(expected), Pattern::compile).matcher(actual.toString()).find();
+            default:
+                throw new IllegalStateException("unsupported operator: " + operator);
+        }
+    }
+
+    private static boolean contains(Object values, Object actual) {
+        if (values instanceof Iterable) {
+            for (Object value : (Iterable<?>) values) {
+                if (equal(actual, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return equal(actual, values);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return compare(a, b) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static Comparator<JsonObject> comparator(JsonObject sort) {
+        Comparator<JsonObject> comparator = (a, b) -> 0;
+        for (String field : sort.fieldNames()) {
+            Comparator<JsonObject> byField = (a, b) -> compare(a.getValue(field), b.getValue(field));
+            comparator = comparator.thenComparing(sort.getInteger(field) < 0 ? byField.reversed() : byField);
+        }
+        return comparator;
+    }
+
+    private static List<JsonObject> project(List<JsonObject> rows, JsonObject fields) {
+        if (fields.isEmpty()) {
+            return rows;
+        }
+        List<JsonObject> projected = new ArrayList<>(rows.size());
+        for (JsonObject row : rows) {
+            JsonObject result = new JsonObject();
+            if (row.containsKey(ID)) {
+                result.put(ID, row.getValue(ID));
+            }
+            for (String field : fields.fieldNames()) {
+                if (row.containsKey(field)) {
+                    result.put(field, row.getValue(field));
+                }
+            }
+            projected.add(result);
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,156 @@
+package cn.vtohru.loadtest.store;
+
+import cn.vtohru.mongo.impl.MongoQuery;
+import cn.vtohru.orm.DbSession;
+import cn.vtohru.orm.ITransaction;
+import cn.vtohru.orm.Query;
+import cn.vtohru.orm.data.IDataProxy;
+import cn.vtohru.orm.entity.EntityField;
+import cn.vtohru.orm.entity.EntityInfo;
+import cn.vtohru.orm.entity.EntityManager;
+import cn.vtohru.orm.exception.OrmException;
+import io.micronaut.core.convert.ConversionService;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+public class MemorySession implements DbSession {
+    private static final ITransaction NO_TRANSACTION = new ITransaction() {
+        @Override
+        public Future<Void> commit() {
+            return Future.succeededFuture();
+        }
+
+        @Override
+        public Future<Void> rollback() {
+            return Future.succeededFuture();
+        }
+    };
+
+    private MemoryStorage storage;
+    private EntityManager entityManager;
+
+    public MemorySession(MemoryStorage storage, EntityManager entityManager) {
+        this.storage = storage;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public <T> Future<T> persist(T model) {
+        if (entityManager.existPrimary(model)) {
+            return update(model);
+        }
+        return insert(model);
+    }
+
+    @Override
+    public <T> Future<T> insert(T model) {
+        EntityInfo entity = entityManager.getEntity(model.getClass());
+        String id = storage.nextId();
+        for (EntityField keyField : entity.getKeyFields()) {
+            keyField.getProperty().set(model, id);
+        }
+        storage.table(entity.getTableName()).put(id, toDocument(entity, model));
+        return Future.succeededFuture(model);
+    }
+
+    @Override
+    public <T> Future<Long> insertBatch(List<T> models) {
+        for (T model : models) {
+            insert(model);
+        }
+        return Future.succeededFuture((long) models.size());
+    }
+
+    @Override
+    public <T> Future<T> update(T model) {
+        EntityInfo entity = entityManager.getEntity(model.getClass());
+        String id = primaryKey(entity, model);
+        if (storage.table(entity.getTableName()).replace(id, toDocument(entity, model)) == null) {
+            return Future.failedFuture(new OrmException("no match record"));
+        }
+        return Future.succeededFuture(model);
+    }
+
+    @Override
+    public <T> Future<Void> remove(T model) {
+        EntityInfo entity = entityManager.getEntity(model.getClass());
+        storage.table(entity.getTableName()).remove(primaryKey(entity, model));
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public <T> Future<T> fetch(T model) {
+        EntityInfo entity = entityManager.getEntity(model.getClass());
+        JsonObject row = storage.table(entity.getTableName()).get(primaryKey(entity, model));
+        if (row == null) {
+            return Future.failedFuture(new OrmException("no match record"));
+        }
+        for (EntityField entityField : entity.getFieldMap().values()) {
+            Object value = row.getValue(entityField.getFieldName());
+            if (value != null) {
+                Optional<?> converted = ConversionService.SHARED.convert(value, entityField.getProperty().getType());
+                converted.ifPresent(x -> entityField.getProperty().set(model, x));
+            }
+        }
+        return Future.succeededFuture(model);
+    }
+
+    @Override
+    public <T> Query<T> from(Class<T> clazz) {
+        MongoQuery<T> mongoQuery = new MongoQuery<>(new IDataProxy(null, this), entityManager);
+        return mongoQuery.from(clazz);
+    }
+
+    /**
+     * Evaluates the {@code aggregate} and {@code delete} commands {@link MongoQuery} issues.
+     */
+    @Override
+    public Future<JsonArray> execute(String command, List<Object> params) {
+        JsonObject body = (JsonObject) params.get(0);
+        if ("aggregate".equals(command)) {
+            Map<String, JsonObject> table = storage.table(body.getString("aggregate"));
+            return Future.succeededFuture(MemoryPipeline.aggregate(table, body.getJsonArray("pipeline")));
+        } else if ("delete".equals(command)) {
+            Map<String, JsonObject> table = storage.table(body.getString("delete"));
+            for (Object delete : body.getJsonArray("deletes")) {
+                JsonObject query = ((JsonObject) delete).getJsonObject("q");
+                Predicate<JsonObject> predicate = MemoryPipeline.compile(query);
+                for (JsonObject row : MemoryPipeline.candidates(table, query)) {
+                    if (predicate.test(row)) {
+                        table.remove(row.getString("_id"), row);
+                    }
+                }
+            }
+            return Future.succeededFuture();
+        }
+        return Future.failedFuture(new OrmException("unsupported command: " + command));
+    }
+
+    @Override
+    public Future<ITransaction> beginTransaction() {
+        return Future.succeededFuture(NO_TRANSACTION);
+    }
+
+    private static JsonObject toDocument(EntityInfo entity, Object model) {
+        JsonObject document = new JsonObject();
+        for (Object value : entity.getFieldMap().values()) {
+            EntityField entityField = (EntityField) value;
+            document.put(entityField.getFieldName(), entityField.getProperty().get(model));
+        }
+        return document;
+    }
+
+    private static String primaryKey(EntityInfo entity, Object model) {
+        List<EntityField> keyFields = entity.getKeyFields();
+        if (keyFields.isEmpty()) {
+            throw new OrmException("no primary key on " + entity.getTableName());
+        }
+        return String.valueOf(keyFields.get(0).getProperty().get(model));
+    }
+}
@@ -0,0 +1,36 @@
+package cn.vtohru.loadtest.store;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tables of the in-memory data stores, shared by every verticle instance. Rows are never modified in place: an update
+ * replaces the row, so readers can hand rows out without copying.
+ */
+@Singleton
+public class MemoryStorage {
+    private final Map<String, ConcurrentNavigableMap<String, JsonObject>> tables = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ConcurrentNavigableMap<String, JsonObject> table(String name) {
+        ConcurrentNavigableMap<String, JsonObject> table = tables.get(name);
+        if (table == null) {
+            table = tables.computeIfAbsent(name, k -> new ConcurrentSkipListMap<>());
+        }
+        return table;
+    }
+
+    public String nextId() {
+        return String.format("%012d", sequence.incrementAndGet());
+    }
+
+    public void clear() {
+        tables.clear();
+    }
+}
@@ -16,6 +16,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -175,7 +176,7 @@ public class MongoQuery<T> extends BaseQuery<T> {
         return promise.future();
     }
 
-    private JsonObject getMatch() {
+    public JsonObject getMatch() {
         List<SingleCondition> singleConditions = new ArrayList<>();
         for (Condition condition : this.jpqlBuilder.getCondition()) {
             if (condition instanceof SingleCondition) {
@@ -225,6 +226,31 @@ public class MongoQuery<T> extends BaseQuery<T> {
     @Override
     public Future<List<T>> all() {
         Promise<List<T>> promise = Promise.promise();
+        List<Object> list = allCommand();
+        this.dataProxy.getSession().onSuccess(session -> {
+            session.execute("aggregate", list).onSuccess(x -> {
+                if (x.size() > 0) {
+                    List<T> data = new ArrayList<>();
+                    for (int i = 0; i < x.size(); i++) {
+                        JsonObject row = x.getJsonObject(i);
+                        T entity = entityManager.convertEntity(row, entityClass);
+                        data.add(entity);
+                    }
+                    promise.complete(data);
+                } else {
+                    promise.fail(new RuntimeException("no value find"));
+                }
+            }).onFailure(promise::fail);
+        }).onFailure(promise::fail);
+        return promise.future();
+    }
+
+    @Override
+    public ReadStream<T> stream(int fetchSize) {
+        return stream("aggregate", allCommand(), fetchSize);
+    }
+
+    private List<Object> allCommand() {
         checkColumns();
         JsonObject field = new JsonObject();
         List<String> columns = jpqlBuilder.columns();
@@ -244,22 +270,7 @@ public class MongoQuery<T> extends BaseQuery<T> {
                 .put("cursor", new JsonObject());
         List<Object> list = new ArrayList<>();
         list.add(command);
-        this.dataProxy.getSession().onSuccess(session -> {
-            session.execute("aggregate", list).onSuccess(x -> {
-                if (x.size() > 0) {
-                    List<T> data = new ArrayList<>();
-                    for (int i = 0; i < x.size(); i++) {
-                        JsonObject row = x.getJsonObject(i);
-                        T entity = entityManager.convertEntity(row, entityClass);
-                        data.add(entity);
-                    }
-                    promise.complete(data);
-                } else {
-                    promise.fail(new RuntimeException("no value find"));
-                }
-            }).onFailure(promise::fail);
-        }).onFailure(promise::fail);
-        return promise.future();
+        return list;
     }
 
     @Override
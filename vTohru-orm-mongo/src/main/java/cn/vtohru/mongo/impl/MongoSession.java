@@ -16,6 +16,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.mongo.*;
 
 import javax.persistence.GenerationType;
@@ -23,6 +24,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class MongoSession implements DbSession {
+    private static final String AGGREGATE = "aggregate";
+    private static final int COLLECT_BATCH_SIZE = 1000;
     private MongoClient mongoClient;
     private EntityManager entityManager;
     private MongoTransaction transactionSession;
@@ -166,6 +169,15 @@ public class MongoSession implements DbSession {
     public Future<JsonArray> execute(String jpql, List<Object> params) {
         Promise<JsonArray> promise = Promise.promise();
         JsonObject param = (JsonObject) params.get(0);
+        if (AGGREGATE.equals(jpql)) {
+            // read the whole cursor, runCommand only returns its first batch
+            JsonArray results = new JsonArray();
+            aggregate(param, COLLECT_BATCH_SIZE)
+                    .exceptionHandler(promise::tryFail)
+                    .endHandler(v -> promise.tryComplete(results))
+                    .handler(results::add);
+            return promise.future();
+        }
         Future<JsonObject> aggregateFuture = (transactionSession == null || transactionSession.isClosed()) ? mongoClient.runCommand(jpql, param) : mongoClient.runCommand(transactionSession.getClientSession(), jpql, param);
         aggregateFuture.onSuccess(x -> {
             JsonObject cursorData = x.getJsonObject("cursor");
@@ -184,6 +196,21 @@ public class MongoSession implements DbSession {
         return promise.future();
     }
 
+    @Override
+    public Future<ReadStream<JsonObject>> stream(String jpql, List<Object> params, int fetchSize) {
+        if (!AGGREGATE.equals(jpql)) {
+            return DbSession.super.stream(jpql, params, fetchSize);
+        }
+        return Future.succeededFuture(aggregate((JsonObject) params.get(0), fetchSize));
+    }
+
+    private ReadStream<JsonObject> aggregate(JsonObject command, int batchSize) {
+        String collection = command.getString(AGGREGATE);
+        JsonArray pipeline = command.getJsonArray("pipeline");
+        AggregateOptions options = new AggregateOptions().setBatchSize(batchSize);
+        return (transactionSession == null || transactionSession.isClosed()) ? mongoClient.aggregateWithOptions(collection, pipeline, options) : mongoClient.aggregateWithOptions(transactionSession.getClientSession(), collection, pipeline, options);
+    }
+
     @Override
     public Future<ITransaction> beginTransaction() {
         Promise<ITransaction> promise = Promise.promise();
@@ -806,6 +806,16 @@ public interface MongoClient {
      */
     ReadStream<JsonObject> aggregateWithOptions(String collection, final JsonArray pipeline, final AggregateOptions options);
 
+    /**
+     * Run aggregate MongoDB command within a client session.
+     *
+     * @param clientSession the session the command runs in
+     * @param collection    the collection
+     * @param pipeline      aggregation pipeline to be executed
+     * @param options       options to configure the aggregation command
+     */
+    ReadStream<JsonObject> aggregateWithOptions(ClientSession clientSession, String collection, final JsonArray pipeline, final AggregateOptions options);
+
     /**
      * Watch the collection change.
      * @param collection the collection
@@ -1077,7 +1077,13 @@ public class MongoClientImpl implements io.vertx.ext.mongo.MongoClient, Closeabl
 
     @Override
     public ReadStream<JsonObject> aggregateWithOptions(final String collection, final JsonArray pipeline, final AggregateOptions options) {
-        AggregatePublisher<JsonObject> view = doAggregate(collection, pipeline, options);
+        AggregatePublisher<JsonObject> view = doAggregate(null, collection, pipeline, options);
+        return new PublisherAdapter<>(vertx.getOrCreateContext(), view, options.getBatchSize());
+    }
+
+    @Override
+    public ReadStream<JsonObject> aggregateWithOptions(ClientSession clientSession, final String collection, final JsonArray pipeline, final AggregateOptions options) {
+        AggregatePublisher<JsonObject> view = doAggregate(clientSession, collection, pipeline, options);
         return new PublisherAdapter<>(vertx.getOrCreateContext(), view, options.getBatchSize());
     }
 
@@ -1114,14 +1120,14 @@ public class MongoClientImpl implements io.vertx.ext.mongo.MongoClient, Closeabl
         return mongoCollection.distinct(fieldName, bquery, resultClass);
     }
 
-    private AggregatePublisher<JsonObject> doAggregate(final String collection, final JsonArray pipeline, final AggregateOptions aggregateOptions) {
+    private AggregatePublisher<JsonObject> doAggregate(final ClientSession clientSession, final String collection, final JsonArray pipeline, final AggregateOptions aggregateOptions) {
         requireNonNull(collection, "collection cannot be null");
         requireNonNull(pipeline, "pipeline cannot be null");
         requireNonNull(aggregateOptions, "aggregateOptions cannot be null");
         final MongoCollection<JsonObject> coll = getCollection(collection);
         final List<Bson> bpipeline = new ArrayList<>(pipeline.size());
         pipeline.getList().forEach(entry -> bpipeline.add(wrap(JsonObject.mapFrom(entry))));
-        AggregatePublisher<JsonObject> aggregate = coll.aggregate(bpipeline, JsonObject.class);
+        AggregatePublisher<JsonObject> aggregate = clientSession == null ? coll.aggregate(bpipeline, JsonObject.class) : coll.aggregate(clientSession, bpipeline, JsonObject.class);
 
         if (aggregateOptions.getBatchSize() != -1) {
             aggregate.batchSize(aggregateOptions.getBatchSize());
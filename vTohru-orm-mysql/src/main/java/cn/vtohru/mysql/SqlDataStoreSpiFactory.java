@@ -2,6 +2,7 @@ package cn.vtohru.mysql;
 
 import cn.vtohru.context.VerticleApplicationContext;
 import cn.vtohru.mysql.impl.MysqlDataStore;
+import cn.vtohru.mysql.impl.RowMappers;
 import cn.vtohru.orm.DataSourceConfiguration;
 import cn.vtohru.orm.DataStore;
 import cn.vtohru.orm.DataStoreSpiFactory;
@@ -11,10 +12,15 @@ import javax.inject.Singleton;
 
 @Singleton
 public class SqlDataStoreSpiFactory implements DataStoreSpiFactory {
+    private RowMappers rowMappers;
+
+    public SqlDataStoreSpiFactory(RowMappers rowMappers) {
+        this.rowMappers = rowMappers;
+    }
 
     @Override
     public DataStore createDataStore(VerticleApplicationContext verticleApplicationContext, DataSourceConfiguration dataSourceConfiguration, EntityManager entityManager) {
-        return new MysqlDataStore(verticleApplicationContext, dataSourceConfiguration, entityManager);
+        return new MysqlDataStore(verticleApplicationContext, dataSourceConfiguration, entityManager, rowMappers);
     }
 
     @Override
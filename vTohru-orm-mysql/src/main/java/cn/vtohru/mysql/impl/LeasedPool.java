@@ -0,0 +1,55 @@
+package cn.vtohru.mysql.impl;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool that counts the connections it lent out, so that a pool replaced on a config refresh is closed only once
+ * every borrowed connection came back, however long the transaction or stream holding it runs.
+ */
+class LeasedPool {
+    private final Pool pool;
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean retired;
+
+    LeasedPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    Future<SqlConnection> getConnection() {
+        leased.incrementAndGet();
+        return pool.getConnection().onFailure(e -> release());
+    }
+
+    void release() {
+        if (leased.decrementAndGet() == 0 && retired) {
+            close();
+        }
+    }
+
+    /**
+     * Stops lending and closes the pool as soon as no connection is out.
+     */
+    void retire() {
+        retired = true;
+        if (leased.get() == 0) {
+            close();
+        }
+    }
+
+    int leased() {
+        return leased.get();
+    }
+
+    Future<Void> close() {
+        if (closed.compareAndSet(false, true)) {
+            return pool.close();
+        }
+        return Future.succeededFuture();
+    }
+}
@@ -1,11 +1,16 @@
 package cn.vtohru.mysql.impl;
 
+import cn.vtohru.context.ConfigWatcher;
 import cn.vtohru.context.VerticleApplicationContext;
+import cn.vtohru.event.ConfigRefreshEvent;
 import cn.vtohru.orm.*;
 import cn.vtohru.orm.entity.EntityManager;
 import cn.vtohru.orm.data.IDataProxy;
 import io.vertx.core.Future;
+import io.micronaut.core.naming.conventions.StringConvention;
 import io.vertx.core.Promise;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mysqlclient.MySQLConnectOptions;
 import io.vertx.mysqlclient.MySQLPool;
@@ -15,70 +20,106 @@ import java.util.List;
 import java.util.Map;
 
 public class MysqlDataStore implements DataStore {
-    private MySQLPool  sqlClient;
+    private static final Logger logger = LoggerFactory.getLogger(MysqlDataStore.class);
+    private static final String DATASOURCE_PREFIX = VerticleApplicationContext.VTOHRU + ".datasource.";
+    private volatile LeasedPool sqlClient;
+    private ConfigWatcher.Registration refreshRegistration;
     private VerticleApplicationContext verticleApplicationContext;
     private DataSourceConfiguration dataSourceConfiguration;
     private EntityManager entityManager;
+    private RowMappers rowMappers;
 
-    public MysqlDataStore(VerticleApplicationContext verticleApplicationContext, DataSourceConfiguration dataSourceConfiguration, EntityManager entityManager) {
+    public MysqlDataStore(VerticleApplicationContext verticleApplicationContext, DataSourceConfiguration dataSourceConfiguration, EntityManager entityManager, RowMappers rowMappers) {
         this.verticleApplicationContext = verticleApplicationContext;
         this.dataSourceConfiguration = dataSourceConfiguration;
         this.entityManager = entityManager;
+        this.rowMappers = rowMappers;
     }
 
     @Override
     public Future<Void> start() {
+        sqlClient = createPool();
+        refreshRegistration = verticleApplicationContext.getBean(ConfigWatcher.class).onRefresh(this::refresh);
+        return Future.succeededFuture();
+    }
+
+    private LeasedPool createPool() {
         MySQLConnectOptions mySQLConnectOptions = MySQLConnectOptions.fromUri(dataSourceConfiguration.getUrl());
         Map<String, Object> pool = this.dataSourceConfiguration.getPool();
-        JsonObject poolConfig = new JsonObject(pool);
+        JsonObject poolConfig = pool == null ? new JsonObject() : new JsonObject(pool);
         PoolOptions options = new PoolOptions(poolConfig);
-        sqlClient = MySQLPool.pool(this.verticleApplicationContext.getVertx(), mySQLConnectOptions, options);
-        return Future.succeededFuture();
+        return new LeasedPool(MySQLPool.pool(this.verticleApplicationContext.getVertx(), mySQLConnectOptions, options));
+    }
+
+    /**
+     * Swaps in a pool built from the new url and pool settings. The old pool keeps serving the connections already
+     * borrowed from it and is closed once the last of them is returned.
+     */
+    private void refresh(ConfigRefreshEvent event) {
+        String prefix = DATASOURCE_PREFIX + dataSourceConfiguration.getName();
+        if (!event.isChanged(prefix + ".url") && !event.isChanged(prefix + ".pool")) {
+            return;
+        }
+        verticleApplicationContext.getProperty(prefix + ".url", String.class).ifPresent(dataSourceConfiguration::setUrl);
+        dataSourceConfiguration.setPool(verticleApplicationContext.getEnvironment().getProperties(prefix + ".pool", StringConvention.RAW));
+        LeasedPool previous = sqlClient;
+        try {
+            sqlClient = createPool();
+        } catch (Exception e) {
+            logger.error("datasource " + dataSourceConfiguration.getName() + " reload failed, keeping the current pool", e);
+            return;
+        }
+        logger.info("datasource " + dataSourceConfiguration.getName() + " reloaded with pool " + dataSourceConfiguration.getPool()
+                + ", closing the previous pool after its " + previous.leased() + " borrowed connections are returned");
+        previous.retire();
     }
 
     @Override
     public Future<Void> stop() {
+        if (refreshRegistration != null) {
+            refreshRegistration.cancel();
+        }
         return sqlClient.close();
     }
 
     @Override
     public <T> Future<T> persist(T model) {
         Promise<T> promise = Promise.promise();
-        getSession().onSuccess(x -> x.persist(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.persist(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();
     }
 
     @Override
     public <T> Future<T> insert(T model) {
         Promise<T> promise = Promise.promise();
-        getSession().onSuccess(x -> x.insert(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.insert(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();
     }
 
     @Override
     public <T> Future<Long> insertBatch(List<T> model) {
         Promise<Long> promise = Promise.promise();
-        getSession().onSuccess(x -> x.insertBatch(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.insertBatch(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();    }
 
     @Override
     public <T> Future<T> update(T model) {
         Promise<T> promise = Promise.promise();
-        getSession().onSuccess(x -> x.update(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.update(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();
     }
 
     @Override
     public <T> Future<Void> remove(T model) {
         Promise<Void> promise = Promise.promise();
-        getSession().onSuccess(x -> x.remove(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.remove(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();
     }
 
     @Override
     public <T> Future<T> fetch(T model) {
         Promise<T> promise = Promise.promise();
-        getSession().onSuccess(x -> x.fetch(model).onComplete(promise)).onFailure(promise::fail);
+        getSession().onSuccess(x -> x.fetch(model).onComplete(promise).onComplete(ar -> x.close())).onFailure(promise::fail);
         return promise.future();
     }
 
@@ -91,7 +132,8 @@ public class MysqlDataStore implements DataStore {
     @Override
     public Future<DbSession> getSession() {
         Promise<DbSession> promise = Promise.promise();
-        sqlClient.getConnection().onSuccess(x -> promise.complete(new MysqlSession(x, entityManager))).onFailure(promise::fail);
+        LeasedPool pool = sqlClient;
+        pool.getConnection().onSuccess(x -> promise.complete(new MysqlSession(x, entityManager, rowMappers, pool::release))).onFailure(promise::fail);
         return promise.future();
     }
 
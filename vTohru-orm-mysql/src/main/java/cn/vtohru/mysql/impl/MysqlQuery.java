@@ -1,21 +1,25 @@
 package cn.vtohru.mysql.impl;
 
 import cn.vtohru.orm.Condition;
+import cn.vtohru.orm.DbSession;
 import cn.vtohru.orm.builder.*;
 import cn.vtohru.orm.Query;
 import cn.vtohru.orm.data.PageData;
 import cn.vtohru.orm.entity.EntityManager;
 import cn.vtohru.orm.data.IDataProxy;
+import cn.vtohru.orm.data.MappedReadStream;
 import cn.vtohru.orm.exception.OrmException;
 import io.micronaut.core.util.CollectionUtils;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -87,11 +91,10 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         String jpql = getSql();
         System.out.println(jpql);
         this.dataProxy.getSession().onSuccess(session -> {
-            session.execute(jpql + " limit 1", getParams()).onSuccess(x -> {
-                if (x != null && x.size() > 0) {
-                    JsonObject row = x.getJsonObject(0);
-                    T entity = entityManager.convertEntity(row, entityClass);
-                    promise.complete(entity);
+            promise.future().onComplete(ar -> this.dataProxy.release(session));
+            select(session, jpql + " limit 1").onSuccess(x -> {
+                if (x.size() > 0) {
+                    promise.complete(x.get(0));
                 } else if (errorOnNull) {
                     promise.fail(new OrmException("no value find"));
                 } else {
@@ -108,6 +111,7 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         StringBuilder countBuilder = new StringBuilder();
         countBuilder.append("select count(1) ").append(" from ").append(getTableName()).append(" where ").append(getWhereSegment());
         this.dataProxy.getSession().onSuccess(session -> {
+            promise.future().onComplete(ar -> this.dataProxy.release(session));
             session.execute(countBuilder.toString(), getParams()).onSuccess(x -> {
                 if (x.size() > 0) {
                     JsonObject row = x.getJsonObject(0);
@@ -128,6 +132,7 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         StringBuilder countBuilder = new StringBuilder();
         countBuilder.append("delete ").append(" from ").append(getTableName()).append(" where ").append(getWhereSegment());
         this.dataProxy.getSession().onSuccess(session -> {
+            promise.future().onComplete(ar -> this.dataProxy.release(session));
             session.execute(countBuilder.toString(), getParams()).onSuccess(x -> {
                 promise.complete();
             }).onFailure(promise::fail);
@@ -143,15 +148,10 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         Promise<List<T>> promise = Promise.promise();
         String jpql = getSql();
         this.dataProxy.getSession().onSuccess(session -> {
-            session.execute(jpql, getParams()).onSuccess(x -> {
+            promise.future().onComplete(ar -> this.dataProxy.release(session));
+            select(session, jpql).onSuccess(x -> {
                 if (x.size() > 0) {
-                    List<T> results = new ArrayList<>();
-                    for (int i = 0; i < x.size(); i++) {
-                        JsonObject row = x.getJsonObject(i);
-                        T entity = entityManager.convertEntity(row, entityClass);
-                        results.add(entity);
-                    }
-                    promise.complete(results);
+                    promise.complete(x);
                 } else {
                     promise.complete();
                 }
@@ -160,6 +160,20 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         return promise.future();
     }
 
+    @Override
+    public ReadStream<T> stream(int fetchSize) {
+        checkColumns();
+        String jpql = getSql();
+        List<Object> params = getParams();
+        Future<DbSession> session = this.dataProxy.getSession();
+        return new MappedReadStream<>(session.compose(x -> ((MysqlSession) x).stream(jpql, params, fetchSize, entityClass)), Function.identity(),
+                v -> session.onSuccess(this.dataProxy::release));
+    }
+
+    private Future<List<T>> select(DbSession session, String jpql) {
+        return ((MysqlSession) session).query(jpql, getParams(), entityClass);
+    }
+
     @Override
     public Future<PageData<T>> pagination(int offset, int rowCount) {
         checkColumns();
@@ -167,6 +181,7 @@ public class MysqlQuery<T> extends BaseQuery<T> {
         StringBuilder countBuilder = new StringBuilder();
         countBuilder.append("select count(1) ").append(" from ").append(getTableName()).append(" where ").append(getWhereSegment());
         this.dataProxy.getSession().onSuccess(session -> {
+            promise.future().onComplete(ar -> this.dataProxy.release(session));
             session.execute(countBuilder.toString(), getParams()).onSuccess(x -> {
                 PageData<T> pageData = new PageData<>();
                 if (x.size() > 0) {
@@ -174,14 +189,8 @@ public class MysqlQuery<T> extends BaseQuery<T> {
                     Long count = row.getLong("count");
                     pageData.setTotal(count);
                     if (count > 0) {
-                        session.execute(getSql() + " limit " + offset + "," + rowCount, getParams()).onSuccess(y -> {
-                            List<T> results = new ArrayList<>();
-                            for (int i = 0; i < y.size(); i++) {
-                                JsonObject record = y.getJsonObject(i);
-                                T entity = entityManager.convertEntity(record, entityClass);
-                                results.add(entity);
-                            }
-                            pageData.setRecords(results);
+                        select(session, getSql() + " limit " + offset + "," + rowCount).onSuccess(y -> {
+                            pageData.setRecords(y);
                             promise.complete(pageData);
 
                         }).onFailure(promise::fail);
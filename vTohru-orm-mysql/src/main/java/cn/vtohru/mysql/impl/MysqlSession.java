@@ -7,27 +7,36 @@ import cn.vtohru.orm.entity.EntityField;
 import cn.vtohru.orm.entity.EntityInfo;
 import cn.vtohru.orm.entity.EntityManager;
 import cn.vtohru.orm.data.IDataProxy;
+import cn.vtohru.orm.data.MappedReadStream;
 import cn.vtohru.orm.exception.OrmException;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.sqlclient.*;
 
 import javax.persistence.GenerationType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class MysqlSession implements DbSession {
 
     private SqlConnection sqlConnection;
     private EntityManager entityManager;
+    private RowMappers rowMappers;
+    private Runnable closeHandler;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
-    public MysqlSession(SqlConnection sqlConnection, EntityManager entityManager) {
+    public MysqlSession(SqlConnection sqlConnection, EntityManager entityManager, RowMappers rowMappers, Runnable closeHandler) {
         this.sqlConnection = sqlConnection;
         this.entityManager = entityManager;
+        this.rowMappers = rowMappers;
+        this.closeHandler = closeHandler;
     }
     @Override
     public <T> Future<T> persist(T model) {
@@ -194,18 +203,56 @@ public class MysqlSession implements DbSession {
         sqlConnection.preparedQuery(jpql).execute(Tuple.from(params)).onSuccess(x -> {
             JsonArray results = new JsonArray();
             for (Row row : x) {
-                JsonObject result = new JsonObject();
-                for (int i = 0; i < row.size(); i++) {
-                    String columnName = row.getColumnName(i);
-                    result.put(columnName, row.getValue(i));
-                }
-                results.add(result);
+                results.add(toJson(row));
             }
             promise.complete(results);
         }).onFailure(promise::fail);
         return promise.future();
     }
 
+    @Override
+    public Future<ReadStream<JsonObject>> stream(String jpql, List<Object> params, int fetchSize) {
+        return openCursor(jpql, params, fetchSize, MysqlSession::toJson);
+    }
+
+    /**
+     * Runs a select and maps the rows straight to entities with the {@link RowMapper} of the result column layout.
+     */
+    public <T> Future<List<T>> query(String jpql, List<Object> params, Class<T> entityClass) {
+        return sqlConnection.preparedQuery(jpql).execute(Tuple.from(params)).map(rows -> {
+            RowMapper<T> mapper = rowMappers.get(entityClass, rows.columnsNames());
+            List<T> results = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                results.add(mapper.map(row));
+            }
+            return results;
+        });
+    }
+
+    public <T> Future<ReadStream<T>> stream(String jpql, List<Object> params, int fetchSize, Class<T> entityClass) {
+        return openCursor(jpql, params, fetchSize, rowMappers.forStream(entityClass));
+    }
+
+    /**
+     * Reads the rows through a cursor, {@code fetchSize} at a time. The statement is closed once the stream ended,
+     * failed or was abandoned with a {@code null} handler.
+     */
+    private <R> Future<ReadStream<R>> openCursor(String jpql, List<Object> params, int fetchSize, Function<Row, R> mapper) {
+        return sqlConnection.prepare(jpql).map(statement -> new MappedReadStream<>(
+                Future.succeededFuture(statement.createStream(fetchSize, Tuple.from(params))),
+                mapper,
+                v -> statement.close()));
+    }
+
+    private static JsonObject toJson(Row row) {
+        JsonObject result = new JsonObject();
+        for (int i = 0; i < row.size(); i++) {
+            String columnName = row.getColumnName(i);
+            result.put(columnName, row.getValue(i));
+        }
+        return result;
+    }
+
     @Override
     public Future<ITransaction> beginTransaction() {
         Promise<ITransaction> promise = Promise.promise();
@@ -215,4 +262,15 @@ public class MysqlSession implements DbSession {
         return promise.future();
     }
 
+    /**
+     * Returns the connection to its pool.
+     */
+    @Override
+    public Future<Void> close() {
+        if (!closed.compareAndSet(false, true)) {
+            return Future.succeededFuture();
+        }
+        return sqlConnection.close().onComplete(ar -> closeHandler.run());
+    }
+
 }
@@ -0,0 +1,137 @@
+package cn.vtohru.mysql.impl;
+
+import cn.vtohru.orm.entity.EntityField;
+import cn.vtohru.orm.entity.EntityInfo;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanProperty;
+import io.micronaut.core.convert.ConversionService;
+import io.vertx.sqlclient.Row;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps the rows of one result column layout to an entity. Columns are matched to properties once; a row is then read
+ * by index with the typed getter of each property type and set through the bean introspection, without the
+ * {@code JsonObject} copy and the per-field conversion lookup of {@code EntityManager.convertEntity}. A column whose
+ * values the typed getter rejects falls back to the shared {@link ConversionService} for the rest of the mapper's life;
+ * the switch is published to every event loop sharing the mapper.
+ */
+public class RowMapper<T> {
+    private final BeanIntrospection<T> introspection;
+    private final int[] columns;
+    private final BeanProperty<T, Object>[] properties;
+    private final AtomicReferenceArray<ColumnReader> readers;
+
+    private RowMapper(BeanIntrospection<T> introspection, int[] columns, BeanProperty<T, Object>[] properties, ColumnReader[] readers) {
+        this.introspection = introspection;
+        this.columns = columns;
+        this.properties = properties;
+        this.readers = new AtomicReferenceArray<>(readers);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> compile(EntityInfo entity, List<String> columnNames) {
+        List<Integer> columns = new ArrayList<>();
+        List<BeanProperty<T, Object>> properties = new ArrayList<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            EntityField<T> entityField = field(entity, columnNames.get(i));
+            if (entityField != null) {
+                columns.add(i);
+                properties.add((BeanProperty<T, Object>) entityField.getProperty());
+            }
+        }
+        int[] indexes = new int[columns.size()];
+        ColumnReader[] readers = new ColumnReader[columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = columns.get(i);
+            readers[i] = reader(properties.get(i).getType());
+        }
+        return new RowMapper<>((BeanIntrospection<T>) entity.getBeanIntrospection(), indexes,
+                properties.toArray(new BeanProperty[0]), readers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EntityField<T> field(EntityInfo entity, String columnName) {
+        EntityField<T> match = null;
+        for (Object value : entity.getFieldMap().values()) {
+            EntityField<T> entityField = (EntityField<T>) value;
+            if (columnName.equals(entityField.getFieldName())) {
+                return entityField;
+            }
+            if (match == null && columnName.equalsIgnoreCase(entityField.getFieldName())) {
+                match = entityField;
+            }
+        }
+        return match;
+    }
+
+    public T map(Row row) {
+        T bean = introspection.instantiate();
+        for (int i = 0; i < columns.length; i++) {
+            Object value;
+            try {
+                value = readers.get(i).read(row, columns[i]);
+            } catch (RuntimeException e) {
+                ColumnReader fallback = converting(properties[i].getType());
+                readers.set(i, fallback);
+                value = fallback.read(row, columns[i]);
+            }
+            if (value != null) {
+                properties[i].set(bean, value);
+            }
+        }
+        return bean;
+    }
+
+    private static ColumnReader reader(Class<?> type) {
+        if (type == String.class) {
+            return Row::getString;
+        } else if (type == Long.class || type == long.class) {
+            return Row::getLong;
+        } else if (type == Integer.class || type == int.class) {
+            return Row::getInteger;
+        } else if (type == Short.class || type == short.class) {
+            return Row::getShort;
+        } else if (type == Double.class || type == double.class) {
+            return Row::getDouble;
+        } else if (type == Float.class || type == float.class) {
+            return Row::getFloat;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return RowMapper::readBoolean;
+        } else if (type == BigDecimal.class) {
+            return Row::getBigDecimal;
+        } else if (type == LocalDateTime.class) {
+            return Row::getLocalDateTime;
+        } else if (type == LocalDate.class) {
+            return Row::getLocalDate;
+        } else if (type == LocalTime.class) {
+            return Row::getLocalTime;
+        }
+        return converting(type);
+    }
+
+    private static Object readBoolean(Row row, int index) {
+        Object value = row.getValue(index);
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        return value == null ? null : row.getBoolean(index);
+    }
+
+    private static ColumnReader converting(Class<?> type) {
+        return (row, index) -> {
+            Object value = row.getValue(index);
+            return value == null ? null : ConversionService.SHARED.convert(value, type).orElse(null);
+        };
+    }
+
+    private interface ColumnReader {
+        Object read(Row row, int index);
+    }
+}
@@ -0,0 +1,51 @@
+package cn.vtohru.mysql.impl;
+
+import cn.vtohru.orm.entity.EntityManager;
+import io.vertx.sqlclient.Row;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link RowMapper}s compiled per entity class and result column layout.
+ */
+@Singleton
+public class RowMappers {
+    private final EntityManager entityManager;
+    private final Map<Class<?>, Map<List<String>, RowMapper<?>>> mappers = new ConcurrentHashMap<>();
+
+    public RowMappers(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> RowMapper<T> get(Class<T> entityClass, List<String> columnNames) {
+        Map<List<String>, RowMapper<?>> layouts = mappers.computeIfAbsent(entityClass, k -> new ConcurrentHashMap<>());
+        RowMapper<?> mapper = layouts.get(columnNames);
+        if (mapper == null) {
+            mapper = layouts.computeIfAbsent(new ArrayList<>(columnNames), k -> RowMapper.compile(entityManager.getEntity(entityClass), k));
+        }
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * A mapping function for rows whose layout is only known once the first row arrived, such as a cursor's.
+     */
+    public <T> Function<Row, T> forStream(Class<T> entityClass) {
+        RowMapper<?>[] compiled = new RowMapper<?>[1];
+        return row -> {
+            if (compiled[0] == null) {
+                List<String> columnNames = new ArrayList<>(row.size());
+                for (int i = 0; i < row.size(); i++) {
+                    columnNames.add(row.getColumnName(i));
+                }
+                compiled[0] = get(entityClass, columnNames);
+            }
+            return ((RowMapper<T>) compiled[0]).map(row);
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package cn.vtohru.mysql.impl;
+
+import cn.vtohru.orm.entity.EntityManager;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.impl.ArrayTuple;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RowMapperTest {
+    private static final List<String> COLUMNS = Arrays.asList("id", "user_name", "age", "enable", "created", "code", "extra");
+
+    @Test
+    public void mapsColumnsByIndex() {
+        RowMappers rowMappers = new RowMappers(new EntityManager());
+        LocalDateTime created = LocalDateTime.of(2021, 11, 3, 10, 15);
+        MappedUser user = rowMappers.get(MappedUser.class, COLUMNS).map(row(7, "tom", 31L, (byte) 1, created, 42L, "ignored"));
+        assertEquals(Long.valueOf(7), user.getId());
+        assertEquals("tom", user.getName());
+        assertEquals(31, user.getAge());
+        assertEquals(Boolean.TRUE, user.getEnable());
+        assertEquals(created, user.getCreated());
+        assertEquals("42", user.getCode());
+    }
+
+    @Test
+    public void nullsLeaveDefaults() {
+        RowMappers rowMappers = new RowMappers(new EntityManager());
+        MappedUser user = rowMappers.get(MappedUser.class, COLUMNS).map(row(1L, null, null, null, null, null, null));
+        assertNull(user.getName());
+        assertEquals(0, user.getAge());
+        assertNull(user.getCreated());
+    }
+
+    @Test
+    public void rejectedColumnKeepsConverting() throws Exception {
+        RowMapper<MappedUser> mapper = new RowMappers(new EntityManager()).get(MappedUser.class, COLUMNS);
+        assertEquals("42", mapper.map(row(1L, "tom", 31L, (byte) 1, null, 42L, null)).getCode());
+        AtomicReference<MappedUser> mapped = new AtomicReference<>();
+        Thread other = new Thread(() -> mapped.set(mapper.map(row(2L, "amy", 20L, (byte) 0, null, 43L, null))));
+        other.start();
+        other.join();
+        assertEquals("43", mapped.get().getCode());
+        assertEquals("x", mapper.map(row(3L, "bob", 40L, (byte) 0, null, "x", null)).getCode());
+    }
+
+    @Test
+    public void mappersAreCachedPerLayout() {
+        RowMappers rowMappers = new RowMappers(new EntityManager());
+        RowMapper<MappedUser> mapper = rowMappers.get(MappedUser.class, COLUMNS);
+        assertSame(mapper, rowMappers.get(MappedUser.class, Arrays.asList("id", "user_name", "age", "enable", "created", "code", "extra")));
+        MappedUser user = rowMappers.forStream(MappedUser.class).apply(row(3L, "amy", 20, (byte) 0, null, "x", null));
+        assertEquals("amy", user.getName());
+        assertEquals(Boolean.FALSE, user.getEnable());
+    }
+
+    private static Row row(Object... values) {
+        return new TestRow(Arrays.asList(values));
+    }
+
+    private static class TestRow extends ArrayTuple implements Row {
+        TestRow(List<Object> values) {
+            super(values);
+        }
+
+        @Override
+        public String getColumnName(int pos) {
+            return COLUMNS.get(pos);
+        }
+
+        @Override
+        public int getColumnIndex(String column) {
+            return COLUMNS.indexOf(column);
+        }
+    }
+}
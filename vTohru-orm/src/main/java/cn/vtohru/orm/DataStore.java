@@ -33,6 +33,7 @@ public interface DataStore extends ISession{
     default <T> Future<T> onTransaction(TransactionFunction<T> transaction) {
         Promise<T> promise = Promise.promise();
         getSession().onSuccess(x -> {
+            promise.future().onComplete(ar -> x.close());
             x.beginTransaction().onSuccess(y -> {
                 transaction.onTransaction(x).onSuccess(t -> {
                     y.commit().onSuccess(c -> {
@@ -1,7 +1,11 @@
 package cn.vtohru.orm;
 
+import cn.vtohru.orm.data.JsonArrayReadStream;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.List;
 
@@ -23,6 +27,22 @@ public interface DbSession {
 
     Future<JsonArray> execute(String jpql, List<Object> params);
 
+    /**
+     * Opens the result of a query as a stream that reads {@code fetchSize} rows at a time, as far as the consumer
+     * keeps up. The default runs {@link #execute(String, List)} and streams the rows from memory.
+     */
+    default Future<ReadStream<JsonObject>> stream(String jpql, List<Object> params, int fetchSize) {
+        return execute(jpql, params).map(rows -> new JsonArrayReadStream(Vertx.currentContext(), rows));
+    }
+
     Future<ITransaction> beginTransaction();
 
+    /**
+     * Gives back what the session holds, such as a pooled connection. Sessions a {@link DataStore} opens for a single
+     * operation are closed when it completes.
+     */
+    default Future<Void> close() {
+        return Future.succeededFuture();
+    }
+
 }
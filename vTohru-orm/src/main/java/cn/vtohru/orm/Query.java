@@ -3,6 +3,7 @@ package cn.vtohru.orm;
 import cn.vtohru.orm.builder.JpqlBuilder;
 import cn.vtohru.orm.data.PageData;
 import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.Collection;
 import java.util.List;
@@ -79,4 +80,8 @@ public interface Query<T> extends LamdaQuery<Query<T>,Query<T>> {
 
     Future<PageData<T>> pagination(int offset, int rowCount);
 
+    ReadStream<T> stream();
+
+    ReadStream<T> stream(int fetchSize);
+
 }
@@ -7,8 +7,10 @@ import cn.vtohru.orm.entity.EntityField;
 import cn.vtohru.orm.entity.EntityInfo;
 import cn.vtohru.orm.entity.EntityManager;
 import cn.vtohru.orm.data.IDataProxy;
+import cn.vtohru.orm.data.MappedReadStream;
 import cn.vtohru.orm.exception.OrmException;
 import io.micronaut.core.util.StringUtils;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -17,6 +19,7 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public abstract class BaseQuery<T> extends AbstractQuery<T> {
+    public static final int DEFAULT_FETCH_SIZE = 100;
     protected IDataProxy dataProxy;
     protected EntityManager entityManager;
     protected JpqlBuilder jpqlBuilder;
@@ -38,6 +41,19 @@ public abstract class BaseQuery<T> extends AbstractQuery<T> {
         return this;
     }
 
+    @Override
+    public ReadStream<T> stream() {
+        return stream(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams the result of the command, converting each row to an entity as it arrives.
+     */
+    protected ReadStream<T> stream(String command, List<Object> params, int fetchSize) {
+        return new MappedReadStream<>(this.dataProxy.getSession().compose(session -> session.stream(command, params, fetchSize)),
+                row -> entityManager.convertEntity(row, entityClass));
+    }
+
     public String getTableName() {
         EntityInfo entity = entityManager.getEntity(entityClass);
         return entity.getTableName();
@@ -23,4 +23,14 @@ public class IDataProxy {
         }
         return promise.future();
     }
+
+    /**
+     * Closes a session obtained from {@link #getSession()} once the operation is done with it, unless it is the
+     * session this proxy was created with.
+     */
+    public void release(DbSession session) {
+        if (session != this.dbSession) {
+            session.close();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package cn.vtohru.orm.data;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * {@link ReadStream} over rows already in memory, for sessions that cannot read a result incrementally. Rows are
+ * delivered on the given context, or inline without one, as many as were requested.
+ */
+public class JsonArrayReadStream implements ReadStream<JsonObject> {
+    private final Context context;
+    private final JsonArray rows;
+    private Handler<JsonObject> handler;
+    private Handler<Void> endHandler;
+    private long demand = Long.MAX_VALUE;
+    private int index;
+    private boolean emitting;
+    private boolean ended;
+
+    public JsonArrayReadStream(Context context, JsonArray rows) {
+        this.context = context;
+        this.rows = rows == null ? new JsonArray() : rows;
+    }
+
+    @Override
+    public JsonArrayReadStream exceptionHandler(Handler<Throwable> handler) {
+        return this;
+    }
+
+    @Override
+    public JsonArrayReadStream handler(Handler<JsonObject> handler) {
+        this.handler = handler;
+        if (handler != null) {
+            schedule();
+        }
+        return this;
+    }
+
+    @Override
+    public JsonArrayReadStream pause() {
+        demand = 0;
+        return this;
+    }
+
+    @Override
+    public JsonArrayReadStream resume() {
+        demand = Long.MAX_VALUE;
+        schedule();
+        return this;
+    }
+
+    @Override
+    public JsonArrayReadStream fetch(long amount) {
+        if (demand != Long.MAX_VALUE) {
+            demand = Long.MAX_VALUE - demand > amount ? demand + amount : Long.MAX_VALUE;
+        }
+        schedule();
+        return this;
+    }
+
+    @Override
+    public JsonArrayReadStream endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    private void schedule() {
+        if (context == null) {
+            drain();
+        } else {
+            context.runOnContext(v -> drain());
+        }
+    }
+
+    private void drain() {
+        if (emitting || ended) {
+            return;
+        }
+        emitting = true;
+        try {
+            while (handler != null && demand > 0 && index < rows.size()) {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                handler.handle(rows.getJsonObject(index++));
+            }
+        } finally {
+            emitting = false;
+        }
+        if (index == rows.size() && handler != null) {
+            ended = true;
+            if (endHandler != null) {
+                endHandler.handle(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cn.vtohru.orm.data;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.function.Function;
+
+/**
+ * {@link ReadStream} converting the items of an upstream that is still being opened, one at a time. Flow control is
+ * forwarded to the upstream once it is available, so a paused consumer stops the cursor from fetching more rows.
+ * Setting a {@code null} handler abandons the stream: the upstream is told to stop and the termination handler runs.
+ */
+public class MappedReadStream<R, T> implements ReadStream<T> {
+    private final Function<R, T> mapper;
+    private final Handler<Void> terminationHandler;
+    private ReadStream<R> upstream;
+    private Handler<T> handler;
+    private Handler<Throwable> exceptionHandler;
+    private Handler<Void> endHandler;
+    private Throwable pendingFailure;
+    private long demand = Long.MAX_VALUE;
+    private boolean terminated;
+
+    public MappedReadStream(Future<? extends ReadStream<R>> upstream, Function<R, T> mapper) {
+        this(upstream, mapper, null);
+    }
+
+    /**
+     * @param terminationHandler called once when the stream ended, failed or was abandoned, to release what backs the
+     *                           upstream
+     */
+    public MappedReadStream(Future<? extends ReadStream<R>> upstream, Function<R, T> mapper, Handler<Void> terminationHandler) {
+        this.mapper = mapper;
+        this.terminationHandler = terminationHandler;
+        upstream.onSuccess(this::attach).onFailure(this::fail);
+    }
+
+    private void attach(ReadStream<R> stream) {
+        upstream = stream;
+        if (terminated) {
+            stream.handler(null);
+            return;
+        }
+        stream.exceptionHandler(this::fail);
+        stream.endHandler(v -> end());
+        if (demand != Long.MAX_VALUE) {
+            stream.pause();
+            if (demand > 0) {
+                stream.fetch(demand);
+            }
+        }
+        if (handler != null) {
+            stream.handler(this::emit);
+        }
+    }
+
+    private void emit(R item) {
+        T mapped;
+        try {
+            mapped = mapper.apply(item);
+        } catch (RuntimeException e) {
+            upstream.handler(null);
+            fail(e);
+            return;
+        }
+        Handler<T> current = handler;
+        if (current != null) {
+            current.handle(mapped);
+        }
+    }
+
+    private void end() {
+        if (terminate()) {
+            Handler<Void> current = endHandler;
+            if (current != null) {
+                current.handle(null);
+            }
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (!terminate()) {
+            return;
+        }
+        Handler<Throwable> current = exceptionHandler;
+        if (current != null) {
+            current.handle(cause);
+        } else {
+            pendingFailure = cause;
+        }
+    }
+
+    private boolean terminate() {
+        if (terminated) {
+            return false;
+        }
+        terminated = true;
+        if (terminationHandler != null) {
+            terminationHandler.handle(null);
+        }
+        return true;
+    }
+
+    @Override
+    public MappedReadStream<R, T> exceptionHandler(Handler<Throwable> handler) {
+        exceptionHandler = handler;
+        if (handler != null && pendingFailure != null) {
+            Throwable cause = pendingFailure;
+            pendingFailure = null;
+            handler.handle(cause);
+        }
+        return this;
+    }
+
+    @Override
+    public MappedReadStream<R, T> handler(Handler<T> handler) {
+        this.handler = handler;
+        if (handler == null) {
+            if (upstream != null) {
+                upstream.handler(null);
+            }
+            terminate();
+        } else if (upstream != null) {
+            upstream.handler(this::emit);
+        }
+        return this;
+    }
+
+    @Override
+    public MappedReadStream<R, T> pause() {
+        if (upstream != null) {
+            upstream.pause();
+        } else {
+            demand = 0;
+        }
+        return this;
+    }
+
+    @Override
+    public MappedReadStream<R, T> resume() {
+        if (upstream != null) {
+            upstream.resume();
+        } else {
+            demand = Long.MAX_VALUE;
+        }
+        return this;
+    }
+
+    @Override
+    public MappedReadStream<R, T> fetch(long amount) {
+        if (upstream != null) {
+            upstream.fetch(amount);
+        } else if (demand != Long.MAX_VALUE) {
+            demand = Long.MAX_VALUE - demand > amount ? demand + amount : Long.MAX_VALUE;
+        }
+        return this;
+    }
+
+    @Override
+    public MappedReadStream<R, T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+}
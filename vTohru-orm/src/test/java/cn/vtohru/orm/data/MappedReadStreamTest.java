@@ -0,0 +1,109 @@
+package cn.vtohru.orm.data;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedReadStreamTest {
+
+    @Test
+    public void demandBeforeOpenIsForwarded() {
+        Promise<ReadStream<JsonObject>> upstream = Promise.promise();
+        List<Integer> received = new ArrayList<>();
+        AtomicBoolean ended = new AtomicBoolean();
+        AtomicInteger terminations = new AtomicInteger();
+        MappedReadStream<JsonObject, Integer> stream = new MappedReadStream<>(upstream.future(), row -> row.getInteger("id"), v -> terminations.incrementAndGet());
+        stream.pause().fetch(2);
+        stream.endHandler(v -> ended.set(true)).handler(received::add);
+        upstream.complete(new JsonArrayReadStream(null, rows(5)));
+        assertEquals(2, received.size());
+        assertFalse(ended.get());
+        stream.fetch(10);
+        assertEquals(5, received.size());
+        assertEquals(4, (int) received.get(4));
+        assertTrue(ended.get());
+        assertEquals(1, terminations.get());
+    }
+
+    @Test
+    public void conversionFailureEndsTheStream() {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean ended = new AtomicBoolean();
+        List<Integer> received = new ArrayList<>();
+        MappedReadStream<JsonObject, Integer> stream = new MappedReadStream<>(Future.succeededFuture(new JsonArrayReadStream(null, rows(3))), row -> {
+            if (row.getInteger("id") == 1) {
+                throw new IllegalStateException("bad row");
+            }
+            return row.getInteger("id");
+        });
+        stream.exceptionHandler(failure::set).endHandler(v -> ended.set(true)).handler(received::add);
+        assertEquals(1, received.size());
+        assertEquals("bad row", failure.get().getMessage());
+        assertFalse(ended.get());
+    }
+
+    @Test
+    public void failureToOpenIsReportedLate() {
+        MappedReadStream<JsonObject, Integer> stream = new MappedReadStream<>(Future.failedFuture("no connection"), row -> 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        stream.exceptionHandler(failure::set);
+        assertEquals("no connection", failure.get().getMessage());
+    }
+
+    @Test
+    public void abandonedStreamReleasesEveryLayer() {
+        AtomicInteger statementClosed = new AtomicInteger();
+        AtomicInteger sessionReleased = new AtomicInteger();
+        MappedReadStream<JsonObject, JsonObject> cursor = new MappedReadStream<>(Future.succeededFuture(new JsonArrayReadStream(null, rows(5))), row -> row,
+                v -> statementClosed.incrementAndGet());
+        MappedReadStream<JsonObject, Integer> stream = new MappedReadStream<>(Future.succeededFuture(cursor), row -> row.getInteger("id"),
+                v -> sessionReleased.incrementAndGet());
+        List<Integer> received = new ArrayList<>();
+        stream.pause().handler(received::add);
+        stream.fetch(1);
+        stream.handler(null);
+        stream.fetch(10);
+        assertEquals(1, received.size());
+        assertEquals(1, statementClosed.get());
+        assertEquals(1, sessionReleased.get());
+    }
+
+    @Test
+    public void streamAbandonedBeforeOpenReleasesTheUpstream() {
+        AtomicInteger statementClosed = new AtomicInteger();
+        AtomicInteger sessionReleased = new AtomicInteger();
+        Promise<ReadStream<JsonObject>> upstream = Promise.promise();
+        MappedReadStream<JsonObject, Integer> stream = new MappedReadStream<>(upstream.future(), row -> row.getInteger("id"),
+                v -> sessionReleased.incrementAndGet());
+        List<Integer> received = new ArrayList<>();
+        stream.handler(received::add);
+        stream.handler(null);
+        assertEquals(1, sessionReleased.get());
+        upstream.complete(new MappedReadStream<>(Future.succeededFuture(new JsonArrayReadStream(null, rows(3))), row -> row,
+                v -> statementClosed.incrementAndGet()));
+        assertEquals(0, received.size());
+        assertEquals(1, statementClosed.get());
+        assertEquals(1, sessionReleased.get());
+    }
+
+    private static JsonArray rows(int count) {
+        JsonArray rows = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            rows.add(new JsonObject().put("id", i));
+        }
+        return rows;
+    }
+}
@@ -1,5 +1,6 @@
 package cn.vtohru.task;
 
+import cn.vtohru.GracefulShutdown;
 import cn.vtohru.annotation.GlobalScope;
 import cn.vtohru.annotation.Verticle;
 import cn.vtohru.context.VerticleApplicationContext;
@@ -21,57 +22,69 @@ import javax.ws.rs.core.Context;
 public class TaskHandlerRegister {
     private VerticleApplicationContext context;
     private TaskAnnotatedMethodHandler taskAnnotatedMethodHandler;
+    private GracefulShutdown gracefulShutdown;
     private static final Logger logger = LoggerFactory.getLogger(TaskHandlerRegister.class);
+    private static final String TASKS_INDEX = "task.definitions";
 
 
-    public TaskHandlerRegister(ApplicationContext context, TaskAnnotatedMethodHandler taskAnnotatedMethodHandler) {
+    public TaskHandlerRegister(ApplicationContext context, TaskAnnotatedMethodHandler taskAnnotatedMethodHandler, GracefulShutdown gracefulShutdown) {
         this.context = (VerticleApplicationContext) context;
         this.taskAnnotatedMethodHandler = taskAnnotatedMethodHandler;
+        this.gracefulShutdown = gracefulShutdown;
     }
 
     public Future<Void> register() {
-        for (TaskAnnotatedMethodHandler.TaskDefinition taskDefinition : taskAnnotatedMethodHandler.getTaskDefinitionList()) {
-            if (context.isScoped(taskDefinition.getBeanDefinition())) {
-                ExecutableMethod executableMethod = taskDefinition.getExecutableMethod();
-                AnnotationValue<Delay> delayAnnotationValue = executableMethod.getAnnotation(Delay.class);
-                Object contextBean = context.getBean(taskDefinition.getBeanDefinition());
-                if (delayAnnotationValue != null) {
-                    long delay = delayAnnotationValue.longValue("delay").orElse(0);
+        for (TaskAnnotatedMethodHandler.TaskDefinition taskDefinition : context.scoped(TASKS_INDEX, taskAnnotatedMethodHandler.getTaskDefinitionList(), TaskAnnotatedMethodHandler.TaskDefinition::getBeanDefinition)) {
+            ExecutableMethod executableMethod = taskDefinition.getExecutableMethod();
+            AnnotationValue<Delay> delayAnnotationValue = executableMethod.getAnnotation(Delay.class);
+            Object contextBean = context.getBean(taskDefinition.getBeanDefinition());
+            if (delayAnnotationValue != null) {
+                long delay = delayAnnotationValue.longValue("delay").orElse(0);
+                if (delay != 0) {
+                    context.getVertx().setTimer(delay, x -> run(contextBean, executableMethod, x));
+                }
+            } else {
+                AnnotationValue<Periodic> periodicAnnotationValue = executableMethod.getAnnotation(Periodic.class);
+                if (periodicAnnotationValue != null) {
+                    long delay = periodicAnnotationValue.longValue("delay").orElse(0);
                     if (delay != 0) {
-                        context.getVertx().setTimer(delay, x -> {
-                            Object[] args = getArgs(x, executableMethod);
-                            try {
-                                executableMethod.invoke(contextBean, args);
-                            } catch (Exception e) {
-                                logger.error(e);
+                        context.getVertx().setPeriodic(delay,x->{
+                            Future<?> result = run(contextBean, executableMethod, x);
+                            if (gracefulShutdown.isDraining()) {
+                                context.getVertx().cancelTimer(x);
+                            } else if (result != null) {
+                                result.onFailure(e->{
+                                    context.getVertx().cancelTimer(x);
+                                });
                             }
                         });
                     }
-                } else {
-                    AnnotationValue<Periodic> periodicAnnotationValue = executableMethod.getAnnotation(Periodic.class);
-                    if (periodicAnnotationValue != null) {
-                        long delay = periodicAnnotationValue.longValue("delay").orElse(0);
-                        if (delay != 0) {
-                            context.getVertx().setPeriodic(delay,x->{
-                                try {
-                                    Object invokeResult = executableMethod.invoke(contextBean, getArgs(x, executableMethod));
-                                    if (invokeResult instanceof Future) {
-                                        ((Future<?>) invokeResult).onFailure(e->{
-                                            context.getVertx().cancelTimer(x);
-                                        });
-                                    }
-                                } catch (Exception e) {
-                                    logger.error(e);
-                                }
-                            });
-                        }
-                    }
                 }
             }
         }
         return Future.succeededFuture();
     }
 
+    /**
+     * Runs the task unless the application is draining; a run counts as in flight until its returned future completes.
+     */
+    private Future<?> run(Object contextBean, ExecutableMethod executableMethod, long taskId) {
+        if (gracefulShutdown.isDraining()) {
+            return null;
+        }
+        gracefulShutdown.begin(GracefulShutdown.TASK);
+        try {
+            Object invokeResult = executableMethod.invoke(contextBean, getArgs(taskId, executableMethod));
+            if (invokeResult instanceof Future) {
+                return ((Future<?>) invokeResult).onComplete(ar -> gracefulShutdown.end(GracefulShutdown.TASK));
+            }
+        } catch (Exception e) {
+            logger.error(e);
+        }
+        gracefulShutdown.end(GracefulShutdown.TASK);
+        return null;
+    }
+
     private Object[] getArgs(long taskId, ExecutableMethod<?, ?> method) {
         Argument<?>[] arguments = method.getArguments();
         Object[] objects = new Object[arguments.length];